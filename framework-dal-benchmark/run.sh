@@ -0,0 +1,22 @@
+#!/bin/sh
+# 运行DAL基准测试，每个线程数输出一份JSON结果，同时开启GC分析（-prof gc）
+#   ./run.sh                    结果写入results/current-t<线程数>.json
+#   ./run.sh baseline           结果写入results/baseline-t<线程数>.json，作为之后对比的基线
+#   ./run.sh current Template   只运行名称匹配Template的基准测试
+# 线程数通过环境变量THREADS设置，默认为"1 4 16"
+set -e
+cd "$(dirname "$0")"
+
+NAME=${1:-current}
+[ $# -gt 0 ] && shift
+THREADS=${THREADS:-"1 4 16"}
+JAR=target/benchmarks.jar
+
+if [ ! -f "$JAR" ]; then
+	mvn -B -q package -DskipTests
+fi
+mkdir -p results
+
+for t in $THREADS; do
+	java -jar "$JAR" -t "$t" -prof gc -rf json -rff "results/$NAME-t$t.json" "$@"
+done
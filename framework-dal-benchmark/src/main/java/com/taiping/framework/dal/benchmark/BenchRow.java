@@ -0,0 +1,73 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import com.taiping.framework.dal.entity.anno.Column;
+import com.taiping.framework.dal.entity.anno.ID;
+import com.taiping.framework.dal.entity.anno.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**基准测试实体，16列，字符串、整数、小数与日期混合
+ * @author xiangyj
+ *
+ */
+@Setter
+@Getter
+@Table("BENCH_ROW")
+public class BenchRow implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@ID(value = "ID", sequence = "BENCH_SEQ")
+	private Long id;
+
+	@Column("CODE")
+	private String code;
+
+	@Column("NAME")
+	private String name;
+
+	@Column("AMOUNT")
+	private BigDecimal amount;
+
+	@Column("CREATED_AT")
+	private Date createdAt;
+
+	@Column("STATUS")
+	private Integer status;
+
+	@Column("REMARK")
+	private String remark;
+
+	@Column("QTY")
+	private Long qty;
+
+	@Column("PRICE")
+	private BigDecimal price;
+
+	@Column("UPDATED_AT")
+	private Date updatedAt;
+
+	@Column("OWNER")
+	private String owner;
+
+	@Column("CATEGORY")
+	private String category;
+
+	@Column("WEIGHT")
+	private Double weight;
+
+	@Column("DUE_AT")
+	private Date dueAt;
+
+	@Column("FLAG")
+	private Integer flag;
+
+	@Column("MEMO")
+	private String memo;
+
+}
@@ -0,0 +1,181 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.tools.SimpleResultSet;
+
+/**基准测试数据：MySQL模式的H2内存库、BenchRow实体与内存结果集
+ * @author xiangyj
+ *
+ */
+public final class BenchmarkData {
+
+	static final String URL = "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	/** BENCH_ROW的列，顺序与sqlMap中bench.cols4/8/16一致*/
+	static final String[] COLUMNS = { "ID", "CODE", "NAME", "AMOUNT", "CREATED_AT", "STATUS", "REMARK", "QTY", "PRICE",
+			"UPDATED_AT", "OWNER", "CATEGORY", "WEIGHT", "DUE_AT", "FLAG", "MEMO" };
+
+	static final int[] TYPES = { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.TIMESTAMP, Types.INTEGER,
+			Types.VARCHAR, Types.BIGINT, Types.DECIMAL, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE,
+			Types.TIMESTAMP, Types.INTEGER, Types.VARCHAR };
+
+	private static final String DDL = "CREATE TABLE BENCH_ROW (ID NUMBER(19) PRIMARY KEY, CODE VARCHAR2(32), NAME VARCHAR2(64), "
+			+ "AMOUNT NUMBER(18,2), CREATED_AT TIMESTAMP, STATUS NUMBER(10), REMARK VARCHAR2(200), QTY NUMBER(19), "
+			+ "PRICE NUMBER(18,4), UPDATED_AT TIMESTAMP, OWNER VARCHAR2(32), CATEGORY VARCHAR2(32), WEIGHT DOUBLE, "
+			+ "DUE_AT TIMESTAMP, FLAG NUMBER(10), MEMO VARCHAR2(200))";
+
+	private static final long BASE_TIME = 1546300800000L;
+
+	private static JdbcConnectionPool dataSource;
+
+	/** 表中当前的记录数*/
+	private static int tableRows;
+
+	private BenchmarkData() {}
+
+	/**共享的数据源，建表并写入rows条记录，记录数与上次不同时重建<br>
+	 * H2执行count与分页查询的耗时随表中记录数增长，表中记录数应与分页大小相当，否则测不出DAL自身的变化
+	 * @param rows 表中的记录数
+	 * @return
+	 * @throws SQLException
+	 */
+	public static synchronized DataSource dataSource(int rows) throws SQLException {
+		if (dataSource == null) {
+			JdbcConnectionPool pool = JdbcConnectionPool.create(URL, "sa", "");
+			pool.setMaxConnections(64);
+			dataSource = pool;
+		}
+		if (tableRows != rows) {
+			try (Connection conn = dataSource.getConnection()) {
+				populate(conn, rows);
+			}
+			tableRows = rows;
+		}
+		return dataSource;
+	}
+
+	private static void populate(Connection conn, int rows) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP TABLE IF EXISTS BENCH_ROW");
+			stmt.execute("DROP SEQUENCE IF EXISTS BENCH_SEQ");
+			stmt.execute(DDL);
+			stmt.execute("CREATE SEQUENCE BENCH_SEQ START WITH " + (rows + 1));
+		}
+		StringBuilder sql = new StringBuilder("INSERT INTO BENCH_ROW VALUES (?");
+		for (int i = 1; i < COLUMNS.length; i++) {
+			sql.append(", ?");
+		}
+		sql.append(')');
+		conn.setAutoCommit(false);
+		try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			for (int i = 1; i <= rows; i++) {
+				Object[] values = values(i, COLUMNS.length);
+				for (int j = 0; j < values.length; j++) {
+					ps.setObject(j + 1, values[j]);
+				}
+				ps.addBatch();
+				if (i % 1000 == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+		conn.commit();
+		conn.setAutoCommit(true);
+	}
+
+	/**第id条记录的前columns列取值，取值只与id有关，结果可重复
+	 * @param id
+	 * @param columns
+	 * @return
+	 */
+	static Object[] values(long id, int columns) {
+		Object[] all = { id, "C" + id, "name-" + id, BigDecimal.valueOf(id * 100 + 55, 2), new Timestamp(BASE_TIME + id * 1000),
+				(int) (id % 5), "remark for row " + id, id * 3, BigDecimal.valueOf(id * 10000 + 1234, 4),
+				new Timestamp(BASE_TIME + id * 2000), "owner" + id % 50, "cat" + id % 10, id * 0.5d,
+				new Timestamp(BASE_TIME + id * 86400000L), (int) (id % 2), "memo " + id };
+		if (columns == all.length) {
+			return all;
+		}
+		Object[] values = new Object[columns];
+		System.arraycopy(all, 0, values, 0, columns);
+		return values;
+	}
+
+	/**填充所有属性的实体
+	 * @param id
+	 * @return
+	 */
+	public static BenchRow row(long id) {
+		Object[] values = values(id, COLUMNS.length);
+		BenchRow row = new BenchRow();
+		row.setId(id);
+		row.setCode((String) values[1]);
+		row.setName((String) values[2]);
+		row.setAmount((BigDecimal) values[3]);
+		row.setCreatedAt((Date) values[4]);
+		row.setStatus((Integer) values[5]);
+		row.setRemark((String) values[6]);
+		row.setQty((Long) values[7]);
+		row.setPrice((BigDecimal) values[8]);
+		row.setUpdatedAt((Date) values[9]);
+		row.setOwner((String) values[10]);
+		row.setCategory((String) values[11]);
+		row.setWeight((Double) values[12]);
+		row.setDueAt((Date) values[13]);
+		row.setFlag((Integer) values[14]);
+		row.setMemo((String) values[15]);
+		return row;
+	}
+
+	/**内存结果集，不经过JDBC驱动与网络，只测量结果映射本身；可以通过beforeFirst()重复遍历
+	 * @param rows    记录数
+	 * @param columns 列数，取BENCH_ROW的前columns列
+	 * @return
+	 */
+	public static SimpleResultSet resultSet(int rows, int columns) {
+		SimpleResultSet rs = new SimpleResultSet();
+		rs.setAutoClose(false);
+		for (int i = 0; i < columns; i++) {
+			rs.addColumn(COLUMNS[i], TYPES[i], 0, 0);
+		}
+		for (int i = 1; i <= rows; i++) {
+			rs.addRow(values(i, columns));
+		}
+		return rs;
+	}
+
+	/**bench.search的查询参数，conditions为生效的可选条件数（0~4）
+	 * @param conditions
+	 * @return
+	 */
+	public static Map<String, Object> searchParams(int conditions) {
+		Map<String, Object> params = new HashMap<>();
+		if (conditions > 0) {
+			params.put("code", "C100");
+		}
+		if (conditions > 1) {
+			params.put("name", "name-1%");
+		}
+		if (conditions > 2) {
+			params.put("status", 1);
+		}
+		if (conditions > 3) {
+			params.put("minAmount", BigDecimal.TEN);
+		}
+		return params;
+	}
+}
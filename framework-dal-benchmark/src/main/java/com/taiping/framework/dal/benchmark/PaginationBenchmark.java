@@ -0,0 +1,69 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taiping.framework.dal.page.CountStrategy;
+import com.taiping.framework.dal.page.Page;
+import com.taiping.framework.dal.page.PageResult;
+import com.taiping.framework.dal.support.PaginationDalClient;
+
+/**PaginationDalClient.queryForList：H2内存库上的端到端分页查询，包含count、分页改写、执行与结果映射<br>
+ * rows为分页大小，columns为查询的列数；表中只有3页记录，查询第2页，H2的扫描量与分页大小成正比<br>
+ * sqlMap使用MySql方言（LIMIT分页）：H2每次执行Oracle方言ROWNUM包装的子查询都要重新解析，
+ * 单次耗时数百微秒，会掩盖DAL自身的变化
+ * @author xiangyj
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+
+	/** 表中的页数*/
+	private static final int TABLE_PAGES = 3;
+
+	@Param({ "10", "100", "1000" })
+	private int rows;
+
+	@Param({ "4", "16" })
+	private int columns;
+
+	@Param({ "EXACT", "HAS_NEXT" })
+	private CountStrategy countStrategy;
+
+	private PaginationDalClient dalClient;
+
+	private String sqlId;
+
+	@Setup
+	public void setup() throws SQLException {
+		dalClient = new PaginationDalClient(BenchmarkData.dataSource(rows * TABLE_PAGES));
+		sqlId = "bench.cols" + columns;
+	}
+
+	@Benchmark
+	public PageResult<BenchRow> queryForList() {
+		Page page = new Page();
+		page.setCurrentPage(2);
+		page.setPageSize(rows);
+		page.setCountStrategy(countStrategy);
+		return dalClient.queryForList(sqlId, new HashMap<>(), BenchRow.class, page);
+	}
+}
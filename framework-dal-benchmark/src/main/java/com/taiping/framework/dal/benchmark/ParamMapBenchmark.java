@@ -0,0 +1,48 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.taiping.framework.dal.util.ParamMapUtil;
+
+/**ParamMapUtil：实体转换为绑定参数
+ * @author xiangyj
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class ParamMapBenchmark {
+
+	private BenchRow row;
+
+	@Setup
+	public void setup() {
+		row = BenchmarkData.row(1);
+	}
+
+	@Benchmark
+	public Map<String, Object> paramMap() {
+		return ParamMapUtil.paramMap(row);
+	}
+
+	@Benchmark
+	public SqlParameterSource paramSource() {
+		return ParamMapUtil.paramSource(row);
+	}
+}
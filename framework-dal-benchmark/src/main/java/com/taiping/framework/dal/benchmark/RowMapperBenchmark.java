@@ -0,0 +1,60 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.taiping.framework.dal.mapper.RowMapperFactory;
+
+/**DefaultBeanPropertyRowMapper.mapRow：遍历内存结果集映射全部记录，不包含JDBC驱动耗时<br>
+ * 结果集不能跨线程共享，状态按线程隔离
+ * @author xiangyj
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class RowMapperBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	private int rows;
+
+	@Param({ "4", "8", "16" })
+	private int columns;
+
+	private SimpleResultSet resultSet;
+
+	private RowMapper<BenchRow> rowMapper;
+
+	@Setup
+	public void setup() {
+		resultSet = BenchmarkData.resultSet(rows, columns);
+		rowMapper = RowMapperFactory.getRowMapper(BenchRow.class);
+	}
+
+	@Benchmark
+	public void mapRow(Blackhole blackhole) throws SQLException {
+		resultSet.beforeFirst();
+		int rowNum = 0;
+		while (resultSet.next()) {
+			blackhole.consume(rowMapper.mapRow(resultSet, rowNum++));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taiping.framework.dal.parser.SqlParser;
+import com.taiping.framework.dal.parser.SqlHolder;
+
+/**SqlParser：实体CRUD语句，getSqlHolder为缓存命中路径，genBaseSql为首次生成路径
+ * @author xiangyj
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class SqlHolderBenchmark {
+
+	private BenchRow row;
+
+	@Setup
+	public void setup() {
+		row = BenchmarkData.row(1);
+		SqlParser.getSqlHolder(row);
+	}
+
+	@Benchmark
+	public SqlHolder getSqlHolder() {
+		return SqlParser.getSqlHolder(row);
+	}
+
+	@Benchmark
+	public SqlHolder genBaseSql() {
+		return SqlParser.genBaseSql(BenchRow.class);
+	}
+}
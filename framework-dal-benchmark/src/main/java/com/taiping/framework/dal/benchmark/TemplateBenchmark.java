@@ -0,0 +1,60 @@
+package com.taiping.framework.dal.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taiping.framework.dal.parser.FreeMarkerParser;
+import com.taiping.framework.dal.parser.XmlParser;
+
+/**FreeMarkerParser.processTemplate：按sqlId缓存模板后的渲染耗时，conditions为生效的<#if>条件数
+ * @author xiangyj
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+	private static final String SQL_ID = "bench.search";
+
+	@Param({ "0", "2", "4" })
+	private int conditions;
+
+	private String freSql;
+
+	private Map<String, Object> params;
+
+	@Setup
+	public void setup() {
+		freSql = XmlParser.getOrgSql(SQL_ID);
+		params = BenchmarkData.searchParams(conditions);
+	}
+
+	@Benchmark
+	public String processTemplate() {
+		return FreeMarkerParser.processTemplate(SQL_ID, freSql, params);
+	}
+
+	/**不按sqlId缓存时每次编译模板，作为对照
+	 * @return
+	 */
+	@Benchmark
+	public String processTemplateUncached() {
+		return FreeMarkerParser.processTemplate(freSql, params);
+	}
+}
@@ -0,0 +1,58 @@
+package com.taiping.framework.dal.batch;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**批量持久化结果，按分批记录每批的执行结果
+ * @author xiangyj
+ *
+ */
+public class BatchResult {
+
+	/** 每一批的执行结果，与JDBC executeBatch返回值一致*/
+	private final List<int[]> chunkResults = new ArrayList<>();
+	
+	/** 生成的主键，按实体顺序排列，驱动不支持返回主键时为空*/
+	private final List<Object> generatedKeys = new ArrayList<>();
+
+	public void addChunkResult(int[] counts) {
+		chunkResults.add(counts);
+	}
+	
+	public void addGeneratedKey(Object key) {
+		generatedKeys.add(key);
+	}
+
+	public List<int[]> getChunkResults() {
+		return chunkResults;
+	}
+
+	public List<Object> getGeneratedKeys() {
+		return generatedKeys;
+	}
+	
+	/**成功的记录数，驱动返回SUCCESS_NO_INFO的记录按成功1条计算
+	 * @return
+	 */
+	public int getUpdateCount() {
+		int total = 0;
+		for(int[] counts : chunkResults) {
+			for(int count : counts) {
+				if(count > 0) {
+					total += count;
+				} else if(count == Statement.SUCCESS_NO_INFO) {
+					total++;
+				}
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [chunks=" + chunkResults.size() + ", updateCount=" + getUpdateCount() + ", generatedKeys="
+				+ generatedKeys.size() + "]";
+	}
+	
+}
@@ -0,0 +1,46 @@
+package com.taiping.framework.dal.cache;
+
+import lombok.Getter;
+
+/**缓存统计信息快照
+ * @author xiangyj
+ *
+ */
+@Getter
+public class CacheStats {
+
+	/** 命中次数*/
+	private final long hitCount;
+	
+	/** 未命中次数*/
+	private final long missCount;
+	
+	/** 淘汰次数*/
+	private final long evictionCount;
+	
+	/** 当前缓存条目数*/
+	private final int size;
+
+	public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+		super();
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+	
+	/**命中率，没有访问记录时返回0
+	 * @return
+	 */
+	public double getHitRate() {
+		long total = hitCount + missCount;
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+				+ ", size=" + size + "]";
+	}
+	
+}
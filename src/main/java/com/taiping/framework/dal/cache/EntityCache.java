@@ -0,0 +1,213 @@
+package com.taiping.framework.dal.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.taiping.framework.dal.parser.SqlHolder;
+import com.taiping.framework.dal.util.BeanAccessor;
+import com.taiping.framework.dal.util.BeanAccessor.Property;
+
+/**按主键缓存的实体，在@Table中通过cacheSize开启<br>
+ * 每个数据源的每个实体类使用一个有界LRU缓存，放入与读取时都复制实体（浅复制），
+ * 调用方修改返回的实体不会影响缓存；事务中的写操作在事务结束后再次失效，事务中新增的实体在提交后才放入缓存
+ * @author xiangyj
+ *
+ */
+public final class EntityCache {
+
+	/** 实体缓存，key为数据源与实体类*/
+	private static final Map<DataSource, Map<Class<?>, Region>> regions = new ConcurrentHashMap<>();
+
+	private EntityCache() {}
+
+	/**读取缓存的实体副本，未开启缓存或未命中时返回null
+	 * @param dataSource 数据源
+	 * @param holder 实体SQL
+	 * @param entityClass 实体类
+	 * @param id 主键
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T get(DataSource dataSource, SqlHolder holder, Class<T> entityClass, Object id) {
+		Region region = region(dataSource, holder, entityClass);
+		if(region == null || id == null) {
+			return null;
+		}
+		Object cached = region.cache.get(id);
+		return cached == null ? null : (T) copy(cached);
+	}
+
+	/**放入实体副本，处于事务中时在事务提交后放入
+	 * @param dataSource 数据源
+	 * @param holder 实体SQL
+	 * @param id 主键
+	 * @param entity 实体
+	 */
+	public static void put(DataSource dataSource, SqlHolder holder, Object id, Object entity) {
+		Region region = region(dataSource, holder, entity.getClass());
+		if(region == null || id == null) {
+			return;
+		}
+		Object copy = copy(entity);
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					region.cache.put(id, copy, region.ttlMillis);
+				}
+			});
+		} else {
+			region.cache.put(id, copy, region.ttlMillis);
+		}
+	}
+
+	/**实体类缓存的失效版本号，需在查询数据库之前获取，用于putLoaded
+	 * @param dataSource 数据源
+	 * @param holder 实体SQL
+	 * @param entityClass 实体类
+	 * @return 未开启缓存时返回0
+	 */
+	public static long stamp(DataSource dataSource, SqlHolder holder, Class<?> entityClass) {
+		Region region = region(dataSource, holder, entityClass);
+		return region == null ? 0L : region.version.get();
+	}
+
+	/**读取数据库得到的实体放入缓存，事务中读到的数据可能未提交，不放入缓存；
+	 * 查询期间有实体被修改或删除（失效版本号变化）时，读到的可能是修改前的数据，也不放入缓存
+	 * @param dataSource 数据源
+	 * @param holder 实体SQL
+	 * @param id 主键
+	 * @param entity 实体
+	 * @param stamp 查询前通过stamp获取的失效版本号
+	 */
+	public static void putLoaded(DataSource dataSource, SqlHolder holder, Object id, Object entity, long stamp) {
+		Region region = region(dataSource, holder, entity.getClass());
+		if(region == null || id == null || TransactionSynchronizationManager.isActualTransactionActive()
+				|| region.version.get() != stamp) {
+			return;
+		}
+		region.cache.put(id, copy(entity), region.ttlMillis);
+		/** 检查与放入之间发生失效时撤销，移除只会导致一次未命中 */
+		if(region.version.get() != stamp) {
+			region.cache.remove(id);
+		}
+	}
+
+	/**移除主键对应的实体，处于事务中时在事务结束后再次移除
+	 * @param dataSource 数据源
+	 * @param holder 实体SQL
+	 * @param entityClass 实体类
+	 * @param id 主键
+	 */
+	public static void evict(DataSource dataSource, SqlHolder holder, Class<?> entityClass, Object id) {
+		Region region = region(dataSource, holder, entityClass);
+		if(region == null || id == null) {
+			return;
+		}
+		region.evict(id);
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					region.evict(id);
+				}
+			});
+		}
+	}
+
+	/**表数据被非主键方式修改，清空映射到这些表的实体缓存
+	 * @param dataSource 数据源
+	 * @param tables 表名
+	 */
+	public static void invalidateTables(DataSource dataSource, String... tables) {
+		Map<Class<?>, Region> classRegions = regions.get(dataSource);
+		if(classRegions == null || tables == null) {
+			return;
+		}
+		for(Region region : classRegions.values()) {
+			for(String table : tables) {
+				if(region.tableName.equals(table)) {
+					region.clear();
+					if(TransactionSynchronizationManager.isSynchronizationActive()) {
+						TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+							@Override
+							public void afterCompletion(int status) {
+								region.clear();
+							}
+						});
+					}
+					break;
+				}
+			}
+		}
+	}
+
+	/**实体类缓存统计信息，未开启缓存时返回null
+	 * @param dataSource 数据源
+	 * @param entityClass 实体类
+	 * @return
+	 */
+	public static CacheStats getStats(DataSource dataSource, Class<?> entityClass) {
+		Map<Class<?>, Region> classRegions = regions.get(dataSource);
+		Region region = classRegions == null ? null : classRegions.get(entityClass);
+		return region == null ? null : region.cache.stats();
+	}
+
+	/**复制实体的所有可读写属性
+	 * @param entity 实体
+	 * @return
+	 */
+	private static Object copy(Object entity) {
+		BeanAccessor accessor = BeanAccessor.forClass(entity.getClass());
+		Object copy = accessor.newInstance();
+		for(Property property : accessor.getProperties().values()) {
+			if(property.isReadable() && property.isWritable()) {
+				property.set(copy, property.get(entity));
+			}
+		}
+		return copy;
+	}
+
+	private static Region region(DataSource dataSource, SqlHolder holder, Class<?> entityClass) {
+		if(holder.getCacheSize() <= 0) {
+			return null;
+		}
+		return regions.computeIfAbsent(dataSource, ds -> new ConcurrentHashMap<>())
+				.computeIfAbsent(entityClass, c -> new Region(holder));
+	}
+
+	private static final class Region {
+
+		private final String tableName;
+
+		private final long ttlMillis;
+
+		private final LruCache<Object, Object> cache;
+
+		/** 失效版本号，每次移除或清空时递增*/
+		private final AtomicLong version = new AtomicLong();
+
+		private Region(SqlHolder holder) {
+			this.tableName = holder.getTableName();
+			this.ttlMillis = holder.getCacheTtlMillis();
+			this.cache = new LruCache<>(holder.getCacheSize());
+		}
+
+		private void evict(Object id) {
+			version.incrementAndGet();
+			cache.remove(id);
+		}
+
+		private void clear() {
+			version.incrementAndGet();
+			cache.clear();
+		}
+	}
+
+}
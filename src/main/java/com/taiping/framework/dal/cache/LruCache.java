@@ -0,0 +1,165 @@
+package com.taiping.framework.dal.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**有界近似LRU缓存，线程安全，记录命中、未命中与淘汰次数<br>
+ * 读取不加锁，只在条目上设置访问标记；超出容量时按CLOCK（二次机会）算法淘汰，
+ * 从最早放入的条目开始，跳过并清除最近被访问过的条目，淘汰第一个未被访问的条目<br>
+ * 缓存条目可以指定存活时间，过期条目在下次访问时移除并按未命中计
+ * @author xiangyj
+ *
+ * @param <K> 缓存key
+ * @param <V> 缓存值
+ */
+public class LruCache<K, V> {
+
+	/** 最大缓存条目数*/
+	private final int maxSize;
+	
+	/** 缓存数据，读取不加锁*/
+	private final ConcurrentHashMap<K, CacheEntry<K, V>> map = new ConcurrentHashMap<>();
+	
+	/** 按放入顺序排列的淘汰队列，放入、淘汰与清空时需要持有该对象的锁；被替换或移除的条目在出队时跳过*/
+	private final ArrayDeque<CacheEntry<K, V>> clock = new ArrayDeque<>();
+	
+	private final LongAdder hitCount = new LongAdder();
+	
+	private final LongAdder missCount = new LongAdder();
+	
+	private final LongAdder evictionCount = new LongAdder();
+
+	public LruCache(int maxSize) {
+		if(maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+	
+	/**获取缓存值，未命中返回null
+	 * @param key
+	 * @return
+	 */
+	public V get(K key) {
+		CacheEntry<K, V> entry = map.get(key);
+		if(entry != null && entry.isExpired()) {
+			map.remove(key, entry);
+			entry = null;
+		}
+		if(entry == null) {
+			missCount.increment();
+			return null;
+		}
+		/** 已标记时不再写入，避免热点条目上的缓存行争用 */
+		if(!entry.referenced) {
+			entry.referenced = true;
+		}
+		hitCount.increment();
+		return entry.value;
+	}
+	
+	public void put(K key, V value) {
+		put(key, value, 0);
+	}
+	
+	/**放入缓存，指定存活时间
+	 * @param key
+	 * @param value
+	 * @param ttlMillis 存活毫秒数，小于等于0表示不过期
+	 */
+	public void put(K key, V value, long ttlMillis) {
+		CacheEntry<K, V> entry = new CacheEntry<>(key, value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0);
+		synchronized (clock) {
+			map.put(key, entry);
+			clock.add(entry);
+			while(map.size() > maxSize) {
+				evictOne();
+			}
+			/** 同一key反复放入时队列中会积累失效条目，超过容量两倍时清理 */
+			if(clock.size() > maxSize * 2) {
+				clock.removeIf(e -> map.get(e.key) != e);
+			}
+		}
+	}
+	
+	public V remove(K key) {
+		CacheEntry<K, V> entry = map.remove(key);
+		return entry == null ? null : entry.value;
+	}
+	
+	/**移除key满足条件的所有条目
+	 * @param filter 条件
+	 */
+	public void removeIf(Predicate<? super K> filter) {
+		map.keySet().removeIf(filter);
+	}
+	
+	public void clear() {
+		synchronized (clock) {
+			map.clear();
+			clock.clear();
+		}
+	}
+	
+	public int size() {
+		return map.size();
+	}
+	
+	/**
+	 * 从队首开始淘汰一个条目，最近被访问过的条目清除标记后移到队尾，调用方需持有clock的锁
+	 */
+	private void evictOne() {
+		CacheEntry<K, V> entry;
+		while((entry = clock.poll()) != null) {
+			if(map.get(entry.key) != entry) {
+				continue;
+			}
+			if(entry.referenced && !entry.isExpired()) {
+				entry.referenced = false;
+				clock.add(entry);
+				continue;
+			}
+			if(map.remove(entry.key, entry)) {
+				evictionCount.increment();
+				return;
+			}
+		}
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**当前缓存统计信息快照
+	 * @return
+	 */
+	public CacheStats stats() {
+		return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size());
+	}
+	
+	private static final class CacheEntry<K, V> {
+		
+		private final K key;
+		
+		private final V value;
+		
+		/** 过期时间点，0表示不过期*/
+		private final long expireAt;
+		
+		/** 上次淘汰检查后是否被访问过*/
+		private volatile boolean referenced;
+		
+		private CacheEntry(K key, V value, long expireAt) {
+			this.key = key;
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+		
+		private boolean isExpired() {
+			return expireAt != 0 && System.currentTimeMillis() >= expireAt;
+		}
+	}
+	
+}
@@ -0,0 +1,363 @@
+package com.taiping.framework.dal.cache;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**查询结果缓存，在sqlMap中通过cache="ttl:60s"开启<br>
+ * 缓存key由数据源、sqlId、查询操作、查询参数与RowMapper组成，同时限制条目数与缓存的总行数，
+ * 超出时与{@link LruCache}一样按CLOCK算法近似按访问顺序淘汰，读取不加锁；
+ * 内存占用以行数近似控制，不估算对象的字节数，含大字段的查询应调小maxRows或不开启缓存；
+ * 每个表维护一个版本号，写操作递增版本号，缓存条目记录加载前各表的版本号，版本变化后的条目视为失效<br>
+ * 缓存的对象被所有调用方共享（DAL返回List与Map的副本，实体等其它对象不复制），只适用于代码表、产品配置等只读数据，
+ * 调用方不能修改返回的实体；事务中的查询不使用缓存
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class QueryResultCache {
+
+	/** 默认最大缓存条目数*/
+	private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/** 默认最大缓存行数*/
+	private static final long DEFAULT_MAX_ROWS = 200000;
+
+	private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private static volatile long maxRows = DEFAULT_MAX_ROWS;
+
+	/** 缓存数据，读取不加锁*/
+	private static final ConcurrentHashMap<Key, CachedResult> results = new ConcurrentHashMap<>(256);
+
+	/** 按放入顺序排列的淘汰队列，放入、淘汰与清空时需要持有该对象的锁；被替换或移除的条目在出队时跳过*/
+	private static final ArrayDeque<CachedResult> clock = new ArrayDeque<>();
+
+	/** 当前缓存的总行数，条目从results中移除成功时扣减*/
+	private static final AtomicLong totalRows = new AtomicLong();
+
+	/** 表版本号，key为数据源，value为表名对应的版本号*/
+	private static final Map<DataSource, Map<String, AtomicLong>> tableVersions = new ConcurrentHashMap<>();
+
+	private static final LongAdder hitCount = new LongAdder();
+
+	private static final LongAdder missCount = new LongAdder();
+
+	private static final LongAdder evictionCount = new LongAdder();
+
+	private static final LongAdder invalidationCount = new LongAdder();
+
+	private QueryResultCache() {}
+
+	/**构建缓存key
+	 * @param dataSource 数据源
+	 * @param sqlId SQLID
+	 * @param operation 查询操作，如queryForObject、queryForList，不同操作的结果类型不同
+	 * @param params 查询参数
+	 * @param mapper 结果映射方式，如RowMapper
+	 * @return
+	 */
+	public static Key key(DataSource dataSource, String sqlId, String operation, Map<String, ?> params, Object mapper) {
+		Map<String, Object> copy = new HashMap<>();
+		if(params != null) {
+			for(Map.Entry<String, ?> entry : params.entrySet()) {
+				Object value = entry.getValue();
+				copy.put(entry.getKey(), value instanceof Object[] ? Arrays.asList((Object[]) value) : value);
+			}
+		}
+		return new Key(dataSource, sqlId, operation, copy, mapper);
+	}
+
+	/**获取缓存结果，未命中、已过期或表版本已变化时返回null
+	 * @param key 缓存key
+	 * @return
+	 */
+	public static CachedResult get(Key key) {
+		CachedResult cached = results.get(key);
+		if(cached != null && (cached.isExpired() || !isCurrent(key.dataSource, cached))) {
+			remove(cached);
+			cached = null;
+		}
+		if(cached == null) {
+			missCount.increment();
+			return null;
+		}
+		/** 已标记时不再写入，避免热点条目上的缓存行争用 */
+		if(!cached.referenced) {
+			cached.referenced = true;
+		}
+		hitCount.increment();
+		return cached;
+	}
+
+	/**表的当前版本号，需在执行查询之前获取，用于放入缓存
+	 * @param dataSource 数据源
+	 * @param tables 表名
+	 * @return
+	 */
+	public static long[] versions(DataSource dataSource, String[] tables) {
+		long[] versions = new long[tables.length];
+		for(int i = 0; i < tables.length; i++) {
+			versions[i] = tableVersion(dataSource, tables[i]).get();
+		}
+		return versions;
+	}
+
+	/**放入缓存
+	 * @param key 缓存key
+	 * @param value 查询结果
+	 * @param tables 查询访问的表
+	 * @param versions 查询执行前各表的版本号
+	 * @param ttlMillis 存活毫秒数
+	 */
+	public static void put(Key key, Object value, String[] tables, long[] versions, long ttlMillis) {
+		int rows = value instanceof Collection ? ((Collection<?>) value).size() : 1;
+		if(rows > maxRows) {
+			return;
+		}
+		CachedResult cached = new CachedResult(key, value, rows, tables, versions, System.currentTimeMillis() + ttlMillis);
+		if(!isCurrent(key.dataSource, cached)) {
+			// 查询期间表已被修改；放入之后表再被修改时由get检查版本号
+			return;
+		}
+		synchronized (clock) {
+			CachedResult previous = results.put(key, cached);
+			if(previous != null) {
+				totalRows.addAndGet(-previous.rows);
+			}
+			totalRows.addAndGet(rows);
+			clock.add(cached);
+			while(results.size() > maxEntries || totalRows.get() > maxRows) {
+				if(!evictOne()) {
+					break;
+				}
+			}
+			/** 同一key反复放入或条目被移除时队列中会积累失效条目，超过条目上限两倍时清理 */
+			if(clock.size() > maxEntries * 2) {
+				clock.removeIf(e -> results.get(e.key) != e);
+			}
+		}
+	}
+
+	/**表数据已修改，递增表版本号使相关缓存失效；处于事务中时在事务结束后再次递增，
+	 * 避免事务提交前其它线程读到旧数据并放入缓存
+	 * @param dataSource 数据源
+	 * @param tables 表名
+	 */
+	public static void invalidate(DataSource dataSource, String... tables) {
+		if(tables == null || tables.length == 0) {
+			return;
+		}
+		incrementVersions(dataSource, tables);
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					incrementVersions(dataSource, tables);
+				}
+			});
+		}
+	}
+
+	/**移除sqlId的所有缓存结果
+	 * @param sqlId SQLID
+	 */
+	public static void evict(String sqlId) {
+		for(CachedResult cached : results.values()) {
+			if(cached.key.sqlId.equals(sqlId)) {
+				remove(cached);
+			}
+		}
+	}
+
+	public static void clear() {
+		synchronized (clock) {
+			for(CachedResult cached : results.values()) {
+				remove(cached);
+			}
+			clock.clear();
+		}
+	}
+
+	/**缓存统计信息快照
+	 * @return
+	 */
+	public static CacheStats getStats() {
+		return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), results.size());
+	}
+
+	/**表修改导致的失效次数
+	 * @return
+	 */
+	public static long getInvalidationCount() {
+		return invalidationCount.sum();
+	}
+
+	public static long getTotalRows() {
+		return totalRows.get();
+	}
+
+	/**设置最大缓存条目数与最大缓存行数，超出时淘汰最久未访问的条目
+	 * @param maxEntries 最大条目数
+	 * @param maxRows 最大行数
+	 */
+	public static void setLimits(int maxEntries, long maxRows) {
+		QueryResultCache.maxEntries = maxEntries;
+		QueryResultCache.maxRows = maxRows;
+	}
+
+	/**移除缓存条目，条目已被替换或移除时不处理，保证每个条目的行数只扣减一次
+	 * @param cached 缓存条目
+	 * @return 是否移除
+	 */
+	private static boolean remove(CachedResult cached) {
+		if(results.remove(cached.key, cached)) {
+			totalRows.addAndGet(-cached.rows);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 从队首开始淘汰一个条目，最近被访问过的条目清除标记后移到队尾，调用方需持有clock的锁
+	 * @return 是否淘汰了条目，队列为空时返回false
+	 */
+	private static boolean evictOne() {
+		CachedResult cached;
+		while((cached = clock.poll()) != null) {
+			if(results.get(cached.key) != cached) {
+				continue;
+			}
+			if(cached.referenced && !cached.isExpired()) {
+				cached.referenced = false;
+				clock.add(cached);
+				continue;
+			}
+			if(remove(cached)) {
+				evictionCount.increment();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isCurrent(DataSource dataSource, CachedResult cached) {
+		for(int i = 0; i < cached.tables.length; i++) {
+			if(tableVersion(dataSource, cached.tables[i]).get() != cached.versions[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void incrementVersions(DataSource dataSource, String[] tables) {
+		for(String table : tables) {
+			tableVersion(dataSource, table).incrementAndGet();
+		}
+		invalidationCount.increment();
+		if(log.isDebugEnabled()) {
+			log.debug("Query result cache invalidated for tables: " + Arrays.toString(tables));
+		}
+	}
+
+	private static AtomicLong tableVersion(DataSource dataSource, String table) {
+		return tableVersions.computeIfAbsent(dataSource, ds -> new ConcurrentHashMap<>())
+				.computeIfAbsent(table, t -> new AtomicLong());
+	}
+
+	/**缓存key
+	 */
+	public static final class Key {
+
+		private final DataSource dataSource;
+
+		private final String sqlId;
+
+		private final String operation;
+
+		private final Map<String, Object> params;
+
+		private final Object mapper;
+
+		private final int hash;
+
+		private Key(DataSource dataSource, String sqlId, String operation, Map<String, Object> params, Object mapper) {
+			this.dataSource = dataSource;
+			this.sqlId = sqlId;
+			this.operation = operation;
+			this.params = params;
+			this.mapper = mapper;
+			this.hash = Objects.hash(System.identityHashCode(dataSource), sqlId, operation, params, mapper);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return dataSource == other.dataSource && sqlId.equals(other.sqlId)
+					&& Objects.equals(operation, other.operation) && params.equals(other.params)
+					&& Objects.equals(mapper, other.mapper);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**缓存的查询结果
+	 */
+	public static final class CachedResult {
+
+		private final Key key;
+
+		private final Object value;
+
+		private final int rows;
+
+		private final String[] tables;
+
+		private final long[] versions;
+
+		private final long expireAt;
+
+		/** 上次淘汰检查后是否被访问过*/
+		private volatile boolean referenced;
+
+		private CachedResult(Key key, Object value, int rows, String[] tables, long[] versions, long expireAt) {
+			this.key = key;
+			this.value = value;
+			this.rows = rows;
+			this.tables = tables;
+			this.versions = versions;
+			this.expireAt = expireAt;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expireAt;
+		}
+	}
+
+}
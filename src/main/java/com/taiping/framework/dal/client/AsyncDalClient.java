@@ -0,0 +1,243 @@
+package com.taiping.framework.dal.client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+
+import com.taiping.framework.dal.batch.BatchResult;
+import com.taiping.framework.dal.page.KeysetPage;
+import com.taiping.framework.dal.page.KeysetPageResult;
+import com.taiping.framework.dal.page.Page;
+import com.taiping.framework.dal.page.PageResult;
+
+/**数据库常规操作的异步版本，方法与DalClient一一对应，立即返回CompletableFuture<br>
+ * 操作在线程池中执行，不参与调用线程的事务；调用返回的Future的cancel()或超时会通过Statement.cancel()中止正在执行的SQL<br>
+ * 所有操作（包括persist、merge、remove和*All批量写）都在其它线程上以自动提交方式执行，调用线程的事务回滚时不会撤销，
+ * 事务中的读写应使用DalClient；DefaultAsyncDalClient在存在事务时拒绝提交
+ * @author xiangyj
+ *
+ */
+public interface AsyncDalClient {
+
+	/**单表添加操作
+	 * @param <T>
+	 * @param entity 对象实体
+	 * @return
+	 */
+	<T> CompletableFuture<Number> persist(T entity);
+
+	/**单表修改操作 根据主键修改记录
+	 * @param <T>
+	 * @param entity
+	 * @return 更新成功的记录数
+	 */
+	<T> CompletableFuture<Integer> merge(T entity);
+
+	/**单表删除操作 根据主键删除记录
+	 * @param <T>
+	 * @param entity
+	 * @return 删除成功的记录数
+	 */
+	<T> CompletableFuture<Integer> remove(T entity);
+
+	/**单表批量添加操作，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> persistAll(Collection<T> entities);
+
+	/**单表批量添加操作，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> persistAll(Collection<T> entities, int batchSize);
+
+	/**单表批量修改操作 根据主键修改记录，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> mergeAll(Collection<T> entities);
+
+	/**单表批量修改操作 根据主键修改记录，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> mergeAll(Collection<T> entities, int batchSize);
+
+	/**单表批量删除操作 根据主键删除记录，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> removeAll(Collection<T> entities);
+
+	/**单表批量删除操作 根据主键删除记录，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果
+	 */
+	<T> CompletableFuture<BatchResult> removeAll(Collection<T> entities, int batchSize);
+
+	/**单表查询操作 根据主键查询记录
+	 * @param <T>
+	 * @param entity
+	 * @return
+	 */
+	<T> CompletableFuture<T> find(T entity);
+
+	/**根据sqlId查询单个对象，查不到时结果为null，查询多个取第一个
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @return
+	 */
+	<T> CompletableFuture<T> queryForObject(String sqlId, Map<String, Object> paramMap, Class<T> requiredType);
+
+	/**根据sqlId查询单个对象，查不到时结果为null，查询多个取第一个
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param param 查询参数
+	 * @param requiredType 结果实体类型
+	 * @return
+	 */
+	<T> CompletableFuture<T> queryForObject(String sqlId, Object param, Class<T> requiredType);
+
+	/**根据sqlId查询单个对象，经rowMapper映射，查不到时结果为null，查询多个取第一个
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param rowMapper 结果映射
+	 * @return
+	 */
+	<T> CompletableFuture<T> queryForObject(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper);
+
+	/**根据sqlId查询单个对象，返回Map集合，key是数据库字段
+	 * @param sqlId
+	 * @param paramMap
+	 * @return
+	 */
+	CompletableFuture<Map<String, Object>> queryForMap(String sqlId, Map<String, Object> paramMap);
+
+	/**根据sqlId查询单个对象，返回Map集合，key是数据库字段
+	 * @param sqlId
+	 * @param param
+	 * @return
+	 */
+	CompletableFuture<Map<String, Object>> queryForMap(String sqlId, Object param);
+
+	/**根据sqlId查询多个对象，返回requiredType类型对象List集合
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @return
+	 */
+	<T> CompletableFuture<List<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType);
+
+	/**根据sqlId查询，返回Map集合List，key是数据库字段
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @return
+	 */
+	CompletableFuture<List<Map<String, Object>>> queryForList(String sqlId, Map<String, Object> paramMap);
+
+	/**根据sqlId查询多个对象，返回rowMapper类型对象List集合
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param rowMapper 结果映射
+	 * @return
+	 */
+	<T> CompletableFuture<List<T>> queryForList(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper);
+
+	/**分页查询，通过page的countStrategy选择总数统计方式
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @param page 分页参数
+	 * @return
+	 */
+	<T> CompletableFuture<PageResult<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page);
+
+	/**键集（seek）分页查询，查询下一页时带上一页返回的续页标记
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @param page 键集分页参数
+	 * @return
+	 */
+	<T> CompletableFuture<KeysetPageResult<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, KeysetPage page);
+
+	/**根据sqlId逐行查询，action在执行查询的线程中调用，全部处理完成后Future完成
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param action 行处理
+	 * @return
+	 */
+	<T> CompletableFuture<Void> queryForEach(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize, Consumer<? super T> action);
+
+	/**根据sqlId执行，返回执行成功的记录条数
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @return
+	 */
+	CompletableFuture<Integer> execute(String sqlId, Map<String, Object> paramMap);
+
+	/**根据sqlId执行，返回执行成功的记录条数
+	 * @param sqlId SQLID
+	 * @param param 参数对象
+	 * @return
+	 */
+	CompletableFuture<Integer> execute(String sqlId, Object param);
+
+	/**根据sqlId执行，批量执行
+	 * @param sqlId SQLID
+	 * @param batchValues 批处理对象
+	 * @return 执行成功的记录数
+	 */
+	CompletableFuture<int[]> batchUpdate(String sqlId, Map<String, Object>[] batchValues);
+
+	/**存储过程调用 存储过程调用时，需要加上schema
+	 * @param sqlId         SQL语句ID
+	 * @param paramMap      查询参数
+	 * @param sqlParameters SqlCommand参数
+	 * @return 调用结果
+	 */
+	CompletableFuture<Map<String, Object>> call(String sqlId, Map<String, Object> paramMap, List<SqlParameter> sqlParameters);
+
+	/**在线程池中以底层客户端执行任意操作，使用默认超时
+	 * @param <V>
+	 * @param action 操作
+	 * @return
+	 */
+	<V> CompletableFuture<V> submit(Function<? super PageDalClient, ? extends V> action);
+
+	/**在线程池中以底层客户端执行任意操作，超时后取消正在执行的SQL，Future以DalException异常结束
+	 * @param <V>
+	 * @param action 操作
+	 * @param timeout 超时时间，小于等于0时不限制
+	 * @param unit 时间单位
+	 * @return
+	 */
+	<V> CompletableFuture<V> submit(Function<? super PageDalClient, ? extends V> action, long timeout, TimeUnit unit);
+}
@@ -1,11 +1,16 @@
 package com.taiping.framework.dal.client;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameter;
 
+import com.taiping.framework.dal.batch.BatchResult;
+
 /**数据库常规操作
  * @author xiangyj
  *
@@ -32,6 +37,51 @@ public interface DalClient {
 	 */
 	<T> int remove(T entity);
 	
+	/**单表批量添加操作，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果，驱动支持时包含生成的主键
+	 */
+	<T> BatchResult persistAll(Collection<T> entities);
+	
+	/**单表批量添加操作，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果，驱动支持时包含生成的主键
+	 */
+	<T> BatchResult persistAll(Collection<T> entities, int batchSize);
+	
+	/**单表批量修改操作 根据主键修改记录，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果
+	 */
+	<T> BatchResult mergeAll(Collection<T> entities);
+	
+	/**单表批量修改操作 根据主键修改记录，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果
+	 */
+	<T> BatchResult mergeAll(Collection<T> entities, int batchSize);
+	
+	/**单表批量删除操作 根据主键删除记录，按默认分批大小以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @return 每批的执行结果
+	 */
+	<T> BatchResult removeAll(Collection<T> entities);
+	
+	/**单表批量删除操作 根据主键删除记录，按batchSize分批以JDBC批处理执行
+	 * @param <T>
+	 * @param entities 同一类型的对象实体集合
+	 * @param batchSize 每批记录数
+	 * @return 每批的执行结果
+	 */
+	<T> BatchResult removeAll(Collection<T> entities, int batchSize);
+	
 	/**单表查询操作 根据主键查询记录
 	 * @param <T>
 	 * @param entity
@@ -105,6 +155,46 @@ public interface DalClient {
 	 */
 	<T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper);
 	
+	/**根据sqlId逐行查询，每行映射为requiredType对象后交给action处理，结果集不在内存中缓存
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param action 行处理
+	 */
+	<T> void queryForEach(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize, Consumer<? super T> action);
+	
+	/**根据sqlId逐行查询，每行经rowMapper映射后交给action处理，结果集不在内存中缓存
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param rowMapper 结果映射
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param action 行处理
+	 */
+	<T> void queryForEach(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize, Consumer<? super T> action);
+	
+	/**根据sqlId查询，返回逐行映射为requiredType对象的Stream，须在try-with-resources中使用以释放连接
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param requiredType 结果实体类型
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @return
+	 */
+	<T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize);
+	
+	/**根据sqlId查询，返回逐行经rowMapper映射的Stream，须在try-with-resources中使用以释放连接
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数
+	 * @param rowMapper 结果映射
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @return
+	 */
+	<T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize);
+	
 	/**根据sqlId执行，返回执行成功的记录条数
 	 * @param sqlId SQLID
 	 * @param paramMap 查询参数
@@ -1,7 +1,11 @@
 package com.taiping.framework.dal.client;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
+import com.taiping.framework.dal.page.KeysetPage;
+import com.taiping.framework.dal.page.KeysetPageResult;
 import com.taiping.framework.dal.page.Page;
 import com.taiping.framework.dal.page.PageResult;
 
@@ -13,9 +17,53 @@ public interface PageDalClient extends DalClient {
 	 * @param sqlId        SQLID
 	 * @param paramMap     查询参数
 	 * @param requiredType 需要操作的类型
-	 * @param page         分页参数
+	 * @param page         分页参数，通过countStrategy选择总数统计方式
 	 * @param <T>          泛型对象
-	 * @return List类型的查询结果
+	 * @return 当前页记录与总数，总数经缓存或估算得到时标记为不准确
 	 */
 	<T> PageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page);
+	
+	/**
+	 * 键集（seek）分页查询，按排序列从上一页最后一条记录之后取下一页，查询耗时与页码无关
+	 * 
+	 * @param sqlId        SQLID
+	 * @param paramMap     查询参数
+	 * @param requiredType 需要操作的类型
+	 * @param page         键集分页参数，查询下一页时带上一页返回的续页标记
+	 * @param <T>          泛型对象
+	 * @return 当前页记录与下一页的续页标记
+	 */
+	<T> KeysetPageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, KeysetPage page);
+	
+	/**
+	 * 根据sqlId查询多个对象，跨多个分库查询时按comparator归并各分库的结果，comparator须与SQL的排序一致；
+	 * 单库查询时结果顺序由SQL决定
+	 * 
+	 * @param sqlId        SQLID
+	 * @param paramMap     查询参数
+	 * @param requiredType 结果实体类型
+	 * @param comparator   结果排序，为null时按分库顺序拼接
+	 * @param <T>          泛型对象
+	 * @return
+	 */
+	default <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Comparator<? super T> comparator) {
+		return queryForList(sqlId, paramMap, requiredType);
+	}
+	
+	/**
+	 * 获取分页处理结果，跨多个分库查询时按comparator归并各分库的结果后分页，comparator须与SQL的排序一致；
+	 * 单库查询时结果顺序由SQL决定
+	 * 
+	 * @param sqlId        SQLID
+	 * @param paramMap     查询参数
+	 * @param requiredType 需要操作的类型
+	 * @param page         分页参数
+	 * @param comparator   结果排序，为null时按分库顺序拼接
+	 * @param <T>          泛型对象
+	 * @return 当前页记录与总数，跨分库时总数为各分库总数之和
+	 */
+	default <T> PageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page,
+			Comparator<? super T> comparator) {
+		return queryForList(sqlId, paramMap, requiredType, page);
+	}
 }
@@ -1,6 +1,9 @@
 package com.taiping.framework.dal.constant;
 
+import com.taiping.framework.dal.dialect.Db2Dialect;
 import com.taiping.framework.dal.dialect.Dialect;
+import com.taiping.framework.dal.dialect.MySqlDialect;
+import com.taiping.framework.dal.dialect.Oracle12cDialect;
 import com.taiping.framework.dal.dialect.OracleDialect;
 
 /**数据库类型
@@ -9,9 +12,11 @@ import com.taiping.framework.dal.dialect.OracleDialect;
  */
 public enum DbType {
 
-	MYSQL("MySql", null),
+	MYSQL("MySql", new MySqlDialect()),
 	ORACLE("Oracle", new OracleDialect()),
-	DB2("DB2", null);
+	/** Oracle 12c及以上版本，使用OFFSET/FETCH分页*/
+	ORACLE12C("Oracle12c", new Oracle12cDialect()),
+	DB2("DB2", new Db2Dialect());
 	
 	private String name;
 	
@@ -0,0 +1,15 @@
+package com.taiping.framework.dal.constant;
+
+/**
+ * 主键预分配方式
+ * @author xiangyj
+ *
+ */
+public enum IdStrategy {
+
+	/** 序列INCREMENT BY与块大小一致，每次取到的序列值v预留[v, v + allocationSize - 1]*/
+	POOLED,
+	
+	/** 序列INCREMENT BY为1，每次取到的序列值v预留[v * allocationSize, (v + 1) * allocationSize - 1]*/
+	HILO
+}
@@ -0,0 +1,27 @@
+package com.taiping.framework.dal.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**支持跨线程取消SQL的JdbcTemplate，创建的Statement登记到当前线程绑定的StatementCanceller<br>
+ * ConnectionCallback中通过连接代理创建的Statement同样经过applyStatementSettings
+ * @author xiangyj
+ *
+ */
+public class CancellableJdbcTemplate extends JdbcTemplate {
+
+	public CancellableJdbcTemplate(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	@Override
+	protected void applyStatementSettings(Statement stmt) throws SQLException {
+		super.applyStatementSettings(stmt);
+		StatementCanceller.registerCurrent(stmt);
+	}
+
+}
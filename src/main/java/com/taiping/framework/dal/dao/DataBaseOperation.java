@@ -1,26 +1,67 @@
 package com.taiping.framework.dal.dao;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.object.GenericStoredProcedure;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.NumberUtils;
 
+import com.taiping.framework.dal.batch.BatchResult;
+import com.taiping.framework.dal.cache.EntityCache;
+import com.taiping.framework.dal.cache.QueryResultCache;
+import com.taiping.framework.dal.cache.QueryResultCache.CachedResult;
 import com.taiping.framework.dal.constant.DbType;
+import com.taiping.framework.dal.exception.DalException;
+import com.taiping.framework.dal.id.IdGenerator;
+import com.taiping.framework.dal.id.SequenceIdGenerator;
 import com.taiping.framework.dal.mapper.RowMapperFactory;
+import com.taiping.framework.dal.metrics.SlowQueryLog;
+import com.taiping.framework.dal.metrics.SqlTimer;
 import com.taiping.framework.dal.page.Page;
 import com.taiping.framework.dal.parser.FreeMarkerParser;
+import com.taiping.framework.dal.parser.RenderedSqlCache;
 import com.taiping.framework.dal.parser.SqlBean;
+import com.taiping.framework.dal.parser.SqlBean.Entry;
 import com.taiping.framework.dal.parser.SqlHolder;
 import com.taiping.framework.dal.parser.SqlParser;
 import com.taiping.framework.dal.parser.XmlParser;
+import com.taiping.framework.dal.parser.XmlParser.SqlDbType;
+import com.taiping.framework.dal.util.BeanAccessor;
+import com.taiping.framework.dal.util.BeanAccessor.Property;
 import com.taiping.framework.dal.util.ParamMapUtil;
 
 import lombok.extern.slf4j.Slf4j;
@@ -44,13 +85,20 @@ public abstract class DataBaseOperation {
 	public DataBaseOperation(DataSource dataSource) {
 		super();
 		this.dataSource = dataSource;
-		jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate = new NamedParameterJdbcTemplate(new CancellableJdbcTemplate(dataSource));
 	}
 
-	protected KeyHolder keyHolder = new GeneratedKeyHolder();
-	
-	/** SQL失效时间 */
-	private static final Long SQLTIMEOUT = 10L;
+	/** 批量持久化默认每批记录数 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	/** 批量持久化每批记录数 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/** 实体操作（不经过sqlMap）使用的数据库类型 */
+	private DbType dbType = DbType.ORACLE;
+
+	/** 客户端预分配主键的生成器，key为序列名称 */
+	private final Map<String, IdGenerator> idGenerators = new ConcurrentHashMap<>();
 
 	/**
 	 * 数据持久化
@@ -64,13 +112,77 @@ public abstract class DataBaseOperation {
 		SqlHolder genBaseSql = SqlParser.getSqlHolder(entity);
 		SqlBean insertSqlBean = genBaseSql.getInsertSqlBean();
 		String freSql = insertSqlBean.getFreSql();
-		Map<String, Object> paramMap = ParamMapUtil.paramMap(entity);
-		logMessage("persist", freSql, paramMap);
-		/** 渲染后获取JDBC模板 */
-		long beginDate = System.currentTimeMillis();
-		jdbcTemplate.update(freSql, new MapSqlParameterSource(paramMap), keyHolder, new String[]{genBaseSql.getEntries()[0].columnName});
-		logMessage("persist", freSql, paramMap, System.currentTimeMillis() - beginDate);
-		return keyHolder.getKey();
+		SqlParameterSource paramSource = ParamMapUtil.paramSource(entity);
+		Entry idEntry = genBaseSql.getEntries()[0];
+		SqlTimer timer = SqlTimer.start(entity.getClass().getName(), "persist");
+		try {
+			/** 客户端预分配主键，插入前赋值，无需读取生成的主键 */
+			if (idEntry.allocationSize > 0) {
+				Number id = assignId(entity, idEntry);
+				logMessage(timer, freSql, paramSource);
+				timer.setRows(jdbcTemplate.update(freSql, paramSource));
+				logExecuteTime(timer, freSql, paramSource);
+				invalidateTables(genBaseSql);
+				/** 主键在插入前已知，可以直接放入实体缓存 */
+				if (genBaseSql.getCacheSize() > 0) {
+					EntityCache.put(dataSource, genBaseSql, id, entity);
+				}
+				return id;
+			}
+			logMessage(timer, freSql, paramSource);
+			/** 渲染后获取JDBC模板 */
+			KeyHolder keyHolder = new GeneratedKeyHolder();
+			timer.setRows(jdbcTemplate.update(freSql, paramSource, keyHolder, new String[]{idEntry.columnName}));
+			logExecuteTime(timer, freSql, paramSource);
+			invalidateTables(genBaseSql);
+			return keyHolder.getKey();
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+	}
+
+	/**
+	 * 为实体分配客户端预分配的主键，实体已有主键时保留原值
+	 * 
+	 * @param entity  数据实体
+	 * @param idEntry 主键列
+	 * @return 实体的主键
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> Number assignId(T entity, Entry idEntry) {
+		Property idProperty = BeanAccessor.forClass(entity.getClass()).getProperty(idEntry.propName);
+		Object id = idProperty.get(entity);
+		if (id == null) {
+			long nextId = getIdGenerator(idEntry).nextId();
+			id = NumberUtils.convertNumberToTargetClass(nextId,
+					(Class<Number>) ClassUtils.resolvePrimitiveIfNecessary(idProperty.getType()));
+			idProperty.set(entity, id);
+		}
+		return (Number) id;
+	}
+
+	/**
+	 * 获取主键列对应的序列主键生成器，每个序列只创建一个
+	 * 
+	 * @param idEntry 主键列
+	 * @return 主键生成器
+	 */
+	private IdGenerator getIdGenerator(Entry idEntry) {
+		String sequenceName = idEntry.sequenceName;
+		if (sequenceName == null || sequenceName.isEmpty()) {
+			throw new DalException("dal.006:@ID with allocationSize must declare a sequence: " + idEntry.columnName);
+		}
+		IdGenerator idGenerator = idGenerators.get(sequenceName);
+		if (idGenerator == null) {
+			String nextValSql = dbType.getDialect().getSequenceNextValString(sequenceName);
+			idGenerator = new SequenceIdGenerator(sequenceName, idEntry.allocationSize, idEntry.idStrategy,
+					() -> jdbcTemplate.getJdbcOperations().queryForObject(nextValSql, Long.class));
+			IdGenerator exists = idGenerators.putIfAbsent(sequenceName, idGenerator);
+			if (exists != null) {
+				idGenerator = exists;
+			}
+		}
+		return idGenerator;
 	}
 	
 	/**
@@ -80,15 +192,24 @@ public abstract class DataBaseOperation {
 	 * @return 数据更新后的结果
 	 */
     public <T> int merge(T entity) {
-    	SqlBean updateSqlBean = SqlParser.getSqlHolder(entity).getUpdateSqlBean();
-    	Map<String, Object> paramMap = ParamMapUtil.paramMap(entity);
+    	SqlHolder holder = SqlParser.getSqlHolder(entity);
+    	SqlBean updateSqlBean = holder.getUpdateSqlBean();
+    	SqlParameterSource paramSource = ParamMapUtil.paramSource(entity);
         /** FreeMarker模板渲染 */
     	String freSql = updateSqlBean.getFreSql();
-        logMessage("merge", freSql, paramMap);
-        long beginDate = System.currentTimeMillis();
-        /** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
-        int result = jdbcTemplate.update(freSql, paramMap);
-        logMessage("merge", freSql, paramMap, System.currentTimeMillis() - beginDate);
+    	SqlTimer timer = SqlTimer.start(entity.getClass().getName(), "merge");
+        logMessage(timer, freSql, paramSource);
+        int result;
+        try {
+        	/** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
+        	result = jdbcTemplate.update(freSql, paramSource);
+        } catch (RuntimeException e) {
+        	throw timer.failed(e);
+        }
+        timer.setRows(result);
+        logExecuteTime(timer, freSql, paramSource);
+        invalidateTables(holder);
+        evictEntities(holder, Collections.singletonList(entity));
         return result;
     }
     
@@ -99,18 +220,220 @@ public abstract class DataBaseOperation {
 	 * @return 返回删除的记录数目
 	 */
     public <T> int remove(T entity) {
-    	SqlBean deleteSqlBean = SqlParser.getSqlHolder(entity).getDeleteSqlBean();
-    	Map<String, Object> paramMap = ParamMapUtil.paramMap(entity);
+    	SqlHolder holder = SqlParser.getSqlHolder(entity);
+    	SqlBean deleteSqlBean = holder.getDeleteSqlBean();
+    	SqlParameterSource paramSource = ParamMapUtil.paramSource(entity);
 		/** FreeMarker模板渲染 */
     	String freSql = deleteSqlBean.getFreSql();
-		logMessage("remove", freSql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
-		int result = jdbcTemplate.update(freSql, paramMap);
-		logMessage("remove", freSql, paramMap, System.currentTimeMillis() - beginDate);
+    	SqlTimer timer = SqlTimer.start(entity.getClass().getName(), "remove");
+		logMessage(timer, freSql, paramSource);
+		int result;
+		try {
+			/** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
+			result = jdbcTemplate.update(freSql, paramSource);
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		timer.setRows(result);
+		logExecuteTime(timer, freSql, paramSource);
+		invalidateTables(holder);
+		evictEntities(holder, Collections.singletonList(entity));
 		return result;
 	}
     
+	/**
+	 * 批量数据持久化，使用默认分批大小
+	 * 
+	 * @param entities 数据实体集合，须为同一类型
+	 * @param <T>      泛型对象
+	 * @return 每批的执行结果与生成的主键
+	 */
+	public <T> BatchResult persistAll(Collection<T> entities) {
+		return persistAll(entities, batchSize);
+	}
+
+	/**
+	 * 批量数据持久化，按batchSize分批以JDBC批处理执行，驱动支持时返回生成的主键
+	 * 
+	 * @param entities  数据实体集合，须为同一类型
+	 * @param batchSize 每批记录数
+	 * @param <T>       泛型对象
+	 * @return 每批的执行结果与生成的主键
+	 */
+	public <T> BatchResult persistAll(Collection<T> entities, int batchSize) {
+		if (entities == null || entities.isEmpty()) {
+			return new BatchResult();
+		}
+		validateBatch(entities, batchSize);
+		SqlHolder genBaseSql = SqlParser.getSqlHolder(entities.iterator().next());
+		Entry idEntry = genBaseSql.getEntries()[0];
+		/** 客户端预分配主键，插入前为所有实体赋值 */
+		if (idEntry.allocationSize > 0) {
+			List<Number> ids = new ArrayList<>(entities.size());
+			for (T entity : entities) {
+				ids.add(assignId(entity, idEntry));
+			}
+			BatchResult result = executeBatch("persistAll", genBaseSql.getInsertSqlBean().getFreSql(), entities, batchSize, null);
+			result.getGeneratedKeys().addAll(ids);
+			return result;
+		}
+		String[] keyColumns = new String[]{idEntry.columnName};
+		return executeBatch("persistAll", genBaseSql.getInsertSqlBean().getFreSql(), entities, batchSize, keyColumns);
+	}
+
+	/**
+	 * 批量数据更新，使用默认分批大小
+	 * 
+	 * @param entities 数据实体集合，须为同一类型
+	 * @param <T>      泛型对象
+	 * @return 每批的执行结果
+	 */
+	public <T> BatchResult mergeAll(Collection<T> entities) {
+		return mergeAll(entities, batchSize);
+	}
+
+	/**
+	 * 批量数据更新，按batchSize分批以JDBC批处理执行
+	 * 
+	 * @param entities  数据实体集合，须为同一类型
+	 * @param batchSize 每批记录数
+	 * @param <T>       泛型对象
+	 * @return 每批的执行结果
+	 */
+	public <T> BatchResult mergeAll(Collection<T> entities, int batchSize) {
+		if (entities == null || entities.isEmpty()) {
+			return new BatchResult();
+		}
+		validateBatch(entities, batchSize);
+		SqlHolder holder = SqlParser.getSqlHolder(entities.iterator().next());
+		BatchResult result = executeBatch("mergeAll", holder.getUpdateSqlBean().getFreSql(), entities, batchSize, null);
+		evictEntities(holder, entities);
+		return result;
+	}
+
+	/**
+	 * 批量数据删除，使用默认分批大小
+	 * 
+	 * @param entities 数据实体集合，须为同一类型
+	 * @param <T>      泛型对象
+	 * @return 每批的执行结果
+	 */
+	public <T> BatchResult removeAll(Collection<T> entities) {
+		return removeAll(entities, batchSize);
+	}
+
+	/**
+	 * 批量数据删除，按batchSize分批以JDBC批处理执行
+	 * 
+	 * @param entities  数据实体集合，须为同一类型
+	 * @param batchSize 每批记录数
+	 * @param <T>       泛型对象
+	 * @return 每批的执行结果
+	 */
+	public <T> BatchResult removeAll(Collection<T> entities, int batchSize) {
+		if (entities == null || entities.isEmpty()) {
+			return new BatchResult();
+		}
+		validateBatch(entities, batchSize);
+		SqlHolder holder = SqlParser.getSqlHolder(entities.iterator().next());
+		BatchResult result = executeBatch("removeAll", holder.getDeleteSqlBean().getFreSql(), entities, batchSize, null);
+		evictEntities(holder, entities);
+		return result;
+	}
+
+	/**
+	 * 在同一个PreparedStatement上分批执行实体的JDBC批处理
+	 * 
+	 * @param method     方法名
+	 * @param freSql     命名参数SQL
+	 * @param entities   数据实体集合
+	 * @param batchSize  每批记录数
+	 * @param keyColumns 需要返回的主键列，不需要时为null
+	 * @return 每批的执行结果与生成的主键
+	 */
+	private <T> BatchResult executeBatch(String method, String freSql, Collection<T> entities, int batchSize, String[] keyColumns) {
+		Class<?> entityClass = entities.iterator().next().getClass();
+		NamedPreparedStatementCreator creator = new NamedPreparedStatementCreator(freSql,
+				ParamMapUtil.paramSource(entities.iterator().next()), false);
+		SqlTimer timer = SqlTimer.start(entityClass.getName(), method);
+		logMessage(timer, freSql, String.valueOf(entities.size()));
+		BatchResult result;
+		try {
+			result = jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<BatchResult>) con -> {
+				BatchResult batchResult = new BatchResult();
+				boolean returnKeys = keyColumns != null && con.getMetaData().supportsGetGeneratedKeys();
+				creator.setKeyColumns(returnKeys ? keyColumns : null);
+				PreparedStatement ps = creator.createPreparedStatement(con);
+				try {
+					int count = 0;
+					for (T entity : entities) {
+						creator.setValues(ps, ParamMapUtil.paramSource(entity));
+						ps.addBatch();
+						if (++count % batchSize == 0 || count == entities.size()) {
+							batchResult.addChunkResult(ps.executeBatch());
+							if (returnKeys) {
+								returnKeys = collectGeneratedKeys(ps, batchResult);
+							}
+						}
+					}
+				} finally {
+					JdbcUtils.closeStatement(ps);
+				}
+				return batchResult;
+			});
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		timer.setRows(entities.size());
+		logExecuteTime(timer, freSql, String.valueOf(entities.size()));
+		invalidateTables(SqlParser.getSqlHolder(entities.iterator().next()));
+		return result;
+	}
+
+	/**
+	 * 执行任何语句前校验批处理参数，避免部分批次已执行（无外部事务时已提交）后才失败
+	 * 
+	 * @param entities  数据实体集合
+	 * @param batchSize 每批记录数
+	 */
+	private static void validateBatch(Collection<?> entities, int batchSize) {
+		if (batchSize <= 0) {
+			throw new DalException("dal.005:batchSize must be positive: " + batchSize);
+		}
+		Class<?> entityClass = entities.iterator().next().getClass();
+		for (Object entity : entities) {
+			if (entity.getClass() != entityClass) {
+				throw new DalException("dal.005:Batch entities must be of the same class: " + entityClass.getName()
+						+ ", but found " + entity.getClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * 读取一批执行后生成的主键
+	 * 
+	 * @param ps          PreparedStatement
+	 * @param batchResult 批处理结果
+	 * @return 驱动不支持批处理返回主键时返回false
+	 */
+	private boolean collectGeneratedKeys(PreparedStatement ps, BatchResult batchResult) {
+		ResultSet keys = null;
+		try {
+			keys = ps.getGeneratedKeys();
+			while (keys.next()) {
+				batchResult.addGeneratedKey(keys.getObject(1));
+			}
+			return true;
+		} catch (SQLException e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Generated keys are not available for batch: " + e.getMessage());
+			}
+			return false;
+		} finally {
+			JdbcUtils.closeResultSet(keys);
+		}
+	}
+
 	/**
 	 * 根据传入实体类查询单个记录
 	 * 
@@ -118,18 +441,63 @@ public abstract class DataBaseOperation {
 	 * @param <T>         泛型对象
 	 * @return 查询结果
 	 */
+    @SuppressWarnings("unchecked")
     public <T> T find(T entity) {
-    	SqlBean selectSqlBean = SqlParser.getSqlHolder(entity).getSelectSqlBean();
-    	Map<String, Object> paramMap = ParamMapUtil.paramMap(entity);
+    	SqlHolder holder = SqlParser.getSqlHolder(entity);
+    	/** 开启实体缓存时优先读取缓存 */
+    	Object id = holder.getCacheSize() > 0 ? entityId(holder, entity) : null;
+    	if (id != null) {
+    		T cached = EntityCache.get(dataSource, holder, (Class<T>) entity.getClass(), id);
+    		if (cached != null) {
+    			return cached;
+    		}
+    	}
+    	/** 查询前记录失效版本号，查询期间实体被修改或删除时结果不放入缓存 */
+    	long stamp = id != null ? EntityCache.stamp(dataSource, holder, entity.getClass()) : 0L;
+    	SqlBean selectSqlBean = holder.getSelectSqlBean();
+    	SqlParameterSource paramSource = ParamMapUtil.paramSource(entity);
 		/** FreeMarker模板渲染 */
     	String freSql = selectSqlBean.getFreSql();
-		logMessage("find", freSql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现单记录查询，并返回查询结果 */
-		@SuppressWarnings("unchecked")
-		List<T> result = jdbcTemplate.query(freSql, paramMap, new RowMapperFactory<T>((Class<T>) entity.getClass()).getRowMapper());
-		logMessage("find", freSql, paramMap, System.currentTimeMillis() - beginDate);
-		return singleResult(result);
+    	SqlTimer timer = SqlTimer.start(entity.getClass().getName(), "find");
+		logMessage(timer, freSql, paramSource);
+		List<T> result;
+		try {
+			/** 调用JDBCTemplate实现单记录查询，并返回查询结果 */
+			result = jdbcTemplate.query(freSql, paramSource, timer.timed(RowMapperFactory.getRowMapper((Class<T>) entity.getClass())));
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		logExecuteTime(timer, freSql, paramSource);
+		T found = singleResult(result);
+		if (id != null && found != null) {
+			EntityCache.putLoaded(dataSource, holder, id, found, stamp);
+		}
+		return found;
+	}
+
+	/**
+	 * 读取实体的主键值
+	 * 
+	 * @param holder 实体SQL
+	 * @param entity 实体
+	 * @return 主键值
+	 */
+	private static Object entityId(SqlHolder holder, Object entity) {
+		return BeanAccessor.forClass(entity.getClass()).getProperty(holder.getEntries()[0].propName).get(entity);
+	}
+
+	/**
+	 * 移除实体缓存中的实体
+	 * 
+	 * @param holder   实体SQL
+	 * @param entities 实体
+	 */
+	private void evictEntities(SqlHolder holder, Collection<?> entities) {
+		if (holder.getCacheSize() > 0) {
+			for (Object entity : entities) {
+				EntityCache.evict(dataSource, holder, entity.getClass(), entityId(holder, entity));
+			}
+		}
 	}
     
 	/**
@@ -142,16 +510,7 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public <T> T queryForObject(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
-		logMessage("queryForObject", sql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现查询，并返回查询结果 */
-		sql = this.limitSql(sql, 1, DbType.ORACLE.name());// 限制结果集规模
-		List<T> resultList = jdbcTemplate.query(sql, paramMap, rowMapper);
-		logMessage("queryForObject", sql, paramMap, System.currentTimeMillis() - beginDate);
-		return singleResult(resultList);
+		return this.doQueryForObject(sqlId, paramMap, rowMapper);
 	}
     
 	/**
@@ -164,7 +523,7 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public <T> T queryForObject(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
-		return this.queryForObject(sqlId, paramMap, new RowMapperFactory<T>(requiredType).getRowMapper());
+		return this.queryForObject(sqlId, paramMap, RowMapperFactory.getRowMapper(requiredType));
 	}
 	
 	/**
@@ -177,7 +536,132 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public <T> T queryForObject(String sqlId, Object paramMap, Class<T> requiredType) {
-		return this.queryForObject(sqlId, ParamMapUtil.paramMap(paramMap), requiredType);
+		return this.doQueryForObject(sqlId, paramMap, RowMapperFactory.getRowMapper(requiredType));
+	}
+
+	/**
+	 * 根据sqlId查询单条记录，参数可以是Map或者实体对象
+	 * 
+	 * @param sqlId     SQLID
+	 * @param param     查询参数
+	 * @param rowMapper 翻页处理规则
+	 * @param <T>       泛型对象
+	 * @return 查询结果
+	 */
+	private <T> T doQueryForObject(String sqlId, Object param, RowMapper<T> rowMapper) {
+		return this.queryWithCache(sqlId, "queryForObject", param, rowMapper, () -> {
+			SqlTimer timer = SqlTimer.start(sqlId, "queryForObject");
+			try {
+				/** FreeMarker模板渲染 */
+				String sql = renderSql(sqlId, param);
+				timer.rendered();
+				logMessage(timer, sql, param);
+				/** 调用JDBCTemplate实现查询，并返回查询结果 */
+				T result = this.querySingleRow(sqlId, sql, param, timer.timed(rowMapper));
+				logExecuteTime(timer, sql, param);
+				return result;
+			} catch (RuntimeException e) {
+				throw timer.failed(e);
+			}
+		});
+	}
+
+	/**
+	 * sqlId开启了结果缓存时先查缓存，未命中时执行查询并放入缓存；返回的List与Map为缓存结果的副本，
+	 * 实体等其它对象为共享实例，调用方不能修改<br>
+	 * 事务中读到的数据可能未提交或在本事务修改之后，不读取也不放入缓存
+	 * 
+	 * @param sqlId     SQLID
+	 * @param operation 查询操作，单条与多条查询的结果类型不同，分别缓存
+	 * @param param     查询参数，Map或者实体对象
+	 * @param mapper    结果映射方式
+	 * @param query     查询
+	 * @param <R>       查询结果类型
+	 * @return 查询结果
+	 */
+	@SuppressWarnings("unchecked")
+	private <R> R queryWithCache(String sqlId, String operation, Object param, Object mapper, Supplier<R> query) {
+		SqlDbType sqlDbType = XmlParser.getSqlDbType(sqlId);
+		if (!sqlDbType.isResultCacheEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return query.get();
+		}
+		Map<String, ?> params = param == null || param instanceof Map ? (Map<String, ?>) param : ParamMapUtil.paramMap(param);
+		QueryResultCache.Key key = QueryResultCache.key(dataSource, sqlId, operation, params, mapper);
+		CachedResult cached = QueryResultCache.get(key);
+		if (cached != null) {
+			return (R) copyResult(cached.getValue());
+		}
+		/** 执行查询前记录表版本号，查询期间表被修改时结果不放入缓存 */
+		long[] versions = QueryResultCache.versions(dataSource, sqlDbType.getTables());
+		R result = query.get();
+		QueryResultCache.put(key, result, sqlDbType.getTables(), versions, sqlDbType.getCacheTtlMillis());
+		return (R) copyResult(result);
+	}
+
+	/**
+	 * 复制缓存结果，List逐行复制，Map行复制为新的Map，其它对象直接返回
+	 * 
+	 * @param value 缓存结果
+	 * @return 副本
+	 */
+	private static Object copyResult(Object value) {
+		if (!(value instanceof List)) {
+			return copyRow(value);
+		}
+		List<?> list = (List<?>) value;
+		List<Object> copy = new ArrayList<>(list.size());
+		for (Object row : list) {
+			copy.add(copyRow(row));
+		}
+		return copy;
+	}
+
+	private static Object copyRow(Object row) {
+		if (row instanceof LinkedCaseInsensitiveMap) {
+			/** 保持列名不区分大小写 */
+			return ((LinkedCaseInsensitiveMap<?>) row).clone();
+		}
+		return row instanceof Map ? new LinkedHashMap<>((Map<?, ?>) row) : row;
+	}
+
+	/**
+	 * sqlId访问的表数据已修改，使相关的查询结果缓存与实体缓存失效
+	 * 
+	 * @param sqlId SQLID
+	 */
+	private void invalidateTables(String sqlId) {
+		String[] tables = XmlParser.getSqlDbType(sqlId).getTables();
+		QueryResultCache.invalidate(dataSource, tables);
+		EntityCache.invalidateTables(dataSource, tables);
+	}
+
+	/**
+	 * 实体对应的表数据已修改，使相关的查询结果缓存失效
+	 * 
+	 * @param holder 实体SQL
+	 */
+	private void invalidateTables(SqlHolder holder) {
+		QueryResultCache.invalidate(dataSource, holder.getTableName());
+	}
+
+	/**
+	 * 只取第一条记录：通过方言追加行数限制子句（不能安全改写时使用原SQL），并设置maxRows与fetchSize为1，避免驱动预取多余的记录
+	 * 
+	 * @param sqlId     SQLID
+	 * @param sql       渲染后的SQL
+	 * @param param     查询参数
+	 * @param rowMapper 翻页处理规则
+	 * @param <T>       泛型对象
+	 * @return 第一条记录，没有记录时返回null
+	 */
+	private <T> T querySingleRow(String sqlId, String sql, Object param, RowMapper<T> rowMapper) {
+		String limitedSql = XmlParser.getDbType(sqlId).getDialect().getFirstRowsString(sql, 1);
+		NamedPreparedStatementCreator psc = new NamedPreparedStatementCreator(limitedSql != null ? limitedSql : sql,
+				ParamMapUtil.paramSource(param));
+		psc.setMaxRows(1);
+		psc.setFetchSize(1);
+		List<T> resultList = jdbcTemplate.getJdbcOperations().query(psc, new RowMapperResultSetExtractor<T>(rowMapper, 1));
+		return singleResult(resultList);
 	}
 
 	/**
@@ -190,16 +674,22 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现查询，并返回查询结果 */
-		ParamMapUtil.removeMapNull(paramMap);
-		logMessage("queryForList(3 paramter)", sql, paramMap);
-		List<T> list = jdbcTemplate.query(sql, paramMap, rowMapper);
-		logMessage("queryForList(3 paramter)", sql, paramMap, System.currentTimeMillis() - beginDate);
-		return list;
+		return this.queryWithCache(sqlId, "queryForList", paramMap, rowMapper, () -> {
+			SqlTimer timer = SqlTimer.start(sqlId, "queryForList");
+			try {
+				/** FreeMarker模板渲染 */
+				String sql = renderSql(sqlId, paramMap);
+				timer.rendered();
+				/** 调用JDBCTemplate实现查询，并返回查询结果 */
+				ParamMapUtil.removeMapNull(paramMap);
+				logMessage(timer, sql, paramMap);
+				List<T> list = jdbcTemplate.query(sql, paramMap, timer.timed(rowMapper));
+				logExecuteTime(timer, sql, paramMap);
+				return list;
+			} catch (RuntimeException e) {
+				throw timer.failed(e);
+			}
+		});
 	}
 	
 	/**
@@ -212,9 +702,123 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
-		return this.queryForList(sqlId, paramMap, new RowMapperFactory<T>(requiredType).getRowMapper());
+		return this.queryForList(sqlId, paramMap, RowMapperFactory.getRowMapper(requiredType));
 	}
     
+	/**
+	 * 根据sqlId逐行查询，每行映射为requiredType后交给action处理，不在内存中缓存结果集
+	 * 
+	 * @param sqlId        SQLID
+	 * @param paramMap     查询参数
+	 * @param requiredType 需要处理的类型
+	 * @param fetchSize    每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param action       行处理
+	 * @param <T>          泛型对象
+	 */
+	public <T> void queryForEach(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize,
+			Consumer<? super T> action) {
+		this.queryForEach(sqlId, paramMap, RowMapperFactory.getRowMapper(requiredType), fetchSize, action);
+	}
+
+	/**
+	 * 根据sqlId逐行查询，每行经rowMapper映射后交给action处理，不在内存中缓存结果集
+	 * 
+	 * @param sqlId     SQLID
+	 * @param paramMap  查询参数
+	 * @param rowMapper 结果映射
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param action    行处理
+	 * @param <T>       泛型对象
+	 */
+	public <T> void queryForEach(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize,
+			Consumer<? super T> action) {
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForEach");
+		try {
+			/** FreeMarker模板渲染 */
+			String sql = renderSql(sqlId, paramMap);
+			timer.rendered();
+			ParamMapUtil.removeMapNull(paramMap);
+			logMessage(timer, sql, paramMap);
+			NamedPreparedStatementCreator creator = new NamedPreparedStatementCreator(sql, new MapSqlParameterSource(paramMap));
+			creator.setFetchSize(fetchSize);
+			RowMapper<T> timedMapper = timer.timed(rowMapper);
+			/** 调用JDBCTemplate逐行回调，语句与连接在回调结束后释放 */
+			jdbcTemplate.getJdbcOperations().query(creator, new RowCallbackHandler() {
+
+				private int rowNum;
+
+				@Override
+				public void processRow(ResultSet rs) throws SQLException {
+					action.accept(timedMapper.mapRow(rs, rowNum++));
+				}
+			});
+			logExecuteTime(timer, sql, paramMap);
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+	}
+
+	/**
+	 * 根据sqlId查询，返回逐行映射为requiredType的Stream
+	 * 
+	 * @param sqlId        SQLID
+	 * @param paramMap     查询参数
+	 * @param requiredType 需要处理的类型
+	 * @param fetchSize    每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param <T>          泛型对象
+	 * @return 查询结果，须在try-with-resources中使用以释放连接
+	 */
+	public <T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize) {
+		return this.queryForStream(sqlId, paramMap, RowMapperFactory.getRowMapper(requiredType), fetchSize);
+	}
+
+	/**
+	 * 根据sqlId查询，返回逐行经rowMapper映射的Stream<br>
+	 * 数据库连接在Stream读取完毕、出错或close时释放，调用方须在try-with-resources中使用
+	 * 
+	 * @param sqlId     SQLID
+	 * @param paramMap  查询参数
+	 * @param rowMapper 结果映射
+	 * @param fetchSize 每次从数据库读取的行数，小于等于0时使用驱动默认值
+	 * @param <T>       泛型对象
+	 * @return 查询结果
+	 */
+	public <T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize) {
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForStream");
+		SQLExceptionTranslator translator = ((JdbcTemplate) jdbcTemplate.getJdbcOperations()).getExceptionTranslator();
+		String sql = null;
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			/** FreeMarker模板渲染 */
+			sql = renderSql(sqlId, paramMap);
+			timer.rendered();
+			ParamMapUtil.removeMapNull(paramMap);
+			logMessage(timer, sql, paramMap);
+			NamedPreparedStatementCreator creator = new NamedPreparedStatementCreator(sql, new MapSqlParameterSource(paramMap));
+			creator.setFetchSize(fetchSize);
+			con = DataSourceUtils.getConnection(dataSource);
+			ps = creator.createPreparedStatement(con);
+			/** 连接不经过JdbcTemplate，需要自行登记到取消句柄 */
+			StatementCanceller.registerCurrent(ps);
+			rs = ps.executeQuery();
+		} catch (RuntimeException | SQLException e) {
+			/** 模板渲染、获取连接与参数绑定等抛出的运行时异常同样计入失败，已获取的连接需要释放 */
+			JdbcUtils.closeResultSet(rs);
+			JdbcUtils.closeStatement(ps);
+			DataSourceUtils.releaseConnection(con, dataSource);
+			if (e instanceof SQLException) {
+				throw timer.failed(translator.translate("queryForStream", sql, (SQLException) e));
+			}
+			throw timer.failed((RuntimeException) e);
+		}
+		/** 只统计到打开结果集为止，逐行读取的耗时由调用方决定 */
+		logExecuteTime(timer, sql, paramMap);
+		ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(rs, ps, con, dataSource, rowMapper, translator, sql);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
 	/**
 	 * 查询并返回映射集
 	 * 
@@ -223,8 +827,7 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public Map<String, Object> queryForMap(String sqlId, Map<String, Object> paramMap) {
-		List<Map<String, Object>> queryForList = this.queryForList(sqlId, paramMap);
-		return singleResult(queryForList);
+		return this.doQueryForMap(sqlId, paramMap);
 	}
 	
 	/**
@@ -235,16 +838,30 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public List<Map<String, Object>> queryForList(String sqlId, Map<String, Object> paramMap) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
-		logMessage("queryForMap", sql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现查询，并返回查询结果 */
-		sql = this.limitSql(sql, 1, DbType.ORACLE.name());// 限制结果集规模
-		List<Map<String, Object>> map = jdbcTemplate.queryForList(sql, paramMap);
-		logMessage("queryForMap", sql, paramMap, System.currentTimeMillis() - beginDate);
-		return map;
+		return this.doQueryForMapList(sqlId, paramMap);
+	}
+
+	/**
+	 * 根据sqlId查询多条记录，返回List<Map<String, Object>>型结果集，参数可以是Map或者实体对象
+	 * 
+	 * @param sqlId SQLID
+	 * @param param 查询参数
+	 * @return 查询结果
+	 */
+	private List<Map<String, Object>> doQueryForMapList(String sqlId, Object param) {
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForList");
+		try {
+			/** FreeMarker模板渲染 */
+			String sql = renderSql(sqlId, param);
+			timer.rendered();
+			logMessage(timer, sql, param);
+			/** 调用JDBCTemplate实现查询，并返回查询结果 */
+			List<Map<String, Object>> map = jdbcTemplate.query(sql, ParamMapUtil.paramSource(param), timer.timed(new ColumnMapRowMapper()));
+			logExecuteTime(timer, sql, param);
+			return map;
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
 	}
 	
 	/**
@@ -255,7 +872,29 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public Map<String, Object> queryForMap(String sqlId, Object param) {
-		return this.queryForMap(sqlId, ParamMapUtil.paramMap(param));
+		return this.doQueryForMap(sqlId, param);
+	}
+
+	/**
+	 * 根据sqlId查询单条记录，返回Map型结果，参数可以是Map或者实体对象
+	 * 
+	 * @param sqlId SQLID
+	 * @param param 查询参数
+	 * @return 查询结果
+	 */
+	private Map<String, Object> doQueryForMap(String sqlId, Object param) {
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForMap");
+		try {
+			/** FreeMarker模板渲染 */
+			String sql = renderSql(sqlId, param);
+			timer.rendered();
+			logMessage(timer, sql, param);
+			Map<String, Object> result = this.querySingleRow(sqlId, sql, param, timer.timed(new ColumnMapRowMapper()));
+			logExecuteTime(timer, sql, param);
+			return result;
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
 	}
 	
 	/**
@@ -266,16 +905,7 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public int execute(String sqlId, Map<String, Object> paramMap) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
-		logMessage("execute", sql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
-		ParamMapUtil.removeMapNull(paramMap);
-		int result = jdbcTemplate.update(sql, paramMap);
-		logMessage("execute", sql, paramMap, System.currentTimeMillis() - beginDate);
-		return result;
+		return this.doExecute(sqlId, paramMap);
 	}
 
 	/**
@@ -286,7 +916,37 @@ public abstract class DataBaseOperation {
 	 * @return 查询结果
 	 */
 	public int execute(String sqlId, Object param) {
-		return this.execute(sqlId, ParamMapUtil.paramMap(param));
+		return this.doExecute(sqlId, param);
+	}
+
+	/**
+	 * 执行查询，参数可以是Map或者实体对象，Map参数中的空值不参与绑定
+	 * 
+	 * @param sqlId SQLID
+	 * @param param 执行参数
+	 * @return 查询结果
+	 */
+	@SuppressWarnings("unchecked")
+	private int doExecute(String sqlId, Object param) {
+		SqlTimer timer = SqlTimer.start(sqlId, "execute");
+		int result;
+		try {
+			/** FreeMarker模板渲染 */
+			String sql = renderSql(sqlId, param);
+			timer.rendered();
+			logMessage(timer, sql, param);
+			/** 调用JDBCTemplate实现更新，返回更新成功的记录数 */
+			if (param instanceof Map) {
+				ParamMapUtil.removeMapNull((Map<String, Object>) param);
+			}
+			result = jdbcTemplate.update(sql, ParamMapUtil.paramSource(param));
+			timer.setRows(result);
+			logExecuteTime(timer, sql, param);
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		invalidateTables(sqlId);
+		return result;
 	}
 	
 	/**
@@ -297,22 +957,55 @@ public abstract class DataBaseOperation {
 	 * @return 批处理成功记录数
 	 */
 	public int[] batchUpdate(String sqlId, Map<String, Object>[] batchValues) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		//取第一个map参数生成freemarker替换SQL
-		String sql = FreeMarkerParser.processTemplate(orgSql, batchValues[0]);
-		logMessage("batchUpdate", sql, String.valueOf(batchValues == null ? 0 : batchValues.length));
-		long beginDate = System.currentTimeMillis();
+		SqlTimer timer = SqlTimer.start(sqlId, "batchUpdate");
 		int[] result;
-		/** 调用JDBCTemplate批量更新，返回更新成功的记录数 */
-		result = jdbcTemplate.batchUpdate(sql, batchValues);
-		logMessage("batchUpdate", sql, String.valueOf(batchValues == null ? 0 : batchValues.length),
-				System.currentTimeMillis() - beginDate);
+		try {
+			/** FreeMarker模板渲染 */
+			//取第一个map参数生成freemarker替换SQL
+			String sql = renderSql(sqlId, batchValues[0]);
+			timer.rendered();
+			logMessage(timer, sql, String.valueOf(batchValues == null ? 0 : batchValues.length));
+			/** 调用JDBCTemplate批量更新，返回更新成功的记录数 */
+			result = jdbcTemplate.batchUpdate(sql, batchValues);
+			timer.setRows(batchValues.length);
+			logExecuteTime(timer, sql, String.valueOf(batchValues.length));
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		invalidateTables(sqlId);
 		return result;
 	}
 	
+	/**
+	 * 批量更新，批处理对象可以是Map或者实体对象
+	 * 
+	 * @param sqlId       SQLID
+	 * @param batchValues 需要批处理的集合
+	 * @param <T>         泛型对象
+	 * @return 批处理成功记录数
+	 */
 	public <T> int[] batchUpdate(String sqlId, @SuppressWarnings("unchecked") T... batchValues) {
-		return this.batchUpdate(sqlId, batchValues);
+		SqlTimer timer = SqlTimer.start(sqlId, "batchUpdate");
+		int[] result;
+		try {
+			/** FreeMarker模板渲染 */
+			//取第一个参数生成freemarker替换SQL
+			String sql = renderSql(sqlId, batchValues[0]);
+			timer.rendered();
+			logMessage(timer, sql, String.valueOf(batchValues.length));
+			SqlParameterSource[] batchArgs = new SqlParameterSource[batchValues.length];
+			for (int i = 0; i < batchValues.length; i++) {
+				batchArgs[i] = ParamMapUtil.paramSource(batchValues[i]);
+			}
+			/** 调用JDBCTemplate批量更新，返回更新成功的记录数 */
+			result = jdbcTemplate.batchUpdate(sql, batchArgs);
+			timer.setRows(batchValues.length);
+			logExecuteTime(timer, sql, String.valueOf(batchValues.length));
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		invalidateTables(sqlId);
+		return result;
 	}
 	
 	/**
@@ -325,23 +1018,56 @@ public abstract class DataBaseOperation {
 	 */
 	public Map<String, Object> call(String sqlId, Map<String, Object> paramMap, List<SqlParameter> sqlParameters) {
 		ParamMapUtil.removeMapNull(paramMap);
-		String orgSql = XmlParser.getOrgSql(sqlId);
-		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
-		logMessage("call", sql, paramMap);
-		long beginDate = System.currentTimeMillis();
-		/** 调用存储过程 */
-		GenericStoredProcedure storedProcedure = new GenericStoredProcedure();
-		/** 放入数据源 */
-		storedProcedure.setDataSource(dataSource);
-		/** 放入SQL */
-		storedProcedure.setSql(sql);
-		for (SqlParameter sqlParameter : sqlParameters) {
-			storedProcedure.declareParameter(sqlParameter);
-		}
-		Map<String, Object> result = storedProcedure.execute(paramMap);
-		logMessage("call", sql, paramMap, System.currentTimeMillis() - beginDate);
-		return result;
+		SqlTimer timer = SqlTimer.start(sqlId, "call");
+		try {
+			/** FreeMarker模板渲染 */
+			String sql = renderSql(sqlId, paramMap);
+			timer.rendered();
+			logMessage(timer, sql, paramMap);
+			/** 调用存储过程 */
+			GenericStoredProcedure storedProcedure = new GenericStoredProcedure();
+			/** 使用可取消的JdbcTemplate，存储过程调用同样可以被StatementCanceller中止 */
+			storedProcedure.setJdbcTemplate((JdbcTemplate) jdbcTemplate.getJdbcOperations());
+			/** 放入SQL */
+			storedProcedure.setSql(sql);
+			for (SqlParameter sqlParameter : sqlParameters) {
+				storedProcedure.declareParameter(sqlParameter);
+			}
+			Map<String, Object> result = storedProcedure.execute(paramMap);
+			logExecuteTime(timer, sql, paramMap);
+			return result;
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+	}
+
+	/**
+	 * 渲染sqlId对应的SQL，静态SQL直接返回sqlMap中配置的原SQL
+	 * 
+	 * @param sqlId SQLID
+	 * @param root  模板参数
+	 * @return 渲染后的SQL
+	 */
+	@SuppressWarnings("unchecked")
+	protected String renderSql(String sqlId, Object root) {
+		SqlDbType sqlDbType = XmlParser.getSqlDbType(sqlId);
+		if (sqlDbType.isStaticSql()) {
+			return sqlDbType.getOrgSql();
+		}
+		/** 开启了渲染结果缓存的SQL，按参数签名复用渲染结果 */
+		RenderedSqlCache renderedSqlCache = sqlDbType.getRenderedSqlCache();
+		if (renderedSqlCache != null && root instanceof Map) {
+			long signature = renderedSqlCache.signature((Map<String, Object>) root);
+			if (signature >= 0) {
+				String sql = renderedSqlCache.get(signature);
+				if (sql == null) {
+					sql = FreeMarkerParser.processTemplate(sqlId, sqlDbType.getOrgSql(), root);
+					renderedSqlCache.put(signature, sql);
+				}
+				return sql;
+			}
+		}
+		return FreeMarkerParser.processTemplate(sqlId, sqlDbType.getOrgSql(), root);
 	}
 
 	/**
@@ -361,6 +1087,36 @@ public abstract class DataBaseOperation {
 		}
 	}
 
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	public DbType getDbType() {
+		return dbType;
+	}
+
+	/**
+	 * 设置实体操作使用的数据库类型，sqlMap中的SQL按配置的dbType处理
+	 * 
+	 * @param dbType 数据库类型
+	 */
+	public void setDbType(DbType dbType) {
+		this.dbType = dbType;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 设置批量持久化默认每批记录数
+	 * 
+	 * @param batchSize 每批记录数
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	/**
 	 * 返回结果集中的第一条记录
 	 * 
@@ -386,6 +1142,35 @@ public abstract class DataBaseOperation {
 		}
 		return null;
 	}
+	/**
+	 * 结束计时并计入执行统计，超过慢SQL阈值时写入慢SQL日志
+	 * 
+	 * @param timer  计时，包含sqlId与方法名
+	 * @param sql    SQL串
+	 * @param object 对象
+	 */
+	protected void logExecuteTime(SqlTimer timer, String sql, Object object) {
+		long executeTime = timer.stop();
+		if (log.isDebugEnabled()) {
+			log.debug(timer.getOperation() + " method executeTime:" + TimeUnit.NANOSECONDS.toMillis(executeTime) + "ms");
+		}
+		SlowQueryLog.record(timer, sql, object, XmlParser.getSlowThresholdMillis(timer.getSqlId()));
+	}
+
+	/**
+	 * 打印sql的执行信息
+	 * 
+	 * @param timer  计时，包含sqlId与方法名
+	 * @param sql    SQL串
+	 * @param object 对象
+	 */
+	protected void logMessage(SqlTimer timer, String sql, Object object) {
+		if (log.isDebugEnabled()) {
+			log.debug(timer.getOperation() + " method SQL[" + timer.getSqlId() + "]: [" + sql + "]");
+			log.debug(timer.getOperation() + " method parameter:" + object);
+		}
+	}
+
 	/**
 	 * 打印超时sql的执行时间
 	 * 
@@ -393,13 +1178,12 @@ public abstract class DataBaseOperation {
 	 * @param sql         SQL串
 	 * @param object      对象
 	 * @param executeTime 执行时间
+	 * @deprecated DAL不再调用，执行耗时由{@link #logExecuteTime(SqlTimer, String, Object)}统计并写入慢SQL日志，保留供子类调用
 	 */
+	@Deprecated
 	protected void logMessage(String method, String sql, Object object, long executeTime) {
-		/** 打印超时sql的执行时间 */
-		if (executeTime >= SQLTIMEOUT) {
-			if (log.isDebugEnabled()) {
-				log.warn(method + " method executeTime:" + executeTime + "ms");
-			}
+		if (log.isDebugEnabled()) {
+			log.debug(method + " method executeTime:" + executeTime + "ms");
 		}
 	}
 
@@ -409,27 +1193,14 @@ public abstract class DataBaseOperation {
 	 * @param method 方法名
 	 * @param sql    SQL串
 	 * @param object 对象
+	 * @deprecated DAL不再调用，改用{@link #logMessage(SqlTimer, String, Object)}，保留供子类调用
 	 */
+	@Deprecated
 	protected void logMessage(String method, String sql, Object object) {
 		if (log.isDebugEnabled()) {
 			log.debug(method + " method SQL: [" + sql + "]");
 			log.debug(method + " method parameter:" + object);
 		}
 	}
-	
-	private String limitSql(String sql, int size, String dbType) {
-		if("mysql".equals(dbType)){
-			sql = sql + " LIMIT " +size ;
-		}else if("db2".equals(dbType)){
-			if( sql.toLowerCase().indexOf(" fetch ") == -1 && sql.toLowerCase().indexOf(" with ")>0 ) {
-				sql=sql.substring(0, sql.toLowerCase().indexOf(" with ")) + " fetch first " + size + " rows only " + sql.substring(sql.toLowerCase().indexOf(" with "));			
-			} else if( sql.toLowerCase().indexOf(" fetch ") == -1 ) {
-				sql=sql + " fetch first " + size + " rows only";
-			}
-		}else if("oracle".equals(dbType)){
-			sql += " AND ROWNUM =" + size;
-		}
-		return sql;
-	}
 
 }
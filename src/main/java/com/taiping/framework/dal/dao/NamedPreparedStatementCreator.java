@@ -0,0 +1,100 @@
+package com.taiping.framework.dal.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * 命名参数SQL的PreparedStatement创建器，支持指定返回主键列、fetchSize与maxRows，
+ * 可在同一个PreparedStatement上重复绑定参数用于批处理
+ * 
+ * @author xiangyj
+ */
+public class NamedPreparedStatementCreator implements PreparedStatementCreator, SqlProvider {
+
+	private final ParsedSql parsedSql;
+
+	/** 命名参数替换为占位符后的SQL */
+	private final String sql;
+
+	/** 创建时绑定的参数，为null时由调用方通过setValues绑定 */
+	private final SqlParameterSource paramSource;
+
+	/** 需要返回的主键列 */
+	private String[] keyColumns;
+
+	private int fetchSize;
+
+	private int maxRows;
+
+	/**
+	 * @param namedSql    命名参数SQL
+	 * @param paramSource 参数，用于展开集合参数，创建PreparedStatement时绑定
+	 */
+	public NamedPreparedStatementCreator(String namedSql, SqlParameterSource paramSource) {
+		this(namedSql, paramSource, true);
+	}
+
+	/**
+	 * @param namedSql    命名参数SQL
+	 * @param paramSource 参数，用于展开集合参数
+	 * @param bindOnCreate 创建PreparedStatement时是否绑定paramSource
+	 */
+	public NamedPreparedStatementCreator(String namedSql, SqlParameterSource paramSource, boolean bindOnCreate) {
+		this.parsedSql = NamedParameterUtils.parseSqlStatement(namedSql);
+		this.sql = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		this.paramSource = bindOnCreate ? paramSource : null;
+	}
+
+	@Override
+	public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+		PreparedStatement ps = keyColumns != null ? con.prepareStatement(sql, keyColumns) : con.prepareStatement(sql);
+		if (fetchSize > 0) {
+			ps.setFetchSize(fetchSize);
+		}
+		if (maxRows > 0) {
+			ps.setMaxRows(maxRows);
+		}
+		if (paramSource != null) {
+			setValues(ps, paramSource);
+		}
+		return ps;
+	}
+
+	/**
+	 * 按命名参数顺序绑定参数值
+	 * 
+	 * @param ps     PreparedStatement
+	 * @param source 参数
+	 * @exception SQLException SQL异常
+	 */
+	public void setValues(PreparedStatement ps, SqlParameterSource source) throws SQLException {
+		Object[] args = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+		new ArgumentPreparedStatementSetter(args).setValues(ps);
+	}
+
+	@Override
+	public String getSql() {
+		return sql;
+	}
+
+	public void setKeyColumns(String[] keyColumns) {
+		this.keyColumns = keyColumns;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+}
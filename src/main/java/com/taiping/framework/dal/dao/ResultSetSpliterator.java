@@ -0,0 +1,87 @@
+package com.taiping.framework.dal.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * 逐行读取并映射结果集的Spliterator，读取完毕、出错或关闭时释放结果集、语句与连接
+ * 
+ * @author xiangyj
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+	private final ResultSet rs;
+
+	private final Statement statement;
+
+	private final Connection con;
+
+	private final DataSource dataSource;
+
+	private final RowMapper<T> rowMapper;
+
+	private final SQLExceptionTranslator translator;
+
+	private final String sql;
+
+	private int rowNum;
+
+	private boolean closed;
+
+	ResultSetSpliterator(ResultSet rs, Statement statement, Connection con, DataSource dataSource,
+			RowMapper<T> rowMapper, SQLExceptionTranslator translator, String sql) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.rs = rs;
+		this.statement = statement;
+		this.con = con;
+		this.dataSource = dataSource;
+		this.rowMapper = rowMapper;
+		this.translator = translator;
+		this.sql = sql;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (closed) {
+			return false;
+		}
+		try {
+			if (!rs.next()) {
+				close();
+				return false;
+			}
+			action.accept(rowMapper.mapRow(rs, rowNum++));
+			return true;
+		} catch (SQLException e) {
+			close();
+			throw translator.translate("queryForStream", sql, e);
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		JdbcUtils.closeResultSet(rs);
+		JdbcUtils.closeStatement(statement);
+		DataSourceUtils.releaseConnection(con, dataSource);
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.taiping.framework.dal.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**执行中SQL的取消句柄<br>
+ * 在任务线程上绑定后，该线程通过CancellableJdbcTemplate创建的Statement（包括ConnectionCallback中创建的）
+ * 以及流式查询、存储过程调用的Statement会登记到句柄上，
+ * 其它线程调用cancel()时通过Statement.cancel()中止正在执行的SQL，取消后登记的新Statement会被立即取消
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public class StatementCanceller {
+
+	private static final ThreadLocal<StatementCanceller> current = new ThreadLocal<>();
+
+	/** 当前线程最近一次创建的Statement*/
+	private volatile Statement statement;
+
+	private volatile boolean cancelled;
+
+	/**在当前线程上绑定取消句柄执行任务，执行完成后解除绑定
+	 * @param canceller 取消句柄
+	 * @param task 任务
+	 * @return 任务结果
+	 * @throws Exception
+	 */
+	public static <V> V call(StatementCanceller canceller, Callable<V> task) throws Exception {
+		StatementCanceller previous = current.get();
+		current.set(canceller);
+		try {
+			return task.call();
+		} finally {
+			if(previous == null) {
+				current.remove();
+			} else {
+				current.set(previous);
+			}
+		}
+	}
+
+	/**当前线程绑定的取消句柄，未绑定时返回null
+	 * @return
+	 */
+	static StatementCanceller current() {
+		return current.get();
+	}
+
+	/**将Statement登记到当前线程绑定的取消句柄，未绑定时忽略
+	 * @param statement
+	 * @throws SQLException 已取消时抛出
+	 */
+	static void registerCurrent(Statement statement) throws SQLException {
+		StatementCanceller canceller = current.get();
+		if(canceller != null) {
+			canceller.register(statement);
+		}
+	}
+
+	/**登记新创建的Statement，已取消时抛出异常中止执行
+	 * @param statement
+	 * @throws SQLException
+	 */
+	void register(Statement statement) throws SQLException {
+		this.statement = statement;
+		if(cancelled) {
+			throw new SQLException("Statement cancelled before execution");
+		}
+	}
+
+	/**取消正在执行的SQL，可以被任意线程调用，重复调用无副作用
+	 */
+	public void cancel() {
+		cancelled = true;
+		Statement stmt = statement;
+		if(stmt != null) {
+			try {
+				stmt.cancel();
+			} catch (SQLException e) {
+				// Statement已关闭或驱动不支持取消
+				log.debug("Cancel statement failed: " + e.getMessage());
+			}
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.taiping.framework.dal.dialect;
+
+import java.util.regex.Pattern;
+
+import com.taiping.framework.dal.exception.DalException;
+
+/**
+ * 方言公共实现，提供count改写与键集分页条件的拼装，默认不支持执行计划估算
+ * 
+ * @author xiangyj
+ */
+public abstract class AbstractDialect implements Dialect {
+
+	/** 键集分页排序列，拼接到SQL中，只允许标识符（可带表别名）*/
+	private static final Pattern SORT_COLUMN = Pattern.compile("[A-Za-z_][\\w$#.]*");
+
+	/**
+	 * 总行数，去掉最外层的ORDER BY并以count(1)替换查询列，不能安全改写时包装源SQL
+	 * 
+	 * @param sqlId SQLID
+	 * @param sql   源SQL
+	 * @return SQL串
+	 */
+	public String getRowCountSql(String sqlId, String sql) {
+		String countSql = CountSqlAnalyzer.getCountSql(sqlId, sql);
+		return countSql != null ? countSql : getRowCountSql(sql);
+	}
+
+	public String getExplainPlanString(String sql, String statementId) {
+		return null;
+	}
+
+	public String getPlanRowCountString(String statementId) {
+		return null;
+	}
+
+	public String getPlanCleanupString(String statementId) {
+		return null;
+	}
+
+	/**
+	 * 在SQL末尾（DB2隔离级别子句之前）追加行数限制子句
+	 * 
+	 * @param sql    源SQL
+	 * @param clause 行数限制子句
+	 * @return SQL串，已有行数限制或锁定子句等不能安全追加时返回null
+	 */
+	protected static String appendRowLimit(String sql, String clause) {
+		int position = RowLimitAnalyzer.getLimitPosition(sql);
+		if (position < 0) {
+			return null;
+		}
+		return new StringBuffer(sql.length() + clause.length() + 1).append(sql, 0, position).append(' ').append(clause)
+				.append(sql, position, sql.length()).toString();
+	}
+
+	/**
+	 * 封装SQL，键集分页，按排序列排序并取排在上一页最后取值之后的记录，行数限制由子类追加<br>
+	 * 排序列直接拼接到SQL中，可能来自请求参数，不是合法标识符时拒绝，避免SQL注入
+	 * 
+	 * @param sql         源SQL
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @param seek        是否有上一页的最后取值
+	 * @return SQL串
+	 */
+	protected static StringBuffer getSeekString(String sql, String[] sortColumns, boolean descending, boolean seek) {
+		checkSortColumns(sortColumns);
+		StringBuffer buffer = new StringBuffer(sql.length() + 200).append("select * from (").append(sql).append(") t");
+		if (seek) {
+			buffer.append(" where ").append(getSeekPredicate(sortColumns, descending));
+		}
+		return buffer.append(" order by ").append(getSeekOrderBy(sortColumns, descending));
+	}
+
+	/**
+	 * 检查排序列均为标识符
+	 * 
+	 * @param sortColumns 排序列
+	 */
+	protected static void checkSortColumns(String[] sortColumns) {
+		for (String column : sortColumns) {
+			if (column == null || !SORT_COLUMN.matcher(column).matches()) {
+				throw new DalException("dal.007:Invalid keyset sort column: " + column);
+			}
+		}
+	}
+
+	/**
+	 * 排序列组合大于（降序时小于）上一页最后取值的条件，展开为不依赖行值比较的形式：
+	 * (k1 > :_seek0) or (k1 = :_seek0 and k2 > :_seek1) ...
+	 * 
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @return 条件SQL
+	 */
+	protected static String getSeekPredicate(String[] sortColumns, boolean descending) {
+		String operator = descending ? " < " : " > ";
+		StringBuilder predicate = new StringBuilder("(");
+		for (int i = 0; i < sortColumns.length; i++) {
+			if (i > 0) {
+				predicate.append(" or ");
+			}
+			predicate.append("(");
+			for (int j = 0; j < i; j++) {
+				predicate.append(sortColumns[j]).append(" = :").append(SEEK_PARAM_PREFIX).append(j).append(" and ");
+			}
+			predicate.append(sortColumns[i]).append(operator).append(":").append(SEEK_PARAM_PREFIX).append(i).append(")");
+		}
+		return predicate.append(")").toString();
+	}
+
+	/**
+	 * 按排序列排序
+	 * 
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @return 排序SQL
+	 */
+	protected static String getSeekOrderBy(String[] sortColumns, boolean descending) {
+		StringBuilder orderBy = new StringBuilder();
+		for (int i = 0; i < sortColumns.length; i++) {
+			if (i > 0) {
+				orderBy.append(", ");
+			}
+			orderBy.append(sortColumns[i]).append(descending ? " desc" : "");
+		}
+		return orderBy.toString();
+	}
+
+}
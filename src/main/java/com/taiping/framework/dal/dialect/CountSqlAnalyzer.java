@@ -0,0 +1,267 @@
+package com.taiping.framework.dal.dialect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.taiping.framework.dal.cache.CacheStats;
+import com.taiping.framework.dal.cache.LruCache;
+
+/**
+ * count SQL分析器<br>
+ * 对单表达式的简单查询，去掉最外层的ORDER BY，并以count(1)替换查询列，得到
+ * select count(1) from ... where ...；含DISTINCT、GROUP BY、集合运算、窗口函数、聚合函数等
+ * 会影响行数的查询无法改写，由方言退回外层包装count的方式<br>
+ * 分析结果按sqlId与渲染后的SQL缓存，动态SQL的各个分支分别缓存，同一分支不再重复分析
+ * 
+ * @author xiangyj
+ */
+public final class CountSqlAnalyzer {
+
+	/** 分析结果缓存的最大容量*/
+	private static final int ANALYSIS_CACHE_SIZE = 2048;
+
+	/** 分析结果缓存*/
+	private static final LruCache<Key, Analysis> analyses = new LruCache<>(ANALYSIS_CACHE_SIZE);
+
+	/** 出现在最外层时不能改写的关键字*/
+	private static final Set<String> UNSAFE_KEYWORDS = new HashSet<>(Arrays.asList("DISTINCT", "UNIQUE", "GROUP",
+			"HAVING", "UNION", "INTERSECT", "MINUS", "EXCEPT", "FETCH", "OFFSET", "LIMIT", "FOR", "INTO", "MODEL",
+			"PIVOT", "UNPIVOT"));
+
+	/** 出现在查询列中时会改变行数的聚合函数*/
+	private static final Set<String> AGGREGATE_FUNCTIONS = new HashSet<>(Arrays.asList("COUNT", "SUM", "AVG", "MIN",
+			"MAX", "LISTAGG", "WM_CONCAT", "XMLAGG", "COLLECT", "MEDIAN", "STDDEV", "VARIANCE", "STRING_AGG",
+			"ARRAY_AGG", "GROUP_CONCAT", "GROUPING"));
+
+	private CountSqlAnalyzer() {}
+
+	/**
+	 * 获取sqlId对应SQL的优化count语句，使用缓存的分析结果
+	 * 
+	 * @param sqlId SQLID
+	 * @param sql   渲染后的SQL
+	 * @return 优化后的count语句，不能改写时返回null
+	 */
+	public static String getCountSql(String sqlId, String sql) {
+		Key key = new Key(sqlId, sql);
+		Analysis analysis = analyses.get(key);
+		if (analysis == null) {
+			analysis = new Analysis(rewrite(sql));
+			analyses.put(key, analysis);
+		}
+		return analysis.countSql;
+	}
+
+	/**
+	 * 改写count语句，不使用缓存
+	 * 
+	 * @param sql 源SQL
+	 * @return 优化后的count语句，不能改写时返回null
+	 */
+	public static String rewrite(String sql) {
+		List<Token> tokens = tokenize(sql);
+		if (tokens.isEmpty() || !"SELECT".equals(tokens.get(0).word) || tokens.get(0).depth != 0) {
+			return null;
+		}
+		int fromIndex = -1;
+		int orderByIndex = -1;
+		/** 查询列中标量子查询的起始层级，不在子查询中时为Integer.MAX_VALUE */
+		int subqueryDepth = Integer.MAX_VALUE;
+		for (int i = 1; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			/** 窗口函数在任意层级都不改写 */
+			if ("OVER".equals(token.word) && token.beforeParen) {
+				return null;
+			}
+			if (fromIndex < 0) {
+				/** 查询列中（标量子查询除外）的聚合函数会把结果收敛为一行 */
+				if (token.depth < subqueryDepth) {
+					subqueryDepth = Integer.MAX_VALUE;
+				}
+				if ("SELECT".equals(token.word) && token.depth > 0 && token.depth < subqueryDepth) {
+					subqueryDepth = token.depth;
+				}
+				if (token.depth < subqueryDepth && AGGREGATE_FUNCTIONS.contains(token.word) && token.beforeParen) {
+					return null;
+				}
+			}
+			if (token.depth != 0) {
+				continue;
+			}
+			if (orderByIndex >= 0) {
+				/** ORDER BY之后只允许排序表达式，出现分页、锁定等子句时不改写 */
+				if (UNSAFE_KEYWORDS.contains(token.word)) {
+					return null;
+				}
+				continue;
+			}
+			if (fromIndex < 0 && "FROM".equals(token.word)) {
+				fromIndex = i;
+				continue;
+			}
+			if (UNSAFE_KEYWORDS.contains(token.word)) {
+				return null;
+			}
+			if ("ORDER".equals(token.word) && i + 1 < tokens.size() && "BY".equals(tokens.get(i + 1).word)) {
+				orderByIndex = i;
+			}
+		}
+		if (fromIndex < 0) {
+			return null;
+		}
+		int begin = tokens.get(fromIndex).position;
+		int end = orderByIndex >= 0 ? tokens.get(orderByIndex).position : sql.length();
+		return "select count(1) " + sql.substring(begin, end).trim();
+	}
+
+	/**
+	 * 移除sqlId对应的所有分析结果
+	 * 
+	 * @param sqlId SQLID
+	 */
+	public static void evict(String sqlId) {
+		analyses.removeIf(key -> key.sqlId.equals(sqlId));
+	}
+
+	/**
+	 * 分析结果缓存统计信息
+	 * 
+	 * @return
+	 */
+	public static CacheStats getCacheStats() {
+		return analyses.stats();
+	}
+
+	/**
+	 * 拆分SQL中的单词以及逗号、星号，跳过字符串常量、带引号的标识符与注释，记录单词所在的括号层级
+	 */
+	static List<Token> tokenize(String sql) {
+		List<Token> tokens = new ArrayList<>();
+		int depth = 0;
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '\'' || c == '"') {
+				/** 字符串常量与带引号的标识符，连续两个引号为转义 */
+				i++;
+				while (i < length) {
+					if (sql.charAt(i) == c) {
+						if (i + 1 < length && sql.charAt(i + 1) == c) {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				i++;
+			} else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				int lineEnd = sql.indexOf('\n', i);
+				i = lineEnd < 0 ? length : lineEnd + 1;
+			} else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int commentEnd = sql.indexOf("*/", i + 2);
+				i = commentEnd < 0 ? length : commentEnd + 2;
+			} else if (c == '(') {
+				depth++;
+				i++;
+			} else if (c == ')') {
+				depth--;
+				i++;
+			} else if (Character.isLetter(c) || c == '_') {
+				int start = i;
+				while (i < length && isWordPart(sql.charAt(i))) {
+					i++;
+				}
+				/** 绑定变量:name不是关键字 */
+				if (start > 0 && sql.charAt(start - 1) == ':') {
+					continue;
+				}
+				int next = i;
+				while (next < length && Character.isWhitespace(sql.charAt(next))) {
+					next++;
+				}
+				boolean beforeParen = next < length && sql.charAt(next) == '(';
+				tokens.add(new Token(sql.substring(start, i).toUpperCase(Locale.ROOT), start, depth, beforeParen));
+			} else {
+				if (c == ',' || c == '*') {
+					tokens.add(new Token(String.valueOf(c), i, depth, false));
+				}
+				i++;
+			}
+		}
+		return tokens;
+	}
+
+	private static boolean isWordPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+	}
+
+	static final class Token {
+
+		final String word;
+
+		/** 在SQL中的起始位置*/
+		final int position;
+
+		/** 括号层级，最外层为0*/
+		final int depth;
+
+		/** 是否紧跟左括号，即函数调用*/
+		final boolean beforeParen;
+
+		private Token(String word, int position, int depth, boolean beforeParen) {
+			this.word = word;
+			this.position = position;
+			this.depth = depth;
+			this.beforeParen = beforeParen;
+		}
+	}
+
+	/**
+	 * 分析结果缓存key，渲染结果缓存命中时SQL为同一实例，hashCode已缓存
+	 */
+	private static final class Key {
+
+		private final String sqlId;
+
+		private final String sql;
+
+		private Key(String sqlId, String sql) {
+			this.sqlId = sqlId;
+			this.sql = sql;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return sqlId.equals(other.sqlId) && (sql == other.sql || sql.equals(other.sql));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * sqlId.hashCode() + sql.hashCode();
+		}
+	}
+
+	private static final class Analysis {
+
+		/** 优化后的count语句，不能改写时为null*/
+		private final String countSql;
+
+		private Analysis(String countSql) {
+			this.countSql = countSql;
+		}
+	}
+
+}
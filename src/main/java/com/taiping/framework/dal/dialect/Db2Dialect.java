@@ -0,0 +1,69 @@
+package com.taiping.framework.dal.dialect;
+
+/**
+ * SQL分页封装，DB2方言，使用OFFSET ... ROWS FETCH FIRST ... ROWS ONLY限制行数
+ * 
+ * @author xiangyj
+ */
+public class Db2Dialect extends AbstractDialect {
+
+	public String getRowCountSql(String sql) {
+		return new StringBuffer("select count(1) from (").append(sql).append(") t_count").toString();
+	}
+
+	/**
+	 * 封装SQL，查询前几条记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	public String getLimitStringForRandom(String sql) {
+		return new StringBuffer(sql.length() + 40).append(sql).append(" fetch first :_limit rows only").toString();
+	}
+
+	/**
+	 * 封装SQL，只取前几条记录，行数限制子句位于末尾的WITH UR等隔离级别子句之前
+	 * 
+	 * @param sql  源SQL
+	 * @param rows 记录数
+	 * @return SQL串，已有FETCH或FOR UPDATE等子句时返回null
+	 */
+	public String getFirstRowsString(String sql, int rows) {
+		return appendRowLimit(sql, "fetch first " + rows + " rows only");
+	}
+
+	/**
+	 * 封装SQL，查询从什么位置开始、指定行记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	public String getLimitString(String sql) {
+		return new StringBuffer(sql.length() + 60).append(sql)
+				.append(" offset :_offset rows fetch first :_limit rows only").toString();
+	}
+
+	/**
+	 * 获取序列下一个值
+	 * 
+	 * @param sequenceName 序列名称
+	 * @return SQL串
+	 */
+	public String getSequenceNextValString(String sequenceName) {
+		return "select next value for " + sequenceName + " from sysibm.sysdummy1";
+	}
+
+	/**
+	 * 封装SQL，键集分页，取排序列位于上一页最后取值之后的记录
+	 * 
+	 * @param sql         源SQL
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @param seek        是否有上一页的最后取值
+	 * @return SQL串
+	 */
+	public String getSeekLimitString(String sql, String[] sortColumns, boolean descending, boolean seek) {
+		return getSeekString(sql, sortColumns, descending, seek).append(" fetch first :_limit rows only").toString();
+	}
+
+}
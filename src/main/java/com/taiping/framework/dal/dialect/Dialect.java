@@ -2,22 +2,73 @@ package com.taiping.framework.dal.dialect;
 
 public interface Dialect {
 
+	/** 键集分页中上一页最后取值的参数名前缀，按排序列顺序为_seek0、_seek1...*/
+	String SEEK_PARAM_PREFIX = "_seek";
+
 	/**总行数
 	 * @param sql
 	 * @return
 	 */
 	String getRowCountSql(String sql);
 	
+	/**总行数，能够安全改写时去掉排序与查询列，分析结果按sqlId缓存
+	 * @param sqlId SQLID
+	 * @param sql
+	 * @return
+	 */
+	String getRowCountSql(String sqlId, String sql);
+	
 	/**前几条记录
 	 * @param sql
 	 * @return
 	 */
 	String getLimitStringForRandom(String sql);
 	
+	/**只取前几条记录，用于单条记录查询
+	 * @param sql
+	 * @param rows 记录数
+	 * @return 已有行数限制或锁定子句等不能安全改写时返回null，由调用方只通过maxRows限制
+	 */
+	String getFirstRowsString(String sql, int rows);
+	
 	/**查询从什么位置开始、指定行记录
 	 * @param sql
 	 * @return
 	 */
 	String getLimitString(String sql);
 	
+	/**获取序列下一个值
+	 * @param sequenceName 序列名称
+	 * @return
+	 */
+	String getSequenceNextValString(String sequenceName);
+	
+	/**键集（seek）分页，按排序列排序后取排在上一页最后取值之后的:_limit条记录
+	 * @param sql 源SQL
+	 * @param sortColumns 排序列
+	 * @param descending 是否降序
+	 * @param seek 是否有上一页的最后取值，第一页为false
+	 * @return
+	 */
+	String getSeekLimitString(String sql, String[] sortColumns, boolean descending, boolean seek);
+	
+	/**生成执行计划，用于估算查询行数，不支持估算时返回null
+	 * @param sql 源SQL
+	 * @param statementId 执行计划标识
+	 * @return
+	 */
+	String getExplainPlanString(String sql, String statementId);
+	
+	/**从执行计划中读取估算行数
+	 * @param statementId 执行计划标识
+	 * @return
+	 */
+	String getPlanRowCountString(String statementId);
+	
+	/**清除执行计划
+	 * @param statementId 执行计划标识
+	 * @return
+	 */
+	String getPlanCleanupString(String statementId);
+	
 }
@@ -0,0 +1,70 @@
+package com.taiping.framework.dal.dialect;
+
+import com.taiping.framework.dal.exception.DalException;
+
+/**
+ * SQL分页封装，MySQL方言，使用LIMIT/OFFSET限制行数
+ * 
+ * @author xiangyj
+ */
+public class MySqlDialect extends AbstractDialect {
+
+	public String getRowCountSql(String sql) {
+		return new StringBuffer("select count(1) from (").append(sql).append(") t_count").toString();
+	}
+
+	/**
+	 * 封装SQL，查询前几条记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	public String getLimitStringForRandom(String sql) {
+		return new StringBuffer(sql.length() + 20).append(sql).append(" limit :_limit").toString();
+	}
+
+	/**
+	 * 封装SQL，只取前几条记录
+	 * 
+	 * @param sql  源SQL
+	 * @param rows 记录数
+	 * @return SQL串，已有LIMIT或FOR UPDATE等子句时返回null
+	 */
+	public String getFirstRowsString(String sql, int rows) {
+		return appendRowLimit(sql, "limit " + rows);
+	}
+
+	/**
+	 * 封装SQL，查询从什么位置开始、指定行记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	public String getLimitString(String sql) {
+		return new StringBuffer(sql.length() + 40).append(sql).append(" limit :_limit offset :_offset").toString();
+	}
+
+	/**
+	 * MySQL没有序列
+	 * 
+	 * @param sequenceName 序列名称
+	 * @return SQL串
+	 */
+	public String getSequenceNextValString(String sequenceName) {
+		throw new DalException("dal.006:MySql does not support sequence: " + sequenceName);
+	}
+
+	/**
+	 * 封装SQL，键集分页，取排序列位于上一页最后取值之后的记录
+	 * 
+	 * @param sql         源SQL
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @param seek        是否有上一页的最后取值
+	 * @return SQL串
+	 */
+	public String getSeekLimitString(String sql, String[] sortColumns, boolean descending, boolean seek) {
+		return getSeekString(sql, sortColumns, descending, seek).append(" limit :_limit").toString();
+	}
+
+}
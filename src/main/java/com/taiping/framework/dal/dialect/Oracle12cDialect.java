@@ -0,0 +1,60 @@
+package com.taiping.framework.dal.dialect;
+
+/**
+ * SQL分页封装，Oracle 12c及以上版本方言，使用OFFSET ... ROWS FETCH NEXT ... ROWS ONLY限制行数<br>
+ * 优化器对行数限制子句的处理优于多层ROWNUM包装
+ * 
+ * @author xiangyj
+ */
+public class Oracle12cDialect extends OracleDialect {
+
+	/**
+	 * 封装SQL，查询前几条记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	@Override
+	public String getLimitStringForRandom(String sql) {
+		return new StringBuffer(sql.length() + 40).append(sql).append(" fetch first :_limit rows only").toString();
+	}
+
+	/**
+	 * 封装SQL，查询从什么位置开始、指定行记录
+	 * 
+	 * @param sql --源SQL
+	 * @return SQL串
+	 */
+	@Override
+	public String getLimitString(String sql) {
+		return new StringBuffer(sql.length() + 60).append(sql)
+				.append(" offset :_offset rows fetch next :_limit rows only").toString();
+	}
+
+	/**
+	 * 封装SQL，键集分页，取排序列位于上一页最后取值之后的记录
+	 * 
+	 * @param sql         源SQL
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @param seek        是否有上一页的最后取值
+	 * @return SQL串
+	 */
+	@Override
+	public String getSeekLimitString(String sql, String[] sortColumns, boolean descending, boolean seek) {
+		return getSeekString(sql, sortColumns, descending, seek).append(" fetch first :_limit rows only").toString();
+	}
+
+	/**
+	 * 封装SQL，只取前几条记录
+	 * 
+	 * @param sql  源SQL
+	 * @param rows 记录数
+	 * @return SQL串，已有FETCH或FOR UPDATE等子句时返回null
+	 */
+	@Override
+	public String getFirstRowsString(String sql, int rows) {
+		return appendRowLimit(sql, "fetch first " + rows + " rows only");
+	}
+
+}
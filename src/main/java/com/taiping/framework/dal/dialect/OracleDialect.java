@@ -6,7 +6,7 @@ package com.taiping.framework.dal.dialect;
  * 
  * @author
  */
-public class OracleDialect implements Dialect {
+public class OracleDialect extends AbstractDialect {
 	
 	public String getRowCountSql(String sql) {
 		return new StringBuffer("select count(1) from (").append(sql).append(")").toString();
@@ -20,7 +20,7 @@ public class OracleDialect implements Dialect {
 	 */
 	public String getLimitStringForRandom(String sql) {
 		return new StringBuffer(sql.length() + 100).append("select t.*,rownum rn from (").append(sql)
-				.append(") t where ROWNUM <= :_limit)").toString();
+				.append(") t where ROWNUM <= :_limit").toString();
 	}
 
 	/**
@@ -34,4 +34,75 @@ public class OracleDialect implements Dialect {
 				.append(") t where ROWNUM <= (:_offset + :_limit)) tb where rn > :_offset").toString();
 	}
 	
+	/**
+	 * 获取序列下一个值
+	 * 
+	 * @param sequenceName 序列名称
+	 * @return SQL串
+	 */
+	public String getSequenceNextValString(String sequenceName) {
+		return "select " + sequenceName + ".nextval from dual";
+	}
+	
+	/**
+	 * 生成执行计划，写入plan_table
+	 * 
+	 * @param sql         源SQL
+	 * @param statementId 执行计划标识
+	 * @return SQL串
+	 */
+	public String getExplainPlanString(String sql, String statementId) {
+		return new StringBuffer(sql.length() + 60).append("explain plan set statement_id = '").append(statementId)
+				.append("' for ").append(sql).toString();
+	}
+	
+	/**
+	 * 读取执行计划根节点的估算行数
+	 * 
+	 * @param statementId 执行计划标识
+	 * @return SQL串
+	 */
+	public String getPlanRowCountString(String statementId) {
+		return "select cardinality from plan_table where statement_id = '" + statementId + "' and id = 0";
+	}
+	
+	/**
+	 * 清除plan_table中的执行计划
+	 * 
+	 * @param statementId 执行计划标识
+	 * @return SQL串
+	 */
+	public String getPlanCleanupString(String statementId) {
+		return "delete from plan_table where statement_id = '" + statementId + "'";
+	}
+	
+	/**
+	 * 封装SQL，键集分页，取排序列位于上一页最后取值之后的记录
+	 * 
+	 * @param sql         源SQL
+	 * @param sortColumns 排序列
+	 * @param descending  是否降序
+	 * @param seek        是否有上一页的最后取值
+	 * @return SQL串
+	 */
+	public String getSeekLimitString(String sql, String[] sortColumns, boolean descending, boolean seek) {
+		return new StringBuffer("select * from (").append(getSeekString(sql, sortColumns, descending, seek))
+				.append(") where ROWNUM <= :_limit").toString();
+	}
+	
+	/**
+	 * 封装SQL，只取前几条记录
+	 * 
+	 * @param sql  源SQL
+	 * @param rows 记录数
+	 * @return SQL串，FOR UPDATE等不能包装或查询列名重复（包装后报ORA-00918）时返回null
+	 */
+	public String getFirstRowsString(String sql, int rows) {
+		if (RowLimitAnalyzer.getLimitPosition(sql) < 0 || !RowLimitAnalyzer.hasUniqueColumns(sql)) {
+			return null;
+		}
+		return new StringBuffer(sql.length() + 50).append("select * from (").append(sql).append(") where ROWNUM <= ")
+				.append(rows).toString();
+	}
+	
 }
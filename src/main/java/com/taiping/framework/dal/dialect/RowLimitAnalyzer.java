@@ -0,0 +1,155 @@
+package com.taiping.framework.dal.dialect;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.taiping.framework.dal.cache.LruCache;
+import com.taiping.framework.dal.dialect.CountSqlAnalyzer.Token;
+
+/**
+ * 行数限制改写分析器<br>
+ * 判断能否在SQL末尾追加行数限制子句：已有FETCH、LIMIT、OFFSET、FOR UPDATE等子句时不能追加；
+ * DB2末尾的隔离级别子句（WITH UR等）需保留在行数限制子句之后。
+ * 同时判断查询列名是否唯一，列名重复时Oracle不能以select * from (...)包装<br>
+ * 分析结果按SQL缓存
+ * 
+ * @author xiangyj
+ */
+final class RowLimitAnalyzer {
+
+	/** 分析结果缓存的最大容量*/
+	private static final int ANALYSIS_CACHE_SIZE = 2048;
+
+	/** 分析结果缓存，key为SQL*/
+	private static final LruCache<String, Analysis> analyses = new LruCache<>(ANALYSIS_CACHE_SIZE);
+
+	/** 出现在最外层时不能再追加行数限制的关键字*/
+	private static final Set<String> LIMITED_KEYWORDS = new HashSet<>(Arrays.asList("FETCH", "LIMIT", "OFFSET", "ROWNUM",
+			"TOP", "FOR", "LOCK", "INTO"));
+
+	/** DB2隔离级别*/
+	private static final Set<String> ISOLATION_LEVELS = new HashSet<>(Arrays.asList("UR", "CS", "RS", "RR"));
+
+	private RowLimitAnalyzer() {}
+
+	/**
+	 * 行数限制子句的追加位置
+	 * 
+	 * @param sql 源SQL
+	 * @return 追加位置，不能安全追加时返回-1
+	 */
+	static int getLimitPosition(String sql) {
+		return analyze(sql).limitPosition;
+	}
+
+	/**
+	 * 查询列名是否唯一，可以被select * from (...)包装
+	 * 
+	 * @param sql 源SQL
+	 * @return 列名重复、混用*或无法分析时返回false
+	 */
+	static boolean hasUniqueColumns(String sql) {
+		return analyze(sql).uniqueColumns;
+	}
+
+	private static Analysis analyze(String sql) {
+		Analysis analysis = analyses.get(sql);
+		if (analysis == null) {
+			List<Token> tokens = CountSqlAnalyzer.tokenize(sql);
+			analysis = new Analysis(limitPosition(sql, tokens), uniqueColumns(tokens));
+			analyses.put(sql, analysis);
+		}
+		return analysis;
+	}
+
+	private static int limitPosition(String sql, List<Token> tokens) {
+		if (tokens.isEmpty() || tokens.get(0).depth != 0
+				|| !("SELECT".equals(tokens.get(0).word) || "WITH".equals(tokens.get(0).word))) {
+			return -1;
+		}
+		int position = sql.length();
+		boolean from = false;
+		for (int i = 1; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token.depth != 0) {
+				continue;
+			}
+			if ("FROM".equals(token.word)) {
+				from = true;
+			} else if (LIMITED_KEYWORDS.contains(token.word)) {
+				return -1;
+			} else if (from && "WITH".equals(token.word) && i + 1 < tokens.size()
+					&& ISOLATION_LEVELS.contains(tokens.get(i + 1).word)) {
+				/** 隔离级别子句只能出现在末尾 */
+				position = token.position;
+				break;
+			}
+		}
+		/** 去掉末尾的分号与空白 */
+		while (position > 0 && (Character.isWhitespace(sql.charAt(position - 1)) || sql.charAt(position - 1) == ';')) {
+			position--;
+		}
+		return position;
+	}
+
+	/**
+	 * 最外层查询列的名称：别名或列名（限定名取最后一段），函数与表达式由数据库生成名称，不参与比较
+	 */
+	private static boolean uniqueColumns(List<Token> tokens) {
+		int start = -1;
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token.depth == 0 && "SELECT".equals(token.word)) {
+				start = i + 1;
+				break;
+			}
+		}
+		if (start < 0) {
+			return false;
+		}
+		Set<String> names = new HashSet<>();
+		int items = 0;
+		boolean star = false;
+		Token last = null;
+		for (int i = start; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token.depth != 0) {
+				continue;
+			}
+			boolean end = "FROM".equals(token.word);
+			if (end || ",".equals(token.word)) {
+				items++;
+				if (last != null && "*".equals(last.word)) {
+					star = true;
+				} else if (last != null && !last.beforeParen && !names.add(last.word)) {
+					return false;
+				}
+				if (end) {
+					/** 单独的*可以包装，与其它列混用时可能重复 */
+					return !star || items == 1;
+				}
+				last = null;
+			} else if (!"DISTINCT".equals(token.word) && !"ALL".equals(token.word)) {
+				last = token;
+			}
+		}
+		return false;
+	}
+
+	private static final class Analysis {
+
+		/** 行数限制子句的追加位置，不能追加时为-1*/
+		private final int limitPosition;
+
+		/** 查询列名是否唯一*/
+		private final boolean uniqueColumns;
+
+		private Analysis(int limitPosition, boolean uniqueColumns) {
+			this.limitPosition = limitPosition;
+			this.uniqueColumns = uniqueColumns;
+		}
+	}
+
+}
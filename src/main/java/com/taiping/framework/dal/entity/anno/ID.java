@@ -5,6 +5,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.taiping.framework.dal.constant.IdStrategy;
+
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ID {
@@ -16,4 +18,15 @@ public @interface ID {
 	 * @return
 	 */
 	String sequence() default "";
+	
+	/**客户端预分配主键的块大小，大于0时按块从序列预留主键并在插入前赋值，
+	 * 须与序列的INCREMENT BY配合（见strategy）；默认为0，插入时使用sequence.nextval
+	 * @return
+	 */
+	int allocationSize() default 0;
+	
+	/**主键预分配方式，allocationSize大于0时生效
+	 * @return
+	 */
+	IdStrategy strategy() default IdStrategy.POOLED;
 }
@@ -11,5 +11,11 @@ public @interface Table {
 
 	/** 数据库表名*/
 	String value();
+	
+	/** 按主键缓存实体的最大条目数，大于0时find()优先读取缓存，默认不缓存*/
+	int cacheSize() default 0;
+	
+	/** 实体缓存的存活秒数*/
+	long cacheTtlSeconds() default 300;
 
 }
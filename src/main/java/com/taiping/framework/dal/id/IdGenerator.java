@@ -0,0 +1,13 @@
+package com.taiping.framework.dal.id;
+
+/**主键生成器
+ * @author xiangyj
+ *
+ */
+public interface IdGenerator {
+
+	/**获取下一个主键，须保证多线程并发调用安全
+	 * @return
+	 */
+	long nextId();
+}
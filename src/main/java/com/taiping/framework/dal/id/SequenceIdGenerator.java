@@ -0,0 +1,85 @@
+package com.taiping.framework.dal.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import com.taiping.framework.dal.constant.IdStrategy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**按块从数据库序列预留主键的生成器<br>
+ * 块内主键通过CAS分配，块用完时只有一个线程访问序列获取新块，其余线程等待后继续在新块中分配
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public class SequenceIdGenerator implements IdGenerator {
+
+	private final String sequenceName;
+	
+	private final int allocationSize;
+	
+	private final IdStrategy strategy;
+	
+	/** 获取序列下一个值*/
+	private final LongSupplier sequence;
+	
+	/** 当前分配中的主键块，初始为空块*/
+	private final AtomicReference<Block> current = new AtomicReference<>(new Block(1, 0));
+
+	/**
+	 * @param sequenceName 序列名称
+	 * @param allocationSize 块大小
+	 * @param strategy 预分配方式
+	 * @param sequence 获取序列下一个值
+	 */
+	public SequenceIdGenerator(String sequenceName, int allocationSize, IdStrategy strategy, LongSupplier sequence) {
+		if(allocationSize <= 0) {
+			throw new IllegalArgumentException("allocationSize must be positive: " + allocationSize);
+		}
+		this.sequenceName = sequenceName;
+		this.allocationSize = allocationSize;
+		this.strategy = strategy;
+		this.sequence = sequence;
+	}
+
+	@Override
+	public long nextId() {
+		for(;;) {
+			Block block = current.get();
+			long id = block.next.getAndIncrement();
+			if(id <= block.max) {
+				return id;
+			}
+			synchronized (this) {
+				// 其他线程已经换过新块时直接重试
+				if(current.get() == block) {
+					current.set(allocate());
+				}
+			}
+		}
+	}
+	
+	private Block allocate() {
+		long value = sequence.getAsLong();
+		long low = strategy == IdStrategy.HILO ? value * allocationSize : value;
+		if(log.isDebugEnabled()) {
+			log.debug("Sequence " + sequenceName + " allocated id block [" + low + ", " + (low + allocationSize - 1) + "]");
+		}
+		return new Block(low, low + allocationSize - 1);
+	}
+	
+	private static class Block {
+		
+		private final AtomicLong next;
+		
+		private final long max;
+
+		private Block(long low, long max) {
+			this.next = new AtomicLong(low);
+			this.max = max;
+		}
+	}
+	
+}
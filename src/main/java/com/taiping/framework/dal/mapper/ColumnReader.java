@@ -0,0 +1,99 @@
+package com.taiping.framework.dal.mapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * 按属性类型读取结果集列值，在构建列映射计划时选定，逐行读取时不再判断类型
+ *
+ * @author xiangyj
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+	/**
+	 * 读取当前行指定列的值，SQL NULL返回null
+	 *
+	 * @param rs    结果集
+	 * @param index 列序号，从1开始
+	 * @return 列值
+	 * @exception SQLException SQL异常
+	 */
+	Object read(ResultSet rs, int index) throws SQLException;
+
+	/**
+	 * 获取属性类型对应的列读取方式，未特殊处理的类型交由Spring JdbcUtils处理
+	 *
+	 * @param type 属性类型
+	 * @return 列读取方式
+	 */
+	static ColumnReader forType(Class<?> type) {
+		if (String.class == type) {
+			return ResultSet::getString;
+		}
+		if (Integer.class == type || int.class == type) {
+			return (rs, index) -> {
+				int value = rs.getInt(index);
+				return rs.wasNull() ? null : Integer.valueOf(value);
+			};
+		}
+		if (Long.class == type || long.class == type) {
+			return (rs, index) -> {
+				long value = rs.getLong(index);
+				return rs.wasNull() ? null : Long.valueOf(value);
+			};
+		}
+		if (Double.class == type || double.class == type) {
+			return (rs, index) -> {
+				double value = rs.getDouble(index);
+				return rs.wasNull() ? null : Double.valueOf(value);
+			};
+		}
+		if (Float.class == type || float.class == type) {
+			return (rs, index) -> {
+				float value = rs.getFloat(index);
+				return rs.wasNull() ? null : Float.valueOf(value);
+			};
+		}
+		if (Short.class == type || short.class == type) {
+			return (rs, index) -> {
+				short value = rs.getShort(index);
+				return rs.wasNull() ? null : Short.valueOf(value);
+			};
+		}
+		if (Byte.class == type || byte.class == type) {
+			return (rs, index) -> {
+				byte value = rs.getByte(index);
+				return rs.wasNull() ? null : Byte.valueOf(value);
+			};
+		}
+		if (Boolean.class == type || boolean.class == type) {
+			return (rs, index) -> {
+				boolean value = rs.getBoolean(index);
+				return rs.wasNull() ? null : Boolean.valueOf(value);
+			};
+		}
+		if (BigDecimal.class == type) {
+			return ResultSet::getBigDecimal;
+		}
+		if (Timestamp.class == type || Date.class == type) {
+			return ResultSet::getTimestamp;
+		}
+		if (java.sql.Date.class == type) {
+			return ResultSet::getDate;
+		}
+		if (Time.class == type) {
+			return ResultSet::getTime;
+		}
+		if (byte[].class == type) {
+			return ResultSet::getBytes;
+		}
+		return (rs, index) -> JdbcUtils.getResultSetValue(rs, index, type);
+	}
+}
@@ -1,9 +1,14 @@
 package com.taiping.framework.dal.mapper;
 
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.BeanWrapper;
@@ -14,12 +19,13 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import com.taiping.framework.dal.exception.DalException;
 import com.taiping.framework.dal.parser.SqlBean.Entry;
-import com.taiping.framework.dal.util.ParamMapUtil;
 import com.taiping.framework.dal.parser.SqlParser;
+import com.taiping.framework.dal.util.BeanAccessor;
+import com.taiping.framework.dal.util.BeanAccessor.Property;
 
 import lombok.extern.slf4j.Slf4j;
-import net.sf.cglib.beans.BeanMap;
 
 /**
  * 翻页处理规则 原来的find方法ORMapping没有依赖Column注解里的配置,是采用Spring JDBC
@@ -44,6 +50,15 @@ public class DefaultBeanPropertyRowMapper<T> implements RowMapper<T> {
 	/** Map of the fields with ColumnName by entity class annotation */
 	private Map<String, String> mappedFields;
 
+	/** Precompiled constructor and property setters of the mapped class */
+	private BeanAccessor accessor;
+
+	/** Column plans built so far, keyed by the column labels of the result set shape */
+	private final Map<String, ColumnPlan> columnPlans = new ConcurrentHashMap<>();
+
+	/** The column plan of the result set currently being mapped by each thread */
+	private final ThreadLocal<CurrentPlan> currentPlan = ThreadLocal.withInitial(CurrentPlan::new);
+
 	/**
 	 * Create a new BeanPropertyRowMapper for bean-style configuration.
 	 * 
@@ -102,6 +117,7 @@ public class DefaultBeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	protected void initialize(Class<T> mappedClass) {
 		this.mappedClass = mappedClass;
+		this.accessor = BeanAccessor.forClass(mappedClass);
 		this.mappedFields = new ConcurrentHashMap<>();
 		Entry[] entries = SqlParser.genSqlEntries(mappedClass);
 		for(Entry e : entries) {
@@ -199,7 +215,8 @@ public class DefaultBeanPropertyRowMapper<T> implements RowMapper<T> {
 	/**
 	 * Extract the values for all columns in the current row.
 	 * <p>
-	 * Utilizes public setters and result set metadata.
+	 * The column plan of the result set is resolved on its first row only, every
+	 * row then runs through the precompiled readers and setters of the plan.
 	 * 
 	 * @param rs        结果集
 	 * @param rowNumber 行数
@@ -207,39 +224,98 @@ public class DefaultBeanPropertyRowMapper<T> implements RowMapper<T> {
 	 * @exception SQLException SQL异常
 	 * @see java.sql.ResultSetMetaData
 	 */
+	@SuppressWarnings("unchecked")
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		ColumnPlan plan = resolvePlan(rs);
 		T t;
 		try {
-			t = mappedClass.newInstance();
-		} catch (Exception e2) {
+			t = (T) accessor.newInstance();
+		} catch (DalException e2) {
 			log.info("Initialize the given " + mappedClass + "failed!");
 			throw new SQLException(e2.getMessage());
 		}
-		BeanMap create = ParamMapUtil.getBeanMap(t);
-		create.setBean(t);
+		for (ColumnMapping mapping : plan.mappings) {
+			Object value = mapping.reader.read(rs, mapping.index);
+			if (value == null && mapping.primitive) {
+				if (primitivesDefaultedForNullValue) {
+					continue;
+				}
+				throw new SQLException("Unable to map null value of column '" + mapping.column
+						+ "' to primitive property '" + mapping.property.getName() + "' of " + mappedClass);
+			}
+			mapping.property.set(t, value);
+		}
+		return t;
+	}
+
+	/**
+	 * Return the column plan for the given result set, building it from the
+	 * result set metadata when the result set is mapped for the first time.
+	 * 
+	 * @param rs 结果集
+	 * @return 列映射计划
+	 * @exception SQLException SQL异常
+	 */
+	private ColumnPlan resolvePlan(ResultSet rs) throws SQLException {
+		CurrentPlan current = currentPlan.get();
+		if (current.resultSet.get() == rs) {
+			return current.plan;
+		}
 		ResultSetMetaData rsmd = rs.getMetaData();
 		int columnCount = rsmd.getColumnCount();
+		String[] columns = new String[columnCount];
 		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
+			columns[index - 1] = JdbcUtils.lookupColumnName(rsmd, index);
+		}
+		String shape = String.join(",", columns);
+		ColumnPlan plan = columnPlans.get(shape);
+		if (plan == null) {
+			plan = buildPlan(columns);
+			columnPlans.putIfAbsent(shape, plan);
+		}
+		current.resultSet = new WeakReference<>(rs);
+		current.plan = plan;
+		return plan;
+	}
+
+	/**
+	 * Build the column plan for the given column labels.
+	 * 
+	 * @param columns 结果集列名
+	 * @return 列映射计划
+	 */
+	private ColumnPlan buildPlan(String[] columns) {
+		List<ColumnMapping> mappings = new ArrayList<>(columns.length);
+		Set<String> populatedProperties = new HashSet<>();
+		for (int index = 1; index <= columns.length; index++) {
+			String column = columns[index - 1];
 			// get property name
-			String property = mappedFields.get(column);
-			if(property == null) {
-				property = underscoreName(column);
-				mappedFields.put(column, property);
+			String propertyName = mappedFields.get(column);
+			if (propertyName == null) {
+				propertyName = underscoreName(column);
+				mappedFields.put(column, propertyName);
 			}
-			Class<?> propertyType = create.getPropertyType(property);
-			if(propertyType == null) {
+			Property property = accessor.getProperty(propertyName);
+			if (property == null || !property.isWritable()) {
 				log.warn("Entity Class was not offered property for column:" + column);
 				continue;
 			}
 			if (log.isDebugEnabled()) {
-                log.debug("Mapping column '" + column + "' to property '" + property + "' of type " + propertyType.getName());
-            }
-			Object value = JdbcUtils.getResultSetValue(rs, index, propertyType);
-			create.put(property, value);
+				log.debug("Mapping column '" + column + "' to property '" + propertyName + "' of type " + property.getType().getName());
+			}
+			mappings.add(new ColumnMapping(index, column, property));
+			populatedProperties.add(propertyName);
 		}
-		return t;
+		if (checkFullyPopulated) {
+			for (Property property : accessor.getProperties().values()) {
+				if (property.isWritable() && !populatedProperties.contains(property.getName())) {
+					throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields necessary to populate object of class ["
+							+ mappedClass.getName() + "]: unmapped property '" + property.getName() + "'");
+				}
+			}
+		}
+		return new ColumnPlan(mappings.toArray(new ColumnMapping[0]));
 	}
 
 	/**
@@ -267,4 +343,50 @@ public class DefaultBeanPropertyRowMapper<T> implements RowMapper<T> {
 		return newInstance;
 	}
 
+	/**
+	 * Immutable mapping plan of one result set shape.
+	 */
+	private static final class ColumnPlan {
+
+		private final ColumnMapping[] mappings;
+
+		private ColumnPlan(ColumnMapping[] mappings) {
+			this.mappings = mappings;
+		}
+	}
+
+	/**
+	 * Column index to property setter, with the column reader chosen by the property type.
+	 */
+	private static final class ColumnMapping {
+
+		private final int index;
+
+		private final String column;
+
+		private final Property property;
+
+		private final ColumnReader reader;
+
+		private final boolean primitive;
+
+		private ColumnMapping(int index, String column, Property property) {
+			this.index = index;
+			this.column = column;
+			this.property = property;
+			this.reader = ColumnReader.forType(property.getType());
+			this.primitive = property.getType().isPrimitive();
+		}
+	}
+
+	/**
+	 * The result set a thread is mapping and its column plan.
+	 */
+	private static final class CurrentPlan {
+
+		private WeakReference<ResultSet> resultSet = new WeakReference<>(null);
+
+		private ColumnPlan plan;
+	}
+
 }
@@ -1,18 +1,29 @@
 package com.taiping.framework.dal.mapper;
 
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 
+import lombok.extern.slf4j.Slf4j;
+
 /**
- * 
- * 映射类型工厂
- * 
+ *
+ * 映射类型工厂，按映射类型与映射选项缓存RowMapper，同一类型的RowMapper在进程内只创建一次<br>
+ * 缓存的RowMapper被多线程共享，获取后不能再修改其映射选项
+ *
  * @param <T> class 实现类
  * @author
  */
+@Slf4j
 public class RowMapperFactory<T> {
+	/**
+	 * 已创建的RowMapper
+	 */
+	private static final Map<MapperKey, RowMapper<?>> rowMappers = new ConcurrentHashMap<>();
+
 	/**
 	 * 需处理的类型
 	 */
@@ -20,7 +31,7 @@ public class RowMapperFactory<T> {
 
 	/**
 	 * 构造函数
-	 * 
+	 *
 	 * @param requiredType 需处理的类型
 	 */
 	public RowMapperFactory(Class<T> requiredType) {
@@ -29,14 +40,106 @@ public class RowMapperFactory<T> {
 
 	/**
 	 * 获取翻页处理逻辑
-	 * 
+	 *
 	 * @return 翻页处理逻辑
 	 */
 	public RowMapper<T> getRowMapper() {
+		return getRowMapper(requiredType);
+	}
+
+	/**
+	 * 获取类型对应的RowMapper
+	 *
+	 * @param requiredType 需处理的类型
+	 * @param <T>          泛型对象
+	 * @return 翻页处理逻辑
+	 */
+	public static <T> RowMapper<T> getRowMapper(Class<T> requiredType) {
+		return getRowMapper(requiredType, false, false);
+	}
+
+	/**
+	 * 获取类型与映射选项对应的RowMapper，未缓存命中时创建并缓存
+	 *
+	 * @param requiredType                    需处理的类型
+	 * @param checkFullyPopulated             是否校验实体所有属性都被映射
+	 * @param primitivesDefaultedForNullValue 基本类型属性遇到NULL值时是否保留默认值
+	 * @param <T>                             泛型对象
+	 * @return 翻页处理逻辑
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> getRowMapper(Class<T> requiredType, boolean checkFullyPopulated,
+			boolean primitivesDefaultedForNullValue) {
+		MapperKey key = new MapperKey(requiredType, checkFullyPopulated, primitivesDefaultedForNullValue);
+		RowMapper<T> rowMapper = (RowMapper<T>) rowMappers.get(key);
+		if (rowMapper == null) {
+			rowMapper = createRowMapper(requiredType, checkFullyPopulated, primitivesDefaultedForNullValue);
+			RowMapper<T> exists = (RowMapper<T>) rowMappers.putIfAbsent(key, rowMapper);
+			if (exists != null) {
+				rowMapper = exists;
+			}
+		}
+		return rowMapper;
+	}
+
+	/**
+	 * 预先创建类型对应的RowMapper，避免上线后首个请求承担反射解析的开销
+	 *
+	 * @param requiredTypes 需处理的类型
+	 */
+	public static void warmUp(Class<?>... requiredTypes) {
+		for (Class<?> requiredType : requiredTypes) {
+			getRowMapper(requiredType);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("RowMapper warmed up for " + requiredTypes.length + " types, " + rowMappers.size() + " cached");
+		}
+	}
+
+	private static <T> RowMapper<T> createRowMapper(Class<T> requiredType, boolean checkFullyPopulated,
+			boolean primitivesDefaultedForNullValue) {
 		if (requiredType.equals(String.class) || Number.class.isAssignableFrom(requiredType) || requiredType.equals(Date.class)) {
 			return new SingleColumnRowMapper<T>(requiredType);
 		} else {
-			return new DefaultBeanPropertyRowMapper<T>(requiredType);
+			DefaultBeanPropertyRowMapper<T> rowMapper = new DefaultBeanPropertyRowMapper<T>(requiredType, checkFullyPopulated);
+			rowMapper.setPrimitivesDefaultedForNullValue(primitivesDefaultedForNullValue);
+			return rowMapper;
+		}
+	}
+
+	/**
+	 * RowMapper缓存key
+	 */
+	private static final class MapperKey {
+
+		private final Class<?> requiredType;
+
+		private final boolean checkFullyPopulated;
+
+		private final boolean primitivesDefaultedForNullValue;
+
+		private MapperKey(Class<?> requiredType, boolean checkFullyPopulated, boolean primitivesDefaultedForNullValue) {
+			this.requiredType = requiredType;
+			this.checkFullyPopulated = checkFullyPopulated;
+			this.primitivesDefaultedForNullValue = primitivesDefaultedForNullValue;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MapperKey)) {
+				return false;
+			}
+			MapperKey other = (MapperKey) obj;
+			return requiredType == other.requiredType && checkFullyPopulated == other.checkFullyPopulated
+					&& primitivesDefaultedForNullValue == other.primitivesDefaultedForNullValue;
+		}
+
+		@Override
+		public int hashCode() {
+			return requiredType.hashCode() * 4 + (checkFullyPopulated ? 2 : 0) + (primitivesDefaultedForNullValue ? 1 : 0);
 		}
 	}
 }
@@ -0,0 +1,190 @@
+package com.taiping.framework.dal.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**按sqlId与操作汇总的执行统计<br>
+ * 默认开启，可以通过系统属性dal.metrics.enabled=false关闭；每个sqlId与操作注册一个JMX MBean，
+ * ObjectName为com.taiping.framework.dal:type=SqlMetrics,operation=...,sqlId=...，
+ * 汇总视图为com.taiping.framework.dal:type=DalMetrics，可以通过系统属性dal.metrics.jmx=false关闭JMX注册
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class DalMetrics {
+
+	public static final String ENABLED_PROPERTY = "dal.metrics.enabled";
+
+	public static final String JMX_PROPERTY = "dal.metrics.jmx";
+
+	static final String JMX_DOMAIN = "com.taiping.framework.dal";
+
+	private static final int SLOWEST_SIZE = 20;
+
+	private static final Map<String, SqlMetrics> metrics = new ConcurrentHashMap<>();
+
+	private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+
+	private static final boolean jmxEnabled = !"false".equalsIgnoreCase(System.getProperty(JMX_PROPERTY));
+
+	static {
+		if (jmxEnabled) {
+			register(new StandardMBean(new Summary(), DalMetricsMBean.class, false), "type=DalMetrics");
+		}
+	}
+
+	private DalMetrics() {}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**开启或关闭统计，关闭后已有的统计保留
+	 * @param enabled
+	 */
+	public static void setEnabled(boolean enabled) {
+		DalMetrics.enabled = enabled;
+	}
+
+	/**获取sqlId与操作对应的统计，首次获取时创建并注册JMX
+	 * @param sqlId     SQLID，实体操作为实体类名
+	 * @param operation 操作
+	 * @return
+	 */
+	public static SqlMetrics get(String sqlId, String operation) {
+		String key = operation + ':' + sqlId;
+		SqlMetrics sqlMetrics = metrics.get(key);
+		if (sqlMetrics == null) {
+			sqlMetrics = new SqlMetrics(sqlId, operation);
+			SqlMetrics exists = metrics.putIfAbsent(key, sqlMetrics);
+			if (exists != null) {
+				return exists;
+			}
+			if (jmxEnabled) {
+				register(sqlMetrics, "type=SqlMetrics,operation=" + ObjectName.quote(operation) + ",sqlId=" + ObjectName.quote(sqlId));
+			}
+		}
+		return sqlMetrics;
+	}
+
+	/**所有sqlId与操作的统计快照
+	 * @return
+	 */
+	public static List<SqlMetricsSnapshot> snapshot() {
+		List<SqlMetricsSnapshot> snapshots = new ArrayList<>(metrics.size());
+		for (SqlMetrics sqlMetrics : metrics.values()) {
+			snapshots.add(sqlMetrics.snapshot());
+		}
+		return snapshots;
+	}
+
+	/**sqlId与操作的统计快照，没有记录时返回null
+	 * @param sqlId
+	 * @param operation
+	 * @return
+	 */
+	public static SqlMetricsSnapshot snapshot(String sqlId, String operation) {
+		SqlMetrics sqlMetrics = metrics.get(operation + ':' + sqlId);
+		return sqlMetrics == null ? null : sqlMetrics.snapshot();
+	}
+
+	/**按P99耗时倒序排列的前n条语句
+	 * @param n
+	 * @return
+	 */
+	public static List<SqlMetricsSnapshot> slowest(int n) {
+		List<SqlMetricsSnapshot> snapshots = snapshot();
+		snapshots.sort(Comparator.comparingDouble(SqlMetricsSnapshot::getP99Millis).reversed());
+		return snapshots.size() > n ? new ArrayList<>(snapshots.subList(0, n)) : snapshots;
+	}
+
+	/**清空所有统计
+	 */
+	public static void reset() {
+		for (SqlMetrics sqlMetrics : metrics.values()) {
+			sqlMetrics.reset();
+		}
+	}
+
+	private static void register(Object mbean, String properties) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(JMX_DOMAIN + ":" + properties);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(mbean, name);
+			}
+		} catch (JMException | RuntimeException e) {
+			log.warn("Register metrics MBean " + properties + " failed: " + e);
+		}
+	}
+
+	/**汇总视图
+	 */
+	private static final class Summary implements DalMetricsMBean {
+
+		@Override
+		public boolean isEnabled() {
+			return DalMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			DalMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public int getStatementCount() {
+			return metrics.size();
+		}
+
+		@Override
+		public long getTotalCalls() {
+			long calls = 0;
+			for (SqlMetrics sqlMetrics : metrics.values()) {
+				calls += sqlMetrics.getCalls();
+			}
+			return calls;
+		}
+
+		@Override
+		public long getTotalErrors() {
+			long errors = 0;
+			for (SqlMetrics sqlMetrics : metrics.values()) {
+				errors += sqlMetrics.getErrors();
+			}
+			return errors;
+		}
+
+		@Override
+		public String[] getSlowest() {
+			return slowest(SLOWEST_SIZE).stream().map(SqlMetricsSnapshot::toString).toArray(String[]::new);
+		}
+
+		@Override
+		public String[] getSlowQueryTop() {
+			return SlowQueryLog.top(SLOWEST_SIZE).stream().map(SlowQueryStats::toString).toArray(String[]::new);
+		}
+
+		@Override
+		public long getSlowQueryDropped() {
+			return SlowQueryLog.getDroppedCount();
+		}
+
+		@Override
+		public void reset() {
+			DalMetrics.reset();
+			SlowQueryLog.reset();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.taiping.framework.dal.metrics;
+
+/**DAL执行统计汇总的JMX视图
+ * @author xiangyj
+ *
+ */
+public interface DalMetricsMBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	/**已记录的sqlId与操作组合数
+	 * @return
+	 */
+	int getStatementCount();
+
+	long getTotalCalls();
+
+	long getTotalErrors();
+
+	/**按P99耗时倒序排列的前20条语句
+	 * @return
+	 */
+	String[] getSlowest();
+
+	/**慢SQL中按累计耗时倒序排列的前20个SQL指纹
+	 * @return
+	 */
+	String[] getSlowQueryTop();
+
+	/**缓冲区满被丢弃的慢SQL数
+	 * @return
+	 */
+	long getSlowQueryDropped();
+
+	void reset();
+}
@@ -0,0 +1,129 @@
+package com.taiping.framework.dal.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**无锁的耗时直方图，单位为纳秒<br>
+ * 按2的幂分段，每段再等分为8个桶，百分位数的相对误差不超过12.5%；超过约18分钟的耗时计入最后一个桶。
+ * 记录时只对一个桶做原子自增，不加锁，可以被多线程同时记录
+ * @author xiangyj
+ *
+ */
+public final class LatencyHistogram {
+
+	/** 每段桶数的位数*/
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** 可区分的最大耗时的最高位*/
+	private static final int MAX_BIT = 40;
+
+	private static final int BUCKETS = (MAX_BIT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**记录一次耗时
+	 * @param nanos 耗时纳秒数，负数按0记录
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucketIndex(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**累计耗时纳秒数
+	 * @return
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**平均耗时毫秒数，没有记录时返回0
+	 * @return
+	 */
+	public double getMeanMillis() {
+		long n = getCount();
+		return n == 0 ? 0 : toMillis(getSum()) / n;
+	}
+
+	/**百分位耗时毫秒数，返回所在桶的上界，不超过记录到的最大值
+	 * @param percentile 百分位，取值0到1，例如0.99
+	 * @return 没有记录时返回0
+	 */
+	public double getPercentileMillis(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return toMillis(Math.min(upperBound(i), getMax()));
+			}
+		}
+		return toMillis(getMax());
+	}
+
+	/**清空记录，与并发的记录之间不保证原子性
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	static double toMillis(long nanos) {
+		return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int highestBit = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_BIT);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		if (value >>> (MAX_BIT + 1) != 0) {
+			subBucket = SUB_BUCKETS - 1;
+		}
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+}
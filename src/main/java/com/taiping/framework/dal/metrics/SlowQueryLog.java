@@ -0,0 +1,347 @@
+package com.taiping.framework.dal.metrics;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.taiping.framework.dal.util.BeanAccessor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**慢SQL日志<br>
+ * 超过阈值的调用放入有界缓冲区后立即返回，由后台线程计算SQL指纹、按指纹汇总并写入名为
+ * com.taiping.framework.dal.SlowQuery的日志，可以在日志配置中单独输出到文件；缓冲区满时丢弃并计数，请求线程不会因日志IO阻塞。<br>
+ * 绑定变量按比例抽样记录，参数名匹配敏感字段的取值替换为***，过长的字符串截断。<br>
+ * 默认阈值通过系统属性dal.slowQuery.thresholdMillis设置（默认1000毫秒），单个sqlId可以在sqlMap中通过slowThreshold属性设置；
+ * 绑定变量抽样比例通过dal.slowQuery.bindSampleRate设置（默认0.1）
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class SlowQueryLog {
+
+	public static final String LOGGER_NAME = "com.taiping.framework.dal.SlowQuery";
+
+	public static final String THRESHOLD_PROPERTY = "dal.slowQuery.thresholdMillis";
+
+	public static final String SAMPLE_RATE_PROPERTY = "dal.slowQuery.bindSampleRate";
+
+	/** 默认的敏感参数名*/
+	public static final String DEFAULT_REDACT_PATTERN = "(?i).*(password|passwd|pwd|secret|token|card|cert|idno|mobile|phone).*";
+
+	private static final int BUFFER_SIZE = 1024;
+
+	/** 汇总的指纹数上限，超过后新的指纹只写日志不汇总*/
+	private static final int MAX_FINGERPRINTS = 1000;
+
+	private static final int MAX_VALUE_LENGTH = 64;
+
+	private static final int MAX_SQL_IDS = 5;
+
+	private static final Logger slowLog = LoggerFactory.getLogger(LOGGER_NAME);
+
+	private static final BlockingQueue<Event> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+
+	private static final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+	private static final LongAdder dropped = new LongAdder();
+
+	private static volatile long defaultThresholdMillis = Long.getLong(THRESHOLD_PROPERTY, 1000L);
+
+	private static volatile double bindSampleRate = parseRate(System.getProperty(SAMPLE_RATE_PROPERTY), 0.1);
+
+	private static volatile Pattern redactPattern = Pattern.compile(DEFAULT_REDACT_PATTERN);
+
+	private static volatile Thread writer;
+
+	/** 已在日志中报告的丢弃数，只在后台线程中访问*/
+	private static long reportedDropped;
+
+	private SlowQueryLog() {}
+
+	/**记录一次调用，耗时未超过阈值时直接返回
+	 * @param timer           已结束的计时
+	 * @param sql             执行的SQL
+	 * @param params          绑定参数，Map、SqlParameterSource或实体对象
+	 * @param thresholdMillis sqlId配置的阈值，小于0时使用默认阈值
+	 */
+	public static void record(SqlTimer timer, String sql, Object params, long thresholdMillis) {
+		long threshold = thresholdMillis >= 0 ? thresholdMillis : defaultThresholdMillis;
+		long elapsedNanos = timer.getElapsedNanos();
+		if (elapsedNanos < TimeUnit.MILLISECONDS.toNanos(threshold)) {
+			return;
+		}
+		double sampleRate = bindSampleRate;
+		String binds = null;
+		if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			try {
+				binds = captureBinds(params);
+			} catch (RuntimeException e) {
+				binds = "unavailable: " + e.getMessage();
+			}
+		}
+		Event event = new Event(timer.getSqlId(), timer.getOperation(), sql, elapsedNanos, timer.getRows(), binds,
+				Thread.currentThread().getName());
+		if (!buffer.offer(event)) {
+			dropped.increment();
+			return;
+		}
+		if (writer == null) {
+			ensureWriter();
+		}
+	}
+
+	/**按累计耗时倒序排列的前n个SQL指纹
+	 * @param n
+	 * @return
+	 */
+	public static List<SlowQueryStats> top(int n) {
+		List<SlowQueryStats> stats = new ArrayList<>(aggregates.size());
+		for (Aggregate aggregate : aggregates.values()) {
+			stats.add(aggregate.snapshot());
+		}
+		stats.sort(Comparator.comparingDouble(SlowQueryStats::getTotalMillis).reversed());
+		return stats.size() > n ? new ArrayList<>(stats.subList(0, n)) : stats;
+	}
+
+	/**清空汇总
+	 */
+	public static void reset() {
+		aggregates.clear();
+	}
+
+	/**缓冲区满被丢弃的慢SQL数
+	 * @return
+	 */
+	public static long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public static long getDefaultThresholdMillis() {
+		return defaultThresholdMillis;
+	}
+
+	public static void setDefaultThresholdMillis(long defaultThresholdMillis) {
+		SlowQueryLog.defaultThresholdMillis = defaultThresholdMillis;
+	}
+
+	public static double getBindSampleRate() {
+		return bindSampleRate;
+	}
+
+	/**设置绑定变量抽样比例
+	 * @param bindSampleRate 0表示不记录，1表示全部记录
+	 */
+	public static void setBindSampleRate(double bindSampleRate) {
+		SlowQueryLog.bindSampleRate = bindSampleRate;
+	}
+
+	/**设置敏感参数名的正则表达式，匹配的参数取值不写入日志
+	 * @param regex
+	 */
+	public static void setRedactPattern(String regex) {
+		redactPattern = Pattern.compile(regex);
+	}
+
+	private static synchronized void ensureWriter() {
+		if (writer != null) {
+			return;
+		}
+		writer = new Thread(SlowQueryLog::drain, "dal-slow-query-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private static void drain() {
+		while (true) {
+			Event event;
+			try {
+				event = buffer.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				write(event);
+			} catch (RuntimeException e) {
+				log.warn("Write slow query log failed: " + e);
+			}
+		}
+	}
+
+	private static void write(Event event) {
+		String fingerprint = SqlFingerprint.of(event.sql);
+		String fingerprintId = SqlFingerprint.id(fingerprint);
+		Aggregate aggregate = aggregates.get(fingerprintId);
+		if (aggregate == null && aggregates.size() < MAX_FINGERPRINTS) {
+			aggregate = aggregates.computeIfAbsent(fingerprintId, key -> new Aggregate(key, fingerprint));
+		}
+		if (aggregate != null) {
+			aggregate.add(event);
+		}
+		if (slowLog.isWarnEnabled()) {
+			StringBuilder message = new StringBuilder(128 + fingerprint.length());
+			message.append("slow query ").append(String.format("%.1f", event.elapsedNanos / 1e6)).append("ms sqlId=")
+					.append(event.sqlId).append(" operation=").append(event.operation).append(" rows=").append(event.rows)
+					.append(" thread=").append(event.threadName).append(" fingerprint=").append(fingerprintId)
+					.append(" sql=[").append(fingerprint).append(']');
+			if (event.binds != null) {
+				message.append(" binds=").append(event.binds);
+			}
+			long droppedCount = dropped.sum();
+			if (droppedCount > reportedDropped) {
+				message.append(" (").append(droppedCount - reportedDropped).append(" slow queries dropped)");
+				reportedDropped = droppedCount;
+			}
+			slowLog.warn(message.toString());
+		}
+	}
+
+	/**在请求线程中复制绑定变量，调用方之后修改参数不影响日志
+	 */
+	@SuppressWarnings("unchecked")
+	private static String captureBinds(Object params) {
+		if (params == null) {
+			return null;
+		}
+		if (params instanceof CharSequence) {
+			return params.toString();
+		}
+		Map<String, String> binds = new LinkedHashMap<>();
+		if (params instanceof Map) {
+			for (Map.Entry<String, ?> entry : ((Map<String, ?>) params).entrySet()) {
+				binds.put(entry.getKey(), redact(entry.getKey(), entry.getValue()));
+			}
+		} else if (params instanceof SqlParameterSource) {
+			SqlParameterSource source = (SqlParameterSource) params;
+			String[] names = source.getParameterNames();
+			if (names == null) {
+				return null;
+			}
+			for (String name : names) {
+				binds.put(name, redact(name, source.getValue(name)));
+			}
+		} else {
+			BeanAccessor accessor = BeanAccessor.forClass(params.getClass());
+			for (String name : accessor.getReadableNames()) {
+				binds.put(name, redact(name, accessor.getProperty(name).get(params)));
+			}
+		}
+		return binds.toString();
+	}
+
+	private static String redact(String name, Object value) {
+		if (value == null) {
+			return "null";
+		}
+		if (name != null && redactPattern.matcher(name).matches()) {
+			return "***";
+		}
+		if (value instanceof Collection) {
+			return "[" + ((Collection<?>) value).size() + " items]";
+		}
+		if (value.getClass().isArray()) {
+			return "[" + Array.getLength(value) + " items]";
+		}
+		String text = value instanceof Date ? String.valueOf(((Date) value).getTime()) : value.toString();
+		return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "...(" + text.length() + ")" : text;
+	}
+
+	private static double parseRate(String value, double defaultRate) {
+		if (value == null) {
+			return defaultRate;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			log.warn("Invalid " + SAMPLE_RATE_PROPERTY + ": " + value);
+			return defaultRate;
+		}
+	}
+
+	/**一次慢SQL，请求线程中创建，后台线程中处理
+	 */
+	private static final class Event {
+
+		private final String sqlId;
+
+		private final String operation;
+
+		private final String sql;
+
+		private final long elapsedNanos;
+
+		private final long rows;
+
+		private final String binds;
+
+		private final String threadName;
+
+		private Event(String sqlId, String operation, String sql, long elapsedNanos, long rows, String binds, String threadName) {
+			this.sqlId = sqlId;
+			this.operation = operation;
+			this.sql = sql;
+			this.elapsedNanos = elapsedNanos;
+			this.rows = rows;
+			this.binds = binds;
+			this.threadName = threadName;
+		}
+	}
+
+	/**同一指纹的汇总，只在后台线程中修改
+	 */
+	private static final class Aggregate {
+
+		private final String fingerprintId;
+
+		private final String fingerprint;
+
+		private final Set<String> sqlIds = new LinkedHashSet<>();
+
+		private long count;
+
+		private long totalNanos;
+
+		private long maxNanos;
+
+		private long lastSeen;
+
+		private Aggregate(String fingerprintId, String fingerprint) {
+			this.fingerprintId = fingerprintId;
+			this.fingerprint = fingerprint;
+		}
+
+		private synchronized void add(Event event) {
+			count++;
+			totalNanos += event.elapsedNanos;
+			maxNanos = Math.max(maxNanos, event.elapsedNanos);
+			lastSeen = System.currentTimeMillis();
+			if (sqlIds.size() < MAX_SQL_IDS) {
+				sqlIds.add(event.sqlId);
+			}
+		}
+
+		private synchronized SlowQueryStats snapshot() {
+			return new SlowQueryStats(fingerprintId, fingerprint, Collections.unmodifiableSet(new LinkedHashSet<>(sqlIds)),
+					count, LatencyHistogram.toMillis(totalNanos), LatencyHistogram.toMillis(maxNanos), lastSeen);
+		}
+	}
+}
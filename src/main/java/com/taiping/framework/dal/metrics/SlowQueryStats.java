@@ -0,0 +1,53 @@
+package com.taiping.framework.dal.metrics;
+
+import java.util.Set;
+
+import lombok.Getter;
+
+/**同一SQL指纹的慢SQL汇总快照，耗时单位为毫秒
+ * @author xiangyj
+ *
+ */
+@Getter
+public class SlowQueryStats {
+
+	/** 指纹标识*/
+	private final String fingerprintId;
+
+	/** SQL指纹*/
+	private final String fingerprint;
+
+	/** 产生该指纹的sqlId*/
+	private final Set<String> sqlIds;
+
+	/** 慢SQL次数*/
+	private final long count;
+
+	private final double totalMillis;
+
+	private final double maxMillis;
+
+	/** 最近一次出现的时间戳*/
+	private final long lastSeen;
+
+	SlowQueryStats(String fingerprintId, String fingerprint, Set<String> sqlIds, long count, double totalMillis,
+			double maxMillis, long lastSeen) {
+		this.fingerprintId = fingerprintId;
+		this.fingerprint = fingerprint;
+		this.sqlIds = sqlIds;
+		this.count = count;
+		this.totalMillis = totalMillis;
+		this.maxMillis = maxMillis;
+		this.lastSeen = lastSeen;
+	}
+
+	public double getMeanMillis() {
+		return count == 0 ? 0 : totalMillis / count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s count=%d total=%.1fms mean=%.1fms max=%.1fms sqlIds=%s sql=%s", fingerprintId, count,
+				totalMillis, getMeanMillis(), maxMillis, sqlIds, fingerprint);
+	}
+}
@@ -0,0 +1,164 @@
+package com.taiping.framework.dal.metrics;
+
+/**SQL指纹：去掉字面量、绑定变量名、注释与多余空白后的SQL，同一语句不同参数得到相同指纹<br>
+ * 字符串与数字字面量、命名参数替换为?，IN列表合并为(?+)，除双引号标识符外转为小写
+ * @author xiangyj
+ *
+ */
+public final class SqlFingerprint {
+
+	private SqlFingerprint() {}
+
+	/**计算SQL指纹
+	 * @param sql 渲染后的SQL
+	 * @return
+	 */
+	public static String of(String sql) {
+		StringBuilder out = new StringBuilder(sql.length());
+		int length = sql.length();
+		// 空白与注释只在两个单词之间保留为一个空格
+		boolean pendingSpace = false;
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				pendingSpace = true;
+				i++;
+				continue;
+			}
+			if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				int end = sql.indexOf('\n', i);
+				i = end < 0 ? length : end;
+				pendingSpace = true;
+				continue;
+			}
+			if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = end < 0 ? length : end + 2;
+				pendingSpace = true;
+				continue;
+			}
+			if (c == '\'') {
+				// 字符串字面量，''为转义的单引号
+				i++;
+				while (i < length) {
+					if (sql.charAt(i) == '\'') {
+						if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				i++;
+				append(out, "?", pendingSpace);
+			} else if (c == '"') {
+				int end = sql.indexOf('"', i + 1);
+				end = end < 0 ? length : end + 1;
+				append(out, sql.substring(i, end), pendingSpace);
+				i = end;
+			} else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(sql.charAt(i + 1))
+					&& (i == 0 || sql.charAt(i - 1) != ':')) {
+				// 命名参数
+				i++;
+				while (i < length && Character.isJavaIdentifierPart(sql.charAt(i))) {
+					i++;
+				}
+				append(out, "?", pendingSpace);
+			} else if (Character.isDigit(c) && (pendingSpace || !isIdentifierTail(out))) {
+				while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					i++;
+				}
+				append(out, "?", pendingSpace);
+			} else {
+				append(out, String.valueOf(Character.toLowerCase(c)), pendingSpace);
+				i++;
+			}
+			pendingSpace = false;
+		}
+		return collapseInLists(out.toString());
+	}
+
+	/**指纹的16位十六进制标识，用于日志检索与汇总
+	 * @param fingerprint SQL指纹
+	 * @return
+	 */
+	public static String id(String fingerprint) {
+		// FNV-1a 64位
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < fingerprint.length(); i++) {
+			hash ^= fingerprint.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		String hex = Long.toHexString(hash);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+
+	private static void append(StringBuilder out, String token, boolean pendingSpace) {
+		if (pendingSpace && out.length() > 0 && isWordChar(out.charAt(out.length() - 1)) && isWordChar(token.charAt(0))) {
+			out.append(' ');
+		}
+		out.append(token);
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '?' || c == '"';
+	}
+
+	/**数字前是否为标识符的一部分，例如t1、col_2中的数字不是字面量
+	 */
+	private static boolean isIdentifierTail(StringBuilder out) {
+		if (out.length() == 0) {
+			return false;
+		}
+		char last = out.charAt(out.length() - 1);
+		return Character.isLetterOrDigit(last) || last == '_' || last == '$' || last == '#';
+	}
+
+	/**将(?)、(?,?,?)合并为(?+)，使IN列表长度不同的语句得到相同指纹
+	 */
+	private static String collapseInLists(String sql) {
+		StringBuilder out = new StringBuilder(sql.length());
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '(') {
+				int end = scanPlaceholderList(sql, i + 1);
+				if (end > 0) {
+					out.append("(?+)");
+					i = end + 1;
+					continue;
+				}
+			}
+			out.append(c);
+			i++;
+		}
+		return out.toString();
+	}
+
+	/**从括号后开始匹配由逗号分隔的?，匹配时返回右括号位置，否则返回-1
+	 */
+	private static int scanPlaceholderList(String sql, int from) {
+		int i = from;
+		int length = sql.length();
+		while (true) {
+			while (i < length && sql.charAt(i) == ' ') {
+				i++;
+			}
+			if (i >= length || sql.charAt(i) != '?') {
+				return -1;
+			}
+			i++;
+			while (i < length && sql.charAt(i) == ' ') {
+				i++;
+			}
+			if (i < length && sql.charAt(i) == ',') {
+				i++;
+				continue;
+			}
+			return i < length && sql.charAt(i) == ')' ? i : -1;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.taiping.framework.dal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**单个sqlId与操作的执行统计，计数使用LongAdder，耗时使用无锁直方图，可以被多线程同时记录
+ * @author xiangyj
+ *
+ */
+public final class SqlMetrics implements SqlMetricsMBean {
+
+	private final String sqlId;
+
+	private final String operation;
+
+	/** 总耗时*/
+	private final LatencyHistogram total = new LatencyHistogram();
+
+	/** 数据库执行耗时，不含渲染与结果映射*/
+	private final LatencyHistogram execute = new LatencyHistogram();
+
+	private final LongAdder renderNanos = new LongAdder();
+
+	private final LongAdder mapNanos = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	private final LongAdder rows = new LongAdder();
+
+	SqlMetrics(String sqlId, String operation) {
+		this.sqlId = sqlId;
+		this.operation = operation;
+	}
+
+	/**记录一次调用
+	 * @param totalNanos   总耗时
+	 * @param renderNanos  渲染耗时
+	 * @param mapNanos     结果映射耗时
+	 * @param rowCount     返回或影响的记录数
+	 * @param failed       是否失败
+	 */
+	void record(long totalNanos, long renderNanos, long mapNanos, long rowCount, boolean failed) {
+		total.record(totalNanos);
+		execute.record(totalNanos - renderNanos - mapNanos);
+		if (renderNanos > 0) {
+			this.renderNanos.add(renderNanos);
+		}
+		if (mapNanos > 0) {
+			this.mapNanos.add(mapNanos);
+		}
+		if (rowCount > 0) {
+			rows.add(rowCount);
+		}
+		if (failed) {
+			errors.increment();
+		}
+	}
+
+	/**当前统计快照
+	 * @return
+	 */
+	public SqlMetricsSnapshot snapshot() {
+		return new SqlMetricsSnapshot(this);
+	}
+
+	@Override
+	public String getSqlId() {
+		return sqlId;
+	}
+
+	@Override
+	public String getOperation() {
+		return operation;
+	}
+
+	@Override
+	public long getCalls() {
+		return total.getCount();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public long getRows() {
+		return rows.sum();
+	}
+
+	@Override
+	public double getTotalMillis() {
+		return LatencyHistogram.toMillis(total.getSum());
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return total.getMeanMillis();
+	}
+
+	@Override
+	public double getP50Millis() {
+		return total.getPercentileMillis(0.5);
+	}
+
+	@Override
+	public double getP95Millis() {
+		return total.getPercentileMillis(0.95);
+	}
+
+	@Override
+	public double getP99Millis() {
+		return total.getPercentileMillis(0.99);
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return LatencyHistogram.toMillis(total.getMax());
+	}
+
+	@Override
+	public double getRenderMeanMillis() {
+		long calls = getCalls();
+		return calls == 0 ? 0 : LatencyHistogram.toMillis(renderNanos.sum()) / calls;
+	}
+
+	@Override
+	public double getExecuteMeanMillis() {
+		return execute.getMeanMillis();
+	}
+
+	@Override
+	public double getExecuteP99Millis() {
+		return execute.getPercentileMillis(0.99);
+	}
+
+	@Override
+	public double getMapMeanMillis() {
+		long calls = getCalls();
+		return calls == 0 ? 0 : LatencyHistogram.toMillis(mapNanos.sum()) / calls;
+	}
+
+	@Override
+	public void reset() {
+		total.reset();
+		execute.reset();
+		renderNanos.reset();
+		mapNanos.reset();
+		errors.reset();
+		rows.reset();
+	}
+
+	LatencyHistogram getTotal() {
+		return total;
+	}
+
+	LatencyHistogram getExecute() {
+		return execute;
+	}
+}
@@ -0,0 +1,40 @@
+package com.taiping.framework.dal.metrics;
+
+/**单个sqlId与操作的JMX视图，耗时单位为毫秒
+ * @author xiangyj
+ *
+ */
+public interface SqlMetricsMBean {
+
+	String getSqlId();
+
+	String getOperation();
+
+	long getCalls();
+
+	long getErrors();
+
+	long getRows();
+
+	double getTotalMillis();
+
+	double getMeanMillis();
+
+	double getP50Millis();
+
+	double getP95Millis();
+
+	double getP99Millis();
+
+	double getMaxMillis();
+
+	double getRenderMeanMillis();
+
+	double getExecuteMeanMillis();
+
+	double getExecuteP99Millis();
+
+	double getMapMeanMillis();
+
+	void reset();
+}
@@ -0,0 +1,76 @@
+package com.taiping.framework.dal.metrics;
+
+import lombok.Getter;
+
+/**单个sqlId与操作的执行统计快照，耗时单位为毫秒
+ * @author xiangyj
+ *
+ */
+@Getter
+public class SqlMetricsSnapshot {
+
+	private final String sqlId;
+
+	/** 操作，例如queryForList、execute、persist*/
+	private final String operation;
+
+	/** 调用次数，包含失败的调用*/
+	private final long calls;
+
+	/** 失败次数*/
+	private final long errors;
+
+	/** 返回或影响的记录数*/
+	private final long rows;
+
+	/** 累计耗时*/
+	private final double totalMillis;
+
+	private final double meanMillis;
+
+	private final double p50Millis;
+
+	private final double p95Millis;
+
+	private final double p99Millis;
+
+	private final double maxMillis;
+
+	/** FreeMarker渲染平均耗时*/
+	private final double renderMeanMillis;
+
+	/** 数据库执行平均耗时，不含结果映射*/
+	private final double executeMeanMillis;
+
+	private final double executeP99Millis;
+
+	/** 结果映射平均耗时*/
+	private final double mapMeanMillis;
+
+	SqlMetricsSnapshot(SqlMetrics metrics) {
+		LatencyHistogram total = metrics.getTotal();
+		LatencyHistogram execute = metrics.getExecute();
+		this.sqlId = metrics.getSqlId();
+		this.operation = metrics.getOperation();
+		this.calls = total.getCount();
+		this.errors = metrics.getErrors();
+		this.rows = metrics.getRows();
+		this.totalMillis = LatencyHistogram.toMillis(total.getSum());
+		this.meanMillis = total.getMeanMillis();
+		this.p50Millis = total.getPercentileMillis(0.5);
+		this.p95Millis = total.getPercentileMillis(0.95);
+		this.p99Millis = total.getPercentileMillis(0.99);
+		this.maxMillis = LatencyHistogram.toMillis(total.getMax());
+		this.renderMeanMillis = metrics.getRenderMeanMillis();
+		this.executeMeanMillis = execute.getMeanMillis();
+		this.executeP99Millis = execute.getPercentileMillis(0.99);
+		this.mapMeanMillis = metrics.getMapMeanMillis();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s calls=%d errors=%d rows=%d mean=%.3fms p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms"
+				+ " render=%.3fms execute=%.3fms map=%.3fms", sqlId, operation, calls, errors, rows, meanMillis, p50Millis,
+				p95Millis, p99Millis, maxMillis, renderMeanMillis, executeMeanMillis, mapMeanMillis);
+	}
+}
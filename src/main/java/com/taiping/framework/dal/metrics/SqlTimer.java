@@ -0,0 +1,122 @@
+package com.taiping.framework.dal.metrics;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**单次调用的计时，记录渲染、执行与结果映射三个阶段，结束时计入DalMetrics<br>
+ * 每次调用创建一个，不能被多个调用共享
+ * @author xiangyj
+ *
+ */
+public final class SqlTimer {
+
+	private final String sqlId;
+
+	private final String operation;
+
+	private final long beginNanos;
+
+	/** 渲染完成时间，未调用rendered()时为开始时间*/
+	private long renderedNanos;
+
+	/** 结果映射累计耗时*/
+	private long mapNanos;
+
+	/** 返回或影响的记录数*/
+	private long rows;
+
+	/** 总耗时，结束前为-1*/
+	private long elapsedNanos = -1;
+
+	private SqlTimer(String sqlId, String operation) {
+		this.sqlId = sqlId;
+		this.operation = operation;
+		this.beginNanos = System.nanoTime();
+		this.renderedNanos = beginNanos;
+	}
+
+	/**开始计时
+	 * @param sqlId     SQLID，实体操作为实体类名
+	 * @param operation 操作
+	 * @return
+	 */
+	public static SqlTimer start(String sqlId, String operation) {
+		return new SqlTimer(sqlId, operation);
+	}
+
+	/**SQL渲染完成
+	 */
+	public void rendered() {
+		renderedNanos = System.nanoTime();
+	}
+
+	/**包装RowMapper，累计结果映射耗时与映射的记录数；统计关闭时返回原RowMapper
+	 * @param rowMapper
+	 * @param <T>
+	 * @return
+	 */
+	public <T> RowMapper<T> timed(RowMapper<T> rowMapper) {
+		if (!DalMetrics.isEnabled()) {
+			return rowMapper;
+		}
+		return (rs, rowNum) -> {
+			long begin = System.nanoTime();
+			T row = rowMapper.mapRow(rs, rowNum);
+			mapNanos += System.nanoTime() - begin;
+			rows++;
+			return row;
+		};
+	}
+
+	/**设置影响的记录数，用于更新操作
+	 * @param rows
+	 */
+	public void setRows(long rows) {
+		this.rows = rows;
+	}
+
+	/**调用成功结束，重复调用只记录一次
+	 * @return 总耗时纳秒数
+	 */
+	public long stop() {
+		return stop(false);
+	}
+
+	/**调用失败结束，记录失败次数
+	 * @param e 调用抛出的异常
+	 * @param <E>
+	 * @return 原异常，便于直接抛出
+	 */
+	public <E extends RuntimeException> E failed(E e) {
+		stop(true);
+		return e;
+	}
+
+	private long stop(boolean failed) {
+		if (elapsedNanos < 0) {
+			elapsedNanos = System.nanoTime() - beginNanos;
+			if (DalMetrics.isEnabled()) {
+				DalMetrics.get(sqlId, operation).record(elapsedNanos, renderedNanos - beginNanos, mapNanos, rows, failed);
+			}
+		}
+		return elapsedNanos;
+	}
+
+	public String getSqlId() {
+		return sqlId;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	/**总耗时纳秒数，未结束时返回当前已耗时
+	 * @return
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos < 0 ? System.nanoTime() - beginNanos : elapsedNanos;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+}
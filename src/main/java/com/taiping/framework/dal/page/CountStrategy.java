@@ -0,0 +1,21 @@
+package com.taiping.framework.dal.page;
+
+/**分页查询的总数统计方式
+ * @author xiangyj
+ *
+ */
+public enum CountStrategy {
+
+	/** 每次执行count查询，得到准确总数*/
+	EXACT,
+	
+	/** 按sqlId与查询参数缓存count结果，缓存过期后重新统计*/
+	CACHED,
+	
+	/** 不统计总数，多取一条记录判断是否有下一页*/
+	HAS_NEXT,
+	
+	/** 取优化器统计信息中的估算行数，方言不支持或估算失败时退回准确统计*/
+	ESTIMATED
+	
+}
@@ -0,0 +1,45 @@
+package com.taiping.framework.dal.page;
+
+import java.util.Comparator;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**键集（seek）分页参数，按排序列的上一页最后取值定位下一页，不扫描前面的记录
+ * @author xiangyj
+ *
+ */
+@Setter
+@Getter
+public class KeysetPage {
+
+	/** 分页大小*/
+	private int pageSize = 20;
+	
+	/** 排序列，须为查询结果中的列名，组合后唯一确定一条记录*/
+	private String[] sortColumns;
+	
+	/** 是否按排序列降序*/
+	private boolean descending;
+	
+	/** 上一页返回的续页标记，查询第一页时为null*/
+	private String token;
+	
+	/** 是否在结果中返回每行的排序列取值，用于合并多个分库的结果*/
+	private boolean captureRowKeys;
+	
+	/** 合并多个分库结果时按升序比较两行排序列取值的方式，降序时由合并反转，须与数据库的排序规则（如字符集排序、大小写）一致；
+	 * 为null时只按数值与日期比较，排序列含字符串等其它类型时拒绝合并*/
+	private Comparator<Object[]> keyComparator;
+	
+	public KeysetPage() {
+		super();
+	}
+
+	public KeysetPage(int pageSize, String... sortColumns) {
+		super();
+		this.pageSize = pageSize;
+		this.sortColumns = sortColumns;
+	}
+	
+}
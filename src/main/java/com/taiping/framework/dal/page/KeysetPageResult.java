@@ -0,0 +1,47 @@
+package com.taiping.framework.dal.page;
+
+import java.util.List;
+
+/**键集（seek）分页结果
+ * @author xiangyj
+ *
+ * @param <T>
+ */
+public class KeysetPageResult<T> extends PageResult<T> {
+
+	/** 查询下一页使用的续页标记，没有下一页时为null*/
+	private final String nextToken;
+	
+	/** 每行的排序列取值，与pageR顺序一致，KeysetPage.captureRowKeys为true时返回*/
+	private List<Object[]> rowKeys;
+
+	public KeysetPageResult(List<T> list, String nextToken) {
+		super(list, null);
+		this.nextToken = nextToken;
+	}
+
+	public String getNextToken() {
+		return nextToken;
+	}
+	
+	public List<Object[]> getRowKeys() {
+		return rowKeys;
+	}
+
+	public void setRowKeys(List<Object[]> rowKeys) {
+		this.rowKeys = rowKeys;
+	}
+	
+	/**是否还有下一页
+	 * @return
+	 */
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPageResult [pageR=" + getPageR() + ", nextToken=" + nextToken + "]";
+	}
+	
+}
@@ -0,0 +1,89 @@
+package com.taiping.framework.dal.page;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+import com.taiping.framework.dal.exception.DalException;
+
+/**键集分页续页标记的编解码，标记中按顺序保存上一页最后一条记录的排序列取值
+ * @author xiangyj
+ *
+ */
+public class KeysetToken {
+	
+	private static final char STRING = 'S';
+	
+	private static final char NUMBER = 'N';
+	
+	private static final char TIMESTAMP = 'T';
+
+	/**编码排序列取值
+	 * @param keys 排序列取值，支持字符串、数值与日期
+	 * @return
+	 */
+	public static String encode(Object[] keys) {
+		StringBuilder token = new StringBuilder();
+		for(int i = 0; i < keys.length; i++) {
+			Object key = keys[i];
+			String value;
+			if(key == null) {
+				throw new DalException("dal.007:Keyset sort column value must not be null");
+			} else if(key instanceof String) {
+				value = STRING + (String) key;
+			} else if(key instanceof Number) {
+				value = NUMBER + new BigDecimal(key.toString()).toPlainString();
+			} else if(key instanceof Date) {
+				Timestamp ts = key instanceof Timestamp ? (Timestamp) key : new Timestamp(((Date) key).getTime());
+				value = TIMESTAMP + String.valueOf(ts.getTime()) + ":" + ts.getNanos();
+			} else {
+				throw new DalException("dal.007:Unsupported keyset sort value: " + key);
+			}
+			if(i > 0) {
+				token.append('.');
+			}
+			token.append(Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+		}
+		return token.toString();
+	}
+	
+	/**解码续页标记
+	 * @param token 续页标记
+	 * @param keyCount 排序列个数
+	 * @return
+	 */
+	public static Object[] decode(String token, int keyCount) {
+		String[] parts = token.split("\\.");
+		if(parts.length != keyCount) {
+			throw new DalException("dal.007:Keyset token does not match " + keyCount + " sort columns");
+		}
+		Object[] keys = new Object[keyCount];
+		try {
+			for(int i = 0; i < keyCount; i++) {
+				String value = new String(Base64.getUrlDecoder().decode(parts[i]), StandardCharsets.UTF_8);
+				String text = value.substring(1);
+				switch(value.charAt(0)) {
+				case STRING:
+					keys[i] = text;
+					break;
+				case NUMBER:
+					keys[i] = new BigDecimal(text);
+					break;
+				case TIMESTAMP:
+					int split = text.indexOf(':');
+					Timestamp ts = new Timestamp(Long.parseLong(text.substring(0, split)));
+					ts.setNanos(Integer.parseInt(text.substring(split + 1)));
+					keys[i] = ts;
+					break;
+				default:
+					throw new DalException("dal.007:Invalid keyset token");
+				}
+			}
+		} catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+			throw new DalException("dal.007:Invalid keyset token");
+		}
+		return keys;
+	}
+}
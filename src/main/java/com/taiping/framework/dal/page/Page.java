@@ -22,6 +22,9 @@ public class Page {
 	
 	/** 总记录数*/
 	private int rowCount;
+	
+	/** 总数统计方式*/
+	private CountStrategy countStrategy = CountStrategy.EXACT;
 
 	/**获取其实记录位置
 	 * @return
@@ -32,10 +35,14 @@ public class Page {
 	
 	public void setRowCount(int rowCount) {
 		this.rowCount = rowCount;
+		if(rowCount <= 0) {
+			pageCount = 0;
+			return;
+		}
 		if(pageSize <=0 || pageSize > rowCount) {
 			pageSize = rowCount;
 		}
-		pageCount = (rowCount + 1)/ pageSize;
+		pageCount = (rowCount + pageSize - 1)/ pageSize;
 		if(currentPage > pageCount) {
 			currentPage = pageCount;
 		}
@@ -5,9 +5,23 @@ import java.util.List;
 public class PageResult<T> {
 
 	private List<T> pageR;
+	
+	/** 总记录数，未统计时为-1*/
+	private int rowCount = -1;
+	
+	/** 总记录数是否准确，缓存或估算得到的总数为false*/
+	private boolean exactCount;
+	
+	/** 是否还有下一页*/
+	private boolean hasNext;
 
 	public PageResult(List<T> list, Page page) {
 		this.pageR = list;
+		if(page != null) {
+			this.rowCount = page.getRowCount();
+			this.exactCount = true;
+			this.hasNext = page.getCurrentPage() < page.getPageCount();
+		}
 	}
 
 	public List<T> getPageR() {
@@ -18,9 +32,34 @@ public class PageResult<T> {
 		this.pageR = pageR;
 	}
 
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	public boolean isExactCount() {
+		return exactCount;
+	}
+
+	public void setExactCount(boolean exactCount) {
+		this.exactCount = exactCount;
+	}
+
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
 	@Override
 	public String toString() {
-		return "PageResult [pageR=" + pageR + "]";
+		return "PageResult [pageR=" + pageR + ", rowCount=" + rowCount + ", exactCount=" + exactCount + ", hasNext="
+				+ hasNext + "]";
 	}
 	
 }
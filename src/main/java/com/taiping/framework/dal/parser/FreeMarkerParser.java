@@ -4,6 +4,8 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 
+import com.taiping.framework.dal.cache.CacheStats;
+import com.taiping.framework.dal.cache.LruCache;
 import com.taiping.framework.dal.exception.DalException;
 
 import freemarker.template.Configuration;
@@ -14,10 +16,88 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FreeMarkerParser {
 
+	/** 已编译模板缓存的最大容量*/
+	private static final int TEMPLATE_CACHE_SIZE = 2048;
+
+	/** 共享的FreeMarker配置，初始化后不再修改，可以安全地被多线程共享*/
+	private static final Configuration configuration = new Configuration(new Version("2.3.28"));
+
+	/** 已编译模板缓存，key为sqlId*/
+	private static final LruCache<String, CompiledTemplate> templates = new LruCache<>(TEMPLATE_CACHE_SIZE);
+
+	/** FreeMarker指令、宏调用与插值的起始标记*/
+	private static final String[] DIRECTIVE_MARKS = {"<#", "</#", "<@", "</@", "${", "#{"};
+
 	public static String processTemplate(String freSql, Object root) throws DalException {
+		return process(createTemplate("sqlId", freSql), root);
+	}
+
+	/**使用sqlId对应的已编译模板渲染SQL，未命中缓存时编译并放入缓存
+	 * @param sqlId SQLID
+	 * @param freSql sqlMap中配置的SQL
+	 * @param root 模板参数
+	 * @return 渲染后的SQL
+	 * @throws DalException
+	 */
+	public static String processTemplate(String sqlId, String freSql, Object root) throws DalException {
+		return process(getTemplate(sqlId, freSql), root);
+	}
+
+	/**获取sqlId对应的已编译模板
+	 * @param sqlId SQLID
+	 * @param freSql sqlMap中配置的SQL
+	 * @return
+	 * @throws DalException
+	 */
+	public static Template getTemplate(String sqlId, String freSql) throws DalException {
+		CompiledTemplate compiled = templates.get(sqlId);
+		// 未缓存命中，或者SQL已经发生变化
+		if(compiled == null || (compiled.source != freSql && !compiled.source.equals(freSql))) {
+			compiled = new CompiledTemplate(freSql, createTemplate(sqlId, freSql));
+			templates.put(sqlId, compiled);
+		}
+		return compiled.template;
+	}
+
+	/**判断SQL是否不含任何FreeMarker指令和插值，此类SQL渲染结果与原文完全一致
+	 * @param freSql sqlMap中配置的SQL
+	 * @return true表示静态SQL，无需渲染
+	 */
+	public static boolean isStaticSql(String freSql) {
+		for(String mark : DIRECTIVE_MARKS) {
+			if(freSql.contains(mark)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**移除sqlId对应的已编译模板
+	 * @param sqlId
+	 */
+	public static void evict(String sqlId) {
+		templates.remove(sqlId);
+	}
+
+	/**模板缓存统计信息
+	 * @return
+	 */
+	public static CacheStats getCacheStats() {
+		return templates.stats();
+	}
+
+	private static Template createTemplate(String name, String freSql) throws DalException {
+		try {
+			return new Template(name, new StringReader(freSql), configuration);
+		} catch (Exception e) {
+			log.error("Parse Freemarker Template SQL Error:", e);
+			throw new DalException(e.getMessage());
+		}
+	}
+
+	private static String process(Template t, Object root) throws DalException {
 		Writer writer = new StringWriter();
 		try {
-			Template t = new Template("sqlId", new StringReader(freSql), new Configuration(new Version("2.3.28")));
 			t.process(root, writer);
 		} catch (Exception e) {
 			log.error("Parse Freemarker Template SQL Error:", e);
@@ -25,5 +105,18 @@ public class FreeMarkerParser {
 		}
 		return writer.toString();
 	}
-	
+
+	private static class CompiledTemplate {
+
+		/** 编译模板使用的原始SQL*/
+		private final String source;
+
+		private final Template template;
+
+		public CompiledTemplate(String source, Template template) {
+			this.source = source;
+			this.template = template;
+		}
+	}
+
 }
@@ -0,0 +1,78 @@
+package com.taiping.framework.dal.parser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**渲染结果缓存，按参数是否为null的位图签名缓存同一sqlId渲染后的SQL<br>
+ * 仅适用于渲染结果只取决于参数是否为null、而与参数具体取值无关的SQL，
+ * 需在sqlMap中通过renderCache="true"显式开启
+ * @author xiangyj
+ *
+ */
+public class RenderedSqlCache {
+
+	/** 单个sqlId最多缓存的渲染结果数*/
+	private static final int MAX_VARIANTS = 256;
+	
+	/** 参与签名的参数名最大个数，最高位保留，保证签名不为负数*/
+	private static final int MAX_KEYS = 63;
+	
+	/** 参数名对应的签名位序号*/
+	private final Map<String, Integer> keyIndex = new ConcurrentHashMap<>();
+	
+	/** 签名对应的渲染结果*/
+	private final Map<Long, String> rendered = new ConcurrentHashMap<>();
+	
+	/**计算参数签名，参数名超出可用位数时返回-1，此时不能使用缓存
+	 * @param paramMap 查询参数
+	 * @return
+	 */
+	public long signature(Map<String, ?> paramMap) {
+		long signature = 0L;
+		for(Map.Entry<String, ?> entry : paramMap.entrySet()) {
+			Object value = entry.getValue();
+			/** 与FreeMarker的??一致只区分null，空串渲染结果可能不同 */
+			if(value == null) {
+				continue;
+			}
+			int index = indexOf(entry.getKey());
+			if(index < 0) {
+				return -1L;
+			}
+			signature |= 1L << index;
+		}
+		return signature;
+	}
+	
+	public String get(long signature) {
+		return rendered.get(signature);
+	}
+	
+	public void put(long signature, String sql) {
+		if(rendered.size() < MAX_VARIANTS) {
+			rendered.putIfAbsent(signature, sql);
+		}
+	}
+	
+	public int size() {
+		return rendered.size();
+	}
+	
+	private int indexOf(String key) {
+		Integer index = keyIndex.get(key);
+		if(index != null) {
+			return index;
+		}
+		synchronized (keyIndex) {
+			index = keyIndex.get(key);
+			if(index == null) {
+				if(keyIndex.size() >= MAX_KEYS) {
+					return -1;
+				}
+				index = keyIndex.size();
+				keyIndex.put(key, index);
+			}
+			return index;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.taiping.framework.dal.parser;
 
+import com.taiping.framework.dal.constant.IdStrategy;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -43,6 +45,12 @@ public class SqlBean {
 		/** 表映射实体对象列对应的字段名称*/
 		public String propName;
 		
+		/** 主键客户端预分配的块大小，0表示插入时使用sequence.nextval*/
+		public int allocationSize;
+		
+		/** 主键预分配方式*/
+		public IdStrategy idStrategy;
+		
 		public Entry(String key, String propName) {
 			super();
 			this.columnName = key;
@@ -9,6 +9,15 @@ import lombok.Setter;
 @Getter
 public class SqlHolder {
 
+	/** 实体对应的表名，统一为大写*/
+	private String tableName;
+	
+	/** 实体缓存的最大条目数，0表示不缓存*/
+	private int cacheSize;
+	
+	/** 实体缓存的存活毫秒数*/
+	private long cacheTtlMillis;
+
 	private SqlBean insertSqlBean;
 	
 	private SqlBean deleteSqlBean;
@@ -0,0 +1,210 @@
+package com.taiping.framework.dal.parser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.stream.Collectors;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import com.taiping.framework.dal.constant.DbType;
+import com.taiping.framework.dal.parser.XmlParser.SqlDbType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**sqlMap文件的查找与解析，只产生解析结果，不修改XmlParser中已注册的SQL<br>
+ * 与XmlParser分开，使XmlParser类初始化期间可以在其他线程中并行解析；
+ * 解析过程（包括SqlDbType）不能访问XmlParser的静态成员，否则工作线程会等待XmlParser初始化完成而死锁
+ * @author xiangyj
+ *
+ */
+@Slf4j
+final class SqlMapLoader {
+	
+	private static final XMLInputFactory inputFactory = createInputFactory();
+	
+	private SqlMapLoader() {}
+	
+	/**查找sqlMap文件：先查找工作目录下的sqlMap目录，再查找类路径，同一文件只加载一次
+	 * @param dir 工作目录下的sqlMap目录
+	 * @param classpathPattern 类路径中的sqlMap文件
+	 * @return
+	 */
+	static List<Resource> findResources(String dir, String classpathPattern) {
+		Map<String, Resource> resources = new LinkedHashMap<>();
+		File[] listFiles = new File(dir).listFiles((parent, name) -> name.endsWith(".xml"));
+		if(listFiles != null) {
+			Arrays.sort(listFiles);
+			for(File f : listFiles) {
+				Resource resource = new FileSystemResource(f);
+				resources.putIfAbsent(location(resource), resource);
+			}
+		}
+		try {
+			for(Resource resource : new PathMatchingResourcePatternResolver().getResources(classpathPattern)) {
+				resources.putIfAbsent(location(resource), resource);
+			}
+		} catch (IOException e) {
+			log.warn("Scan classpath " + classpathPattern + " failed", e);
+		}
+		return new ArrayList<>(resources.values());
+	}
+	
+	/**文件位置，文件系统中的文件使用规范路径，避免同一文件被重复加载
+	 * @param resource
+	 * @return
+	 */
+	private static String location(Resource resource) {
+		try {
+			return resource.getFile().getCanonicalFile().toURI().toString();
+		} catch (IOException e) {
+			try {
+				return resource.getURL().toString();
+			} catch (IOException ex) {
+				return resource.getDescription();
+			}
+		}
+	}
+	
+	/**并行解析多个sqlMap文件，结果顺序与文件顺序一致
+	 * @param resources
+	 * @return
+	 */
+	static List<ParsedFile> parseAll(List<Resource> resources) {
+		return resources.parallelStream().map(SqlMapLoader::parse).collect(Collectors.toList());
+	}
+	
+	/**解析单个sqlMap文件，解析失败时返回的结果中包含异常
+	 * @param resource
+	 * @return
+	 */
+	static ParsedFile parse(Resource resource) {
+		String location = location(resource);
+		try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+			return new ParsedFile(location, parse(in, location), null);
+		} catch (Exception e) {
+			return new ParsedFile(location, null, e);
+		}
+	}
+	
+	/**以流式方式解析sqlMap文件，SQL文本与dom4j的getTextTrim()一致：去掉首尾空白，中间连续空白合并为一个空格
+	 * @param in sqlMap文件
+	 * @param location 文件位置
+	 * @return 文件中定义的SQL，key为sqlId
+	 * @throws XMLStreamException
+	 */
+	private static Map<String, SqlDbType> parse(InputStream in, String location) throws XMLStreamException {
+		XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+		try {
+			while(reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+				// 跳到根元素
+			}
+			String nameSpace = reader.getAttributeValue(null, "namespace");
+			DbType type = DbType.getEnum(reader.getAttributeValue(null, "dbType"));
+			// 当前默认为Oracle
+			if(type == null) {
+				type = DbType.ORACLE;
+			}
+			Map<String, SqlDbType> parsed = new LinkedHashMap<>();
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event == XMLStreamConstants.END_ELEMENT) {
+					break;
+				}
+				if(event != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				String sqlID = nameSpace + "." + reader.getAttributeValue(null, "id");
+				String renderCache = reader.getAttributeValue(null, "renderCache");
+				String tables = reader.getAttributeValue(null, "tables");
+				String cache = reader.getAttributeValue(null, "cache");
+				String slowThreshold = reader.getAttributeValue(null, "slowThreshold");
+				SqlDbType sqlDbType = new SqlDbType(sqlID, readTextTrim(reader), type);
+				sqlDbType.setSource(location);
+				if("true".equals(renderCache)) {
+					sqlDbType.enableRenderCache();
+				}
+				sqlDbType.configureTables(tables);
+				if(cache != null) {
+					sqlDbType.enableResultCache(cache);
+				}
+				if(slowThreshold != null) {
+					sqlDbType.configureSlowThreshold(slowThreshold);
+				}
+				parsed.putIfAbsent(sqlID, sqlDbType);
+			}
+			return parsed;
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**读取当前元素的直接文本内容（含CDATA，不含子元素文本）并规整空白，读取后位于元素结束位置
+	 * @param reader
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	private static String readTextTrim(XMLStreamReader reader) throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		int depth = 1;
+		while(depth > 0) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			} else if(depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE)) {
+				text.append(reader.getText());
+			}
+		}
+		StringBuilder trimmed = new StringBuilder(text.length());
+		StringTokenizer tokenizer = new StringTokenizer(text.toString());
+		while(tokenizer.hasMoreTokens()) {
+			trimmed.append(tokenizer.nextToken());
+			if(tokenizer.hasMoreTokens()) {
+				trimmed.append(' ');
+			}
+		}
+		return trimmed.toString();
+	}
+	
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		return factory;
+	}
+	
+	/**单个sqlMap文件的解析结果
+	 */
+	static final class ParsedFile {
+		
+		final String location;
+		
+		final Map<String, SqlDbType> sqls;
+		
+		final Exception error;
+		
+		private ParsedFile(String location, Map<String, SqlDbType> sqls, Exception error) {
+			this.location = location;
+			this.sqls = sqls;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.taiping.framework.dal.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**监听sqlMap目录，文件新增或修改后重新加载该文件<br>
+ * 启动参数-Ddal.sqlMap.hotReload=true时随XmlParser自动启动，也可以调用start()/stop()手动控制；
+ * 同一文件的连续修改事件合并后只加载一次
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class SqlMapWatcher {
+
+	/** 开启热加载的系统属性*/
+	public static final String HOT_RELOAD_PROPERTY = "dal.sqlMap.hotReload";
+
+	/** 合并连续修改事件的等待毫秒数*/
+	private static final long QUIET_PERIOD_MILLIS = 200;
+
+	private static WatchService watchService;
+
+	private static Thread watchThread;
+
+	private SqlMapWatcher() {}
+
+	/**开始监听sqlMap目录，已启动时不重复启动
+	 */
+	public static synchronized void start() {
+		if(watchThread != null) {
+			return;
+		}
+		Path dir = Paths.get(XmlParser.SQL_MAP_DIR);
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException e) {
+			log.error("Watch sqlMap directory " + dir.toAbsolutePath() + " failed, hot reload disabled", e);
+			return;
+		}
+		WatchService service = watchService;
+		watchThread = new Thread(() -> watch(service, dir), "dal-sqlmap-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+		log.info("Watching sqlMap directory " + dir.toAbsolutePath() + " for changes");
+	}
+
+	/**停止监听
+	 */
+	public static synchronized void stop() {
+		if(watchThread == null) {
+			return;
+		}
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			log.warn("Close sqlMap watch service failed", e);
+		}
+		watchThread.interrupt();
+		watchThread = null;
+		watchService = null;
+	}
+
+	public static synchronized boolean isRunning() {
+		return watchThread != null;
+	}
+
+	private static void watch(WatchService service, Path dir) {
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+				WatchKey key = service.take();
+				Set<String> changed = new LinkedHashSet<>();
+				collect(key, changed);
+				// 编辑器保存文件时通常产生多个事件，等待文件写完后合并处理
+				WatchKey next;
+				while((next = service.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					collect(next, changed);
+				}
+				for(String fileName : changed) {
+					File file = dir.resolve(fileName).toFile();
+					if(file.isFile()) {
+						XmlParser.reload(file);
+					}
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// 停止监听
+		}
+	}
+
+	private static void collect(WatchKey key, Set<String> changed) {
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				continue;
+			}
+			String fileName = event.context().toString();
+			if(fileName.endsWith(".xml")) {
+				changed.add(fileName);
+			}
+		}
+		key.reset();
+	}
+
+}
@@ -23,20 +23,31 @@ public class SqlParser<T> {
 	private static final Map<Class<?>, SqlHolder> cache = new ConcurrentHashMap<>();
 	
 	public static <T> SqlHolder getSqlHolder(T t) {
-		Class<? extends Object> entityClass = t.getClass();
+		return getSqlHolder(t.getClass());
+	}
+	
+	/**获取实体类对应的SQL，未缓存命中时生成并缓存，可在启动时预先生成
+	 * @param entityClass 实体类
+	 * @return
+	 */
+	public static SqlHolder getSqlHolder(Class<?> entityClass) {
 		SqlHolder result;
 		// 未缓存命中
 		if((result = cache.get(entityClass)) == null) {
-			result = genBaseSql(t);
+			result = genBaseSql(entityClass);
 			cache.put(entityClass, result);
 		}
 		return result;
 	}
 
 	public static <T> SqlHolder genBaseSql(T t) throws DalException {
-		Table table = t.getClass().getAnnotation(Table.class);
+		return genBaseSql(t.getClass());
+	}
+	
+	public static SqlHolder genBaseSql(Class<?> entityClass) throws DalException {
+		Table table = entityClass.getAnnotation(Table.class);
 		if(table == null) {
-			log.error("Entity:" + t.getClass() + "was not Annotated by @Table!");
+			log.error("Entity:" + entityClass + "was not Annotated by @Table!");
 			throw new DalException("dal.001:Entity was not annoted by @Table");
 		}
 		// 获取表名
@@ -47,9 +58,12 @@ public class SqlParser<T> {
 		StringBuffer update = new StringBuffer("UPDATE " + tableName + " SET ");
 		StringBuffer select = new StringBuffer("SELECT ");
 		// 数据项，第0个为主键
-		Entry[] entries = genSqlEntries(t.getClass());
+		Entry[] entries = genSqlEntries(entityClass);
 		// 返回结果
 		SqlHolder holder = new SqlHolder();
+		holder.setTableName(SqlTableParser.normalize(tableName));
+		holder.setCacheSize(table.cacheSize());
+		holder.setCacheTtlMillis(table.cacheTtlSeconds() * 1000L);
 		// 根据数据库类型生成数据列
 		StringBuffer columns = new StringBuffer();
 		StringBuffer params = new StringBuffer();
@@ -70,7 +84,12 @@ public class SqlParser<T> {
 		// Oracle数据库，自增主键使用的是sequence
 		case ORACLE:
 			columns.insert(0, entries[0].columnName + ", ");
-			params.insert(0, entries[0].sequenceName + ".nextval, ");
+			// 客户端预分配主键时，主键值在插入前已赋值
+			if(entries[0].allocationSize > 0) {
+				params.insert(0, ":" + entries[0].propName + ", ");
+			} else {
+				params.insert(0, entries[0].sequenceName + ".nextval, ");
+			}
 			break;
 		// MySQL数据库，自增主键不用提供
 		case MYSQL:
@@ -115,7 +134,10 @@ public class SqlParser<T> {
 				// Oracle数据库，自增主键使用的是sequence
 				case ORACLE:
 					String sequence = id.sequence();
-					entry.add(0, new Entry(key, name, sequence));
+					Entry idEntry = new Entry(key, name, sequence);
+					idEntry.setAllocationSize(id.allocationSize());
+					idEntry.setIdStrategy(id.strategy());
+					entry.add(0, idEntry);
 					break;
 				case MYSQL:
 					entry.add(0, new Entry(key, name));
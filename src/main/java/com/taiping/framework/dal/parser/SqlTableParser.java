@@ -0,0 +1,73 @@
+package com.taiping.framework.dal.parser;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**从SQL中识别访问的表名，用于结果缓存的失效判断<br>
+ * 识别FROM、JOIN、INTO、UPDATE之后的表名以及FROM之后逗号分隔的表名，
+ * 无法识别的写法（如视图内部的表）需要在sqlMap中通过tables属性声明
+ * @author xiangyj
+ *
+ */
+public final class SqlTableParser {
+
+	/** 表名之前的关键字*/
+	private static final Pattern TABLE_PATTERN = Pattern.compile(
+			"\\b(from|join|into|update)\\s+([A-Za-z_\"][\\w$#\"]*(?:\\.[A-Za-z_\"][\\w$#\"]*)?)", Pattern.CASE_INSENSITIVE);
+
+	/** FROM子句中逗号之后的表名，可带别名*/
+	private static final Pattern NEXT_TABLE_PATTERN = Pattern.compile(
+			"\\G(?:\\s+(?!where\\b|group\\b|order\\b|connect\\b|start\\b|union\\b|minus\\b)[A-Za-z_]\\w*)?\\s*,\\s*([A-Za-z_\"][\\w$#\"]*(?:\\.[A-Za-z_\"][\\w$#\"]*)?)",
+			Pattern.CASE_INSENSITIVE);
+
+	/** 字符串常量*/
+	private static final Pattern LITERAL_PATTERN = Pattern.compile("'(?:[^']|'')*'");
+
+	private SqlTableParser() {}
+
+	/**识别SQL访问的表名，表名统一为不带schema的大写形式
+	 * @param sql SQL
+	 * @return 表名，没有识别到时返回空数组
+	 */
+	public static String[] parse(String sql) {
+		String text = LITERAL_PATTERN.matcher(sql).replaceAll("''");
+		Set<String> tables = new LinkedHashSet<>();
+		Matcher matcher = TABLE_PATTERN.matcher(text);
+		while(matcher.find()) {
+			addTable(tables, matcher.group(2));
+			if("from".equalsIgnoreCase(matcher.group(1))) {
+				Matcher next = NEXT_TABLE_PATTERN.matcher(text);
+				next.region(matcher.end(), text.length());
+				while(next.find()) {
+					addTable(tables, next.group(1));
+				}
+			}
+		}
+		tables.remove("DUAL");
+		return tables.toArray(new String[tables.size()]);
+	}
+
+	/**统一表名形式：去掉schema与引号，转为大写
+	 * @param table 表名
+	 * @return
+	 */
+	public static String normalize(String table) {
+		String name = table.trim();
+		int dot = name.lastIndexOf('.');
+		if(dot >= 0) {
+			name = name.substring(dot + 1);
+		}
+		return name.replace("\"", "").toUpperCase(Locale.ROOT);
+	}
+
+	private static void addTable(Set<String> tables, String table) {
+		String name = normalize(table);
+		if(!name.isEmpty()) {
+			tables.add(name);
+		}
+	}
+
+}
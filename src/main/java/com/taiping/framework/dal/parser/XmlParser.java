@@ -1,21 +1,26 @@
 package com.taiping.framework.dal.parser;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
+import com.taiping.framework.dal.cache.QueryResultCache;
 import com.taiping.framework.dal.constant.DbType;
+import com.taiping.framework.dal.dialect.CountSqlAnalyzer;
+import com.taiping.framework.dal.parser.SqlMapLoader.ParsedFile;
+import com.taiping.framework.dal.exception.DalException;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**解析项目中sqlMap下的
@@ -25,77 +30,301 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class XmlParser {
 	
-	private static final Map<String, SqlDbType> sqls = new ConcurrentHashMap<>();
+	/** 已加载的SQL配置，key为sqlId；只读快照，重新加载时复制修改后整体替换*/
+	private static volatile Map<String, SqlDbType> sqls = Collections.emptyMap();
+	
+	/** sqlMap目录*/
+	static final String SQL_MAP_DIR = "sqlMap/";
+	
+	/** 类路径中的sqlMap文件*/
+	private static final String SQL_MAP_CLASSPATH = "classpath*:sqlMap/*.xml";
+	
+	/** 每个sqlMap文件中定义的sqlId，key为文件位置*/
+	private static final Map<String, Set<String>> fileSqlIds = new ConcurrentHashMap<>();
+	
+	/** 重复定义的sqlId，保留首次加载的定义*/
+	private static final List<String> duplicateSqlIds = new CopyOnWriteArrayList<>();
+	
+	/** 加载sqlMap的耗时毫秒数*/
+	private static long loadMillis;
 	
 	static {
 		log.debug("Initializing sqlMap Resources...");
-		// 获取
-		File[] listFiles = new File("sqlMap/").listFiles();
-		if(listFiles == null || listFiles.length == 0) {
-			String error = "Initializing SqlMap Resources Error! Besause resources folder 'sqlMap' was not Provided";
-			log.error(error);
-			throw new RuntimeException(error);
-		}
-		BufferedInputStream bis = null;
-		for(File f : listFiles) {
-			try {
-				bis = new BufferedInputStream(new FileInputStream(f));
-				int available = bis.available();
-				byte[] by = new byte[available];
-				bis.read(by);
-				String xml = new String(by);
-				Document xmlDoc = DocumentHelper.parseText(xml);
-				Element root = xmlDoc.getRootElement();
-				String nameSpace = root.attribute("namespace").getText();
-				String dbType = root.attribute("dbType").getText();
-				DbType type = DbType.getEnum(dbType);
-				// 当前默认为Oracle
-				if(type == null) {
-					type = DbType.ORACLE;
-				}
-				@SuppressWarnings("unchecked")
-				List<Element> elements = root.elements();
-				for(Element e : elements) {
-					String id = e.attributeValue("id");
-					String sqlID = nameSpace + "." + id;
-					SqlDbType sqlDbType = new SqlDbType(sqlID, e.getTextTrim(), type);
-					sqls.putIfAbsent(sqlID, sqlDbType);
-				}
-			} catch (Exception e) {
-				log.error("Initializing sqlMap Resources error:", e);
-				throw new RuntimeException(e.getMessage());
-			} finally {
-				try {
-					bis.close();
-				} catch (IOException e) {
+		long beginDate = System.currentTimeMillis();
+		List<Resource> resources = SqlMapLoader.findResources(SQL_MAP_DIR, SQL_MAP_CLASSPATH);
+		if(resources.isEmpty()) {
+			log.warn("No sqlMap resources found in folder '" + SQL_MAP_DIR + "' or " + SQL_MAP_CLASSPATH);
+		}
+		// 并行解析，按发现顺序注册，重复的sqlId保留先发现的定义
+		List<ParsedFile> parsedFiles = SqlMapLoader.parseAll(resources);
+		Map<String, SqlDbType> initial = new HashMap<>();
+		int failed = 0;
+		for(ParsedFile parsedFile : parsedFiles) {
+			if(parsedFile.error != null) {
+				failed++;
+				log.error("Initializing sqlMap " + parsedFile.location + " error:", parsedFile.error);
+				continue;
+			}
+			Set<String> loaded = new LinkedHashSet<>();
+			for(SqlDbType sqlDbType : parsedFile.sqls.values()) {
+				SqlDbType exists = initial.putIfAbsent(sqlDbType.sqlId, sqlDbType);
+				if(exists == null) {
+					loaded.add(sqlDbType.sqlId);
+				} else {
+					duplicateSqlIds.add(sqlDbType.sqlId);
+					log.warn("Duplicate sqlId:" + sqlDbType.sqlId + " in " + parsedFile.location + ", first defined in " + exists.source);
 				}
 			}
+			fileSqlIds.put(parsedFile.location, Collections.unmodifiableSet(loaded));
+		}
+		sqls = Collections.unmodifiableMap(initial);
+		loadMillis = System.currentTimeMillis() - beginDate;
+		log.info("Loaded " + sqls.size() + " sqlIds from " + (resources.size() - failed) + " sqlMap files in " + loadMillis
+				+ "ms" + (failed > 0 ? ", " + failed + " files failed" : "")
+				+ (duplicateSqlIds.isEmpty() ? "" : ", " + duplicateSqlIds.size() + " duplicate sqlIds"));
+		if(Boolean.getBoolean(SqlMapWatcher.HOT_RELOAD_PROPERTY)) {
+			SqlMapWatcher.start();
+		}
+	}
+	
+	/**重新加载单个sqlMap文件：解析成功后在配置副本中替换其中的sqlId、移除文件中已删除的sqlId，
+	 * 再一次性替换整个配置，并清除这些sqlId的已编译模板、count分析与查询结果缓存；解析失败时保留原配置<br>
+	 * 读取不加锁，同一文件的sqlId对读取方同时生效，正在执行的请求使用替换前或替换后的配置
+	 * @param f sqlMap文件
+	 * @return 是否重新加载成功
+	 */
+	public static synchronized boolean reload(File f) {
+		ParsedFile parsedFile = SqlMapLoader.parse(new FileSystemResource(f));
+		if(parsedFile.error != null) {
+			log.error("Reload sqlMap " + parsedFile.location + " failed, keep the previous definitions", parsedFile.error);
+			return false;
+		}
+		Set<String> previous = fileSqlIds.getOrDefault(parsedFile.location, Collections.<String>emptySet());
+		Map<String, SqlDbType> updated = new HashMap<>(sqls);
+		Set<String> loaded = new LinkedHashSet<>();
+		for(SqlDbType sqlDbType : parsedFile.sqls.values()) {
+			String sqlId = sqlDbType.sqlId;
+			if(!previous.contains(sqlId) && updated.containsKey(sqlId)) {
+				log.warn("SqlId:" + sqlId + " in " + f.getName() + " is already defined in " + updated.get(sqlId).source + ", ignored");
+				continue;
+			}
+			updated.put(sqlId, sqlDbType);
+			loaded.add(sqlId);
 		}
+		for(String sqlId : previous) {
+			if(!loaded.contains(sqlId)) {
+				updated.remove(sqlId);
+			}
+		}
+		sqls = Collections.unmodifiableMap(updated);
+		/** 替换后再清除缓存，避免读取方用旧配置重新填充 */
+		Set<String> affected = new LinkedHashSet<>(previous);
+		affected.addAll(loaded);
+		for(String sqlId : affected) {
+			evictCaches(sqlId);
+		}
+		fileSqlIds.put(parsedFile.location, Collections.unmodifiableSet(loaded));
+		log.info("Reloaded sqlMap " + f.getName() + ", " + loaded.size() + " sqlIds");
+		return true;
+	}
+	
+	private static void evictCaches(String sqlId) {
+		FreeMarkerParser.evict(sqlId);
+		CountSqlAnalyzer.evict(sqlId);
+		QueryResultCache.evict(sqlId);
+	}
+	
+	/**sqlId配置的慢SQL阈值毫秒数
+	 * @param sqlId SQLID，未在sqlMap中配置的sqlId也可以查询
+	 * @return 未配置时返回-1
+	 */
+	public static long getSlowThresholdMillis(String sqlId) {
+		SqlDbType sqlDbType = sqls.get(sqlId);
+		return sqlDbType == null ? -1 : sqlDbType.slowThresholdMillis;
+	}
+	
+	/**已加载的所有SQL配置
+	 * @return
+	 */
+	public static Collection<SqlDbType> getSqlDbTypes() {
+		return Collections.unmodifiableCollection(sqls.values());
+	}
+	
+	/**加载时发现的重复sqlId
+	 * @return
+	 */
+	public static List<String> getDuplicateSqlIds() {
+		return Collections.unmodifiableList(duplicateSqlIds);
+	}
+	
+	/**启动时加载sqlMap的耗时毫秒数
+	 * @return
+	 */
+	public static long getLoadMillis() {
+		return loadMillis;
 	}
 	
 	public static String getOrgSql(String sqlId) {
-		return sqls.get(sqlId).orgSql;
+		return getSqlDbType(sqlId).orgSql;
 	}
 	
 	public static DbType getDbType(String sqlId) {
-		return sqls.get(sqlId).dbType;
+		return getSqlDbType(sqlId).dbType;
+	}
+	
+	/**获取sqlId对应的SQL配置
+	 * @param sqlId SQLID
+	 * @return
+	 * @throws DalException sqlId未配置
+	 */
+	public static SqlDbType getSqlDbType(String sqlId) throws DalException {
+		SqlDbType sqlDbType = sqls.get(sqlId);
+		if(sqlDbType == null) {
+			log.error("SqlId:" + sqlId + " was not configured in sqlMap!");
+			throw new DalException("dal.002:SqlId was not configured in sqlMap: " + sqlId);
+		}
+		return sqlDbType;
 	}
 	
-	@Setter
+	/**
+	 * sqlId的配置，在XmlParser类初始化期间由其他线程并行创建，使用独立的logger（日志名称不变），
+	 * 不能访问XmlParser的静态成员，否则工作线程会等待XmlParser初始化完成而死锁<br>
+	 * 实例由所有调用方共享，只在包内解析时设置，发布后不再修改；重新加载时创建新实例整体替换
+	 */
 	@Getter
-	private static class SqlDbType {
+	@Slf4j(topic = "com.taiping.framework.dal.parser.XmlParser")
+	public static class SqlDbType {
 		
-		private String sqlId;
+		private final String sqlId;
 		
-		private String orgSql;
+		private final String orgSql;
 		
-		private DbType dbType;
+		/** 定义该SQL的sqlMap文件位置*/
+		private String source;
+		
+		private final DbType dbType;
+		
+		/** 不含FreeMarker指令和插值的静态SQL，执行时无需渲染*/
+		private final boolean staticSql;
+		
+		/** 按参数签名缓存的渲染结果，未开启时为null*/
+		private RenderedSqlCache renderedSqlCache;
+		
+		/** SQL访问的表，用于查询结果缓存的失效，取tables属性或从SQL中识别*/
+		private String[] tables = new String[0];
+		
+		/** 查询结果缓存的存活毫秒数，0表示不缓存*/
+		private long cacheTtlMillis;
+		
+		/** 慢SQL阈值毫秒数，-1表示使用默认阈值*/
+		private long slowThresholdMillis = -1;
 
-		public SqlDbType(String sqlId, String orgSql, DbType dbType) {
+		SqlDbType(String sqlId, String orgSql, DbType dbType) {
 			super();
 			this.sqlId = sqlId;
 			this.orgSql = orgSql;
 			this.dbType = dbType;
+			this.staticSql = FreeMarkerParser.isStaticSql(orgSql);
+		}
+		
+		void setSource(String source) {
+			this.source = source;
+		}
+		
+		/**开启渲染结果缓存，静态SQL无需缓存，包含插值的SQL渲染结果依赖参数取值，不能缓存
+		 */
+		void enableRenderCache() {
+			if(staticSql) {
+				return;
+			}
+			if(orgSql.contains("${") || orgSql.contains("#{")) {
+				log.warn("SqlId:" + sqlId + " interpolates parameter values, renderCache was ignored");
+				return;
+			}
+			renderedSqlCache = new RenderedSqlCache();
+		}
+		
+		/**设置SQL访问的表，未声明时从SQL中识别
+		 * @param tablesAttr tables属性，逗号分隔
+		 */
+		void configureTables(String tablesAttr) {
+			if(tablesAttr == null || tablesAttr.trim().isEmpty()) {
+				tables = SqlTableParser.parse(orgSql);
+				return;
+			}
+			String[] names = tablesAttr.split(",");
+			for(int i = 0; i < names.length; i++) {
+				names[i] = SqlTableParser.normalize(names[i]);
+			}
+			tables = names;
+		}
+		
+		/**开启查询结果缓存
+		 * @param cacheAttr cache属性，形如ttl:60s，支持ms、s、m、h单位，不带单位时为秒
+		 */
+		void enableResultCache(String cacheAttr) {
+			String ttl = cacheAttr.trim().toLowerCase();
+			if(!ttl.startsWith("ttl:")) {
+				log.warn("SqlId:" + sqlId + " has invalid cache attribute '" + cacheAttr + "', result cache was ignored");
+				return;
+			}
+			long ttlMillis = parseMillis(ttl.substring(4), 1000L);
+			if(ttlMillis < 0) {
+				log.warn("SqlId:" + sqlId + " has invalid cache attribute '" + cacheAttr + "', result cache was ignored");
+				return;
+			}
+			cacheTtlMillis = ttlMillis;
+			if(tables.length == 0) {
+				log.warn("SqlId:" + sqlId + " caches results without known tables, entries expire only by ttl");
+			}
+		}
+		
+		/**是否开启了查询结果缓存
+		 * @return
+		 */
+		public boolean isResultCacheEnabled() {
+			return cacheTtlMillis > 0;
+		}
+		
+		/**设置慢SQL阈值
+		 * @param thresholdAttr slowThreshold属性，形如500ms，支持ms、s、m、h单位，不带单位时为毫秒
+		 */
+		void configureSlowThreshold(String thresholdAttr) {
+			long thresholdMillis = parseMillis(thresholdAttr, 1L);
+			if(thresholdMillis < 0) {
+				log.warn("SqlId:" + sqlId + " has invalid slowThreshold attribute '" + thresholdAttr + "', default threshold was used");
+				return;
+			}
+			slowThresholdMillis = thresholdMillis;
+		}
+		
+		/**解析时长
+		 * @param value 时长，支持ms、s、m、h单位
+		 * @param defaultUnit 不带单位时的毫秒数
+		 * @return 毫秒数，格式错误时返回-1
+		 */
+		private static long parseMillis(String value, long defaultUnit) {
+			String duration = value.trim().toLowerCase();
+			long unit = defaultUnit;
+			if(duration.endsWith("ms")) {
+				unit = 1L;
+				duration = duration.substring(0, duration.length() - 2);
+			} else if(duration.endsWith("s")) {
+				unit = 1000L;
+				duration = duration.substring(0, duration.length() - 1);
+			} else if(duration.endsWith("m")) {
+				unit = 60 * 1000L;
+				duration = duration.substring(0, duration.length() - 1);
+			} else if(duration.endsWith("h")) {
+				unit = 60 * 60 * 1000L;
+				duration = duration.substring(0, duration.length() - 1);
+			}
+			try {
+				long amount = Long.parseLong(duration.trim());
+				return amount < 0 ? -1 : amount * unit;
+			} catch (NumberFormatException e) {
+				return -1;
+			}
 		}
 	}
 
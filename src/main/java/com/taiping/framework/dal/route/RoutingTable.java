@@ -0,0 +1,161 @@
+package com.taiping.framework.dal.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.taiping.framework.dal.exception.DalException;
+
+/**分库路由表，按routeId确定分库名称，创建后不可修改，重新加载时整体替换<br>
+ * 先按显式配置的routeId区间查找，未配置的routeId按对分库数取模分配到分库列表中
+ * @author xiangyj
+ *
+ */
+public final class RoutingTable {
+
+	/** Properties中分库列表的key，值为逗号分隔的分库名称*/
+	public static final String SHARDS_KEY = "shards";
+
+	/** Properties中路由区间key的前缀，例如route.0-511=db0、route.1024=db1*/
+	public static final String ROUTE_PREFIX = "route.";
+
+	/** 分库名称，取模路由按此顺序分配*/
+	private final List<String> shards;
+
+	/** 路由区间，key为区间起始routeId*/
+	private final TreeMap<Integer, Range> ranges;
+
+	private RoutingTable(List<String> shards, TreeMap<Integer, Range> ranges) {
+		if (shards.isEmpty()) {
+			throw new DalException("dal.010:Routing table requires at least one shard");
+		}
+		this.shards = Collections.unmodifiableList(shards);
+		this.ranges = ranges;
+	}
+
+	/**按routeId对分库数取模路由
+	 * @param shards 分库名称
+	 * @return
+	 */
+	public static RoutingTable modulo(List<String> shards) {
+		return new RoutingTable(new ArrayList<>(new LinkedHashSet<>(shards)), new TreeMap<>());
+	}
+
+	/**按routeId对分库数取模路由
+	 * @param shards 分库名称
+	 * @return
+	 */
+	public static RoutingTable modulo(String... shards) {
+		return modulo(Arrays.asList(shards));
+	}
+
+	/**从配置创建路由表，shards为逗号分隔的分库名称，route.起始-结束（或单个routeId）为区间对应的分库，
+	 * 未配置shards时按区间顺序取路由区间中出现的分库
+	 * @param properties 配置
+	 * @return
+	 */
+	public static RoutingTable fromProperties(Properties properties) {
+		Set<String> shards = new LinkedHashSet<>();
+		String shardList = properties.getProperty(SHARDS_KEY);
+		if (shardList != null) {
+			for (String shard : shardList.split(",")) {
+				if (!shard.trim().isEmpty()) {
+					shards.add(shard.trim());
+				}
+			}
+		}
+		TreeMap<Integer, Range> ranges = new TreeMap<>();
+		for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+			if (!key.startsWith(ROUTE_PREFIX)) {
+				continue;
+			}
+			String shard = properties.getProperty(key).trim();
+			Range range = Range.parse(key.substring(ROUTE_PREFIX.length()), shard);
+			Map.Entry<Integer, Range> floor = ranges.floorEntry(range.end);
+			if (floor != null && floor.getValue().end >= range.start) {
+				throw new DalException("dal.010:Route " + key + " overlaps " + floor.getValue());
+			}
+			ranges.put(range.start, range);
+			if (shardList != null && !shards.contains(shard)) {
+				throw new DalException("dal.010:Route " + key + " refers to undeclared shard: " + shard);
+			}
+		}
+		if (shardList == null) {
+			for (Range range : ranges.values()) {
+				shards.add(range.shard);
+			}
+		}
+		return new RoutingTable(new ArrayList<>(shards), ranges);
+	}
+
+	/**routeId对应的分库名称
+	 * @param routeId 分库路由
+	 * @return
+	 */
+	public String route(int routeId) {
+		Map.Entry<Integer, Range> floor = ranges.floorEntry(routeId);
+		if (floor != null && floor.getValue().end >= routeId) {
+			return floor.getValue().shard;
+		}
+		return shards.get(Math.floorMod(routeId, shards.size()));
+	}
+
+	/**路由表中的所有分库名称
+	 * @return
+	 */
+	public List<String> getShards() {
+		return shards;
+	}
+
+	@Override
+	public String toString() {
+		return "RoutingTable [shards=" + shards + ", ranges=" + ranges.values() + "]";
+	}
+
+	/**routeId区间，包含起止值
+	 */
+	private static final class Range {
+
+		private final int start;
+
+		private final int end;
+
+		private final String shard;
+
+		private Range(int start, int end, String shard) {
+			this.start = start;
+			this.end = end;
+			this.shard = shard;
+		}
+
+		private static Range parse(String range, String shard) {
+			try {
+				int dash = range.indexOf('-', 1);
+				if (dash < 0) {
+					int routeId = Integer.parseInt(range.trim());
+					return new Range(routeId, routeId, shard);
+				}
+				int start = Integer.parseInt(range.substring(0, dash).trim());
+				int end = Integer.parseInt(range.substring(dash + 1).trim());
+				if (end < start) {
+					throw new DalException("dal.010:Invalid route range: " + range);
+				}
+				return new Range(start, end, shard);
+			} catch (NumberFormatException e) {
+				throw new DalException("dal.010:Invalid route range: " + range);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return start + "-" + end + "=" + shard;
+		}
+	}
+}
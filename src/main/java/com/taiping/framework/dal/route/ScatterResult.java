@@ -0,0 +1,51 @@
+package com.taiping.framework.dal.route;
+
+import java.util.List;
+import java.util.Map;
+
+/**跨分库查询的合并结果，记录参与合并的分库与失败的分库
+ * @author xiangyj
+ *
+ * @param <R> 合并后的结果类型
+ */
+public class ScatterResult<R> {
+
+	/** 合并后的结果，只包含成功的分库*/
+	private final R result;
+
+	/** 成功的分库*/
+	private final List<String> succeededShards;
+
+	/** 失败或超时的分库及原因，key为分库名称*/
+	private final Map<String, String> failures;
+
+	ScatterResult(R result, List<String> succeededShards, Map<String, String> failures) {
+		this.result = result;
+		this.succeededShards = succeededShards;
+		this.failures = failures;
+	}
+
+	public R getResult() {
+		return result;
+	}
+
+	public List<String> getSucceededShards() {
+		return succeededShards;
+	}
+
+	public Map<String, String> getFailures() {
+		return failures;
+	}
+
+	/**是否有分库失败，结果不完整
+	 * @return
+	 */
+	public boolean isPartial() {
+		return !failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "ScatterResult [result=" + result + ", succeededShards=" + succeededShards + ", failures=" + failures + "]";
+	}
+}
@@ -0,0 +1,56 @@
+package com.taiping.framework.dal.route;
+
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.taiping.framework.dal.entity.BaseEntity;
+import com.taiping.framework.dal.util.BeanAccessor;
+import com.taiping.framework.dal.util.BeanAccessor.Property;
+
+/**从实体或查询参数中取分库路由
+ * @author xiangyj
+ *
+ */
+@FunctionalInterface
+public interface ShardKeyFunction {
+
+	/** 查询参数与实体中分库路由的名称*/
+	String ROUTE_ID = "routeId";
+
+	/** 默认实现：BaseEntity取routeId，Map与SqlParameterSource取routeId参数，其它对象取可读的routeId属性*/
+	ShardKeyFunction ROUTE_ID_FUNCTION = ShardKeyFunction::routeIdOf;
+
+	/**参数对应的分库路由
+	 * @param param 实体、Map或其它参数对象
+	 * @return 分库路由，参数中没有路由时返回null
+	 */
+	Integer routeId(Object param);
+
+	/**按默认方式取分库路由
+	 * @param param 实体、Map或其它参数对象
+	 * @return 分库路由，参数中没有路由时返回null
+	 */
+	static Integer routeIdOf(Object param) {
+		if (param == null) {
+			return null;
+		}
+		if (param instanceof BaseEntity) {
+			return ((BaseEntity) param).getRouteId();
+		}
+		Object value;
+		if (param instanceof Map) {
+			value = ((Map<?, ?>) param).get(ROUTE_ID);
+		} else if (param instanceof SqlParameterSource) {
+			SqlParameterSource source = (SqlParameterSource) param;
+			value = source.hasValue(ROUTE_ID) ? source.getValue(ROUTE_ID) : null;
+		} else {
+			Property property = BeanAccessor.forClass(param.getClass()).getProperty(ROUTE_ID);
+			value = property == null || !property.isReadable() ? null : property.get(param);
+		}
+		if (value == null) {
+			return null;
+		}
+		return value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(value.toString().trim());
+	}
+}
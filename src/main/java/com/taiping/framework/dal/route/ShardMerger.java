@@ -0,0 +1,147 @@
+package com.taiping.framework.dal.route;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.taiping.framework.dal.exception.DalException;
+import com.taiping.framework.dal.page.KeysetPage;
+
+/**多个分库查询结果的合并，各分库结果须已按同一顺序排列
+ * @author xiangyj
+ *
+ */
+final class ShardMerger {
+
+	private ShardMerger() {}
+
+	/**k路归并，跳过前skip条后取limit条，只读取需要的记录；comparator为null时按分库顺序拼接
+	 * @param lists      各分库的有序结果
+	 * @param comparator 排序
+	 * @param skip       跳过的记录数
+	 * @param limit      返回的记录数，小于0时不限制
+	 * @return
+	 */
+	static <T> List<T> merge(List<List<T>> lists, Comparator<? super T> comparator, int skip, int limit) {
+		int total = 0;
+		for (List<T> list : lists) {
+			total += list.size();
+		}
+		int size = Math.max(0, limit < 0 ? total - skip : Math.min(limit, total - skip));
+		List<T> merged = new ArrayList<>(size);
+		if (size == 0) {
+			return merged;
+		}
+		if (comparator == null) {
+			int position = 0;
+			for (List<T> list : lists) {
+				for (T value : list) {
+					if (position++ >= skip) {
+						merged.add(value);
+						if (merged.size() == size) {
+							return merged;
+						}
+					}
+				}
+			}
+			return merged;
+		}
+		PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(lists.size(), (a, b) -> {
+			int c = comparator.compare(a.current(), b.current());
+			// 相等时按分库顺序，结果稳定
+			return c != 0 ? c : Integer.compare(a.shard, b.shard);
+		});
+		for (int i = 0; i < lists.size(); i++) {
+			if (!lists.get(i).isEmpty()) {
+				heap.add(new Cursor<>(lists.get(i), i));
+			}
+		}
+		int position = 0;
+		while (!heap.isEmpty()) {
+			Cursor<T> cursor = heap.poll();
+			if (position++ >= skip) {
+				merged.add(cursor.current());
+				if (merged.size() == size) {
+					break;
+				}
+			}
+			if (++cursor.index < cursor.list.size()) {
+				heap.add(cursor);
+			}
+		}
+		return merged;
+	}
+
+	/**检查排序列取值能否在内存中按数据库的顺序比较：不能为null，只支持数值与日期；
+	 * 字符串的顺序取决于数据库的字符集排序，须由调用方通过{@link KeysetPage#setKeyComparator}提供比较方式
+	 * @param keys 排序列取值
+	 */
+	static void checkKeys(Object[] keys) {
+		for (Object key : keys) {
+			if (key == null) {
+				throw new DalException("dal.007:Keyset sort column value must not be null");
+			}
+			if (!(key instanceof Number) && !(key instanceof Date)) {
+				throw new DalException("dal.007:Merging shards on " + key.getClass().getName()
+						+ " sort values requires KeysetPage.keyComparator matching the database collation");
+			}
+		}
+	}
+
+	/**比较两行的排序列取值，取值须已通过{@link #checkKeys}检查：数值按大小，日期按时间先后
+	 * @param a          排序列取值
+	 * @param b          排序列取值
+	 * @param descending 是否降序
+	 * @return
+	 */
+	static int compareKeys(Object[] a, Object[] b, boolean descending) {
+		for (int i = 0; i < a.length; i++) {
+			int c = compareKey(a[i], b[i]);
+			if (c != 0) {
+				return descending ? -c : c;
+			}
+		}
+		return 0;
+	}
+
+	private static int compareKey(Object a, Object b) {
+		if (a instanceof Number && b instanceof Number) {
+			if (isIntegral(a) && isIntegral(b)) {
+				return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+			}
+			return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+		}
+		if (a instanceof Date && b instanceof Date) {
+			return ((Date) a).compareTo((Date) b);
+		}
+		throw new DalException("dal.007:Cannot compare keyset sort values " + a + " and " + b);
+	}
+
+	private static boolean isIntegral(Object value) {
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * 一个分库结果的读取位置
+	 */
+	private static final class Cursor<T> {
+
+		private final List<T> list;
+
+		private final int shard;
+
+		private int index;
+
+		private Cursor(List<T> list, int shard) {
+			this.list = list;
+			this.shard = shard;
+		}
+
+		private T current() {
+			return list.get(index);
+		}
+	}
+}
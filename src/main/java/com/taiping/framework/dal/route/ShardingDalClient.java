@@ -0,0 +1,788 @@
+package com.taiping.framework.dal.route;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+
+import com.taiping.framework.dal.batch.BatchResult;
+import com.taiping.framework.dal.client.PageDalClient;
+import com.taiping.framework.dal.dao.StatementCanceller;
+import com.taiping.framework.dal.exception.DalException;
+import com.taiping.framework.dal.page.CountStrategy;
+import com.taiping.framework.dal.page.KeysetPage;
+import com.taiping.framework.dal.page.KeysetPageResult;
+import com.taiping.framework.dal.page.KeysetToken;
+import com.taiping.framework.dal.page.Page;
+import com.taiping.framework.dal.page.PageResult;
+import com.taiping.framework.dal.support.DalExecutors;
+import com.taiping.framework.dal.support.PaginationDalClient;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**分库客户端，按分库路由将操作转发到对应分库的PaginationDalClient<br>
+ * 实体操作按实体的路由（默认为BaseEntity.routeId），sqlId操作按查询参数中的路由（默认为routeId参数）确定分库，
+ * 取路由的方式可以通过ShardKeyFunction替换；路由表可以在运行时整体替换，正在执行的操作使用替换前的路由表。<br>
+ * 批量操作按分库分组后依次在各分库执行，各分库的事务相互独立。<br>
+ * 没有分库路由的sqlId查询（queryForList与分页查询）在路由表中的所有分库上并行执行后合并：列表按comparator归并或按分库顺序拼接，
+ * 分页时每个分库只取前offset+limit条（键集分页按续页标记定位）后k路归并，总数为各分库总数之和；
+ * 可以设置每个分库的超时时间，默认任一分库失败时整体失败，setAllowPartialResults(true)后返回其余分库的结果。
+ * 其它没有分库路由的操作抛出异常
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public class ShardingDalClient implements PageDalClient {
+
+	/** 未指定分页大小时的默认值，与PaginationDalClient一致*/
+	private static final int DEFAULT_PAGE_SIZE = 1000;
+
+	/** 默认跨分库查询线程池中每个分库的线程数，JDK21+使用虚拟线程时不限制*/
+	private static final int SCATTER_THREADS_PER_SHARD = 4;
+
+	/** 分库客户端，key为分库名称*/
+	private final Map<String, PaginationDalClient> shards;
+
+	private volatile RoutingTable routingTable;
+
+	private volatile ShardKeyFunction shardKeyFunction = ShardKeyFunction.ROUTE_ID_FUNCTION;
+
+	/** 跨分库查询时每个分库的超时毫秒数，小于等于0时不限制*/
+	private long scatterTimeoutMillis;
+
+	/** 跨分库查询有分库失败时是否返回其余分库的结果*/
+	private boolean allowPartialResults;
+
+	/** 跨分库查询的线程池*/
+	private volatile ExecutorService scatterExecutor;
+
+	/**按routeId对分库数取模路由
+	 * @param shards 分库客户端，key为分库名称
+	 */
+	public ShardingDalClient(Map<String, ? extends PaginationDalClient> shards) {
+		this(shards, RoutingTable.modulo(new ArrayList<>(shards.keySet())));
+	}
+
+	/**
+	 * @param shards       分库客户端，key为分库名称
+	 * @param routingTable 路由表
+	 */
+	public ShardingDalClient(Map<String, ? extends PaginationDalClient> shards, RoutingTable routingTable) {
+		if (shards.isEmpty()) {
+			throw new DalException("dal.010:Sharding client requires at least one shard");
+		}
+		this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+		setRoutingTable(routingTable);
+	}
+
+	/**为每个分库数据源创建PaginationDalClient，按routeId对分库数取模路由
+	 * @param dataSources 分库数据源，key为分库名称
+	 * @return
+	 */
+	public static ShardingDalClient forDataSources(Map<String, DataSource> dataSources) {
+		Map<String, PaginationDalClient> shards = new LinkedHashMap<>();
+		for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+			shards.put(entry.getKey(), new PaginationDalClient(entry.getValue()));
+		}
+		return new ShardingDalClient(shards);
+	}
+
+	@Override
+	public <T> Number persist(T entity) {
+		return route(entity).persist(entity);
+	}
+
+	@Override
+	public <T> int merge(T entity) {
+		return route(entity).merge(entity);
+	}
+
+	@Override
+	public <T> int remove(T entity) {
+		return route(entity).remove(entity);
+	}
+
+	@Override
+	public <T> BatchResult persistAll(Collection<T> entities) {
+		return routeAll(entities, (client, group) -> client.persistAll(group));
+	}
+
+	@Override
+	public <T> BatchResult persistAll(Collection<T> entities, int batchSize) {
+		return routeAll(entities, (client, group) -> client.persistAll(group, batchSize));
+	}
+
+	@Override
+	public <T> BatchResult mergeAll(Collection<T> entities) {
+		return routeAll(entities, (client, group) -> client.mergeAll(group));
+	}
+
+	@Override
+	public <T> BatchResult mergeAll(Collection<T> entities, int batchSize) {
+		return routeAll(entities, (client, group) -> client.mergeAll(group, batchSize));
+	}
+
+	@Override
+	public <T> BatchResult removeAll(Collection<T> entities) {
+		return routeAll(entities, (client, group) -> client.removeAll(group));
+	}
+
+	@Override
+	public <T> BatchResult removeAll(Collection<T> entities, int batchSize) {
+		return routeAll(entities, (client, group) -> client.removeAll(group, batchSize));
+	}
+
+	@Override
+	public <T> T find(T entity) {
+		return route(entity).find(entity);
+	}
+
+	@Override
+	public <T> T queryForObject(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
+		return route(paramMap).queryForObject(sqlId, paramMap, requiredType);
+	}
+
+	@Override
+	public <T> T queryForObject(String sqlId, Object param, Class<T> requiredType) {
+		return route(param).queryForObject(sqlId, param, requiredType);
+	}
+
+	@Override
+	public <T> T queryForObject(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
+		return route(paramMap).queryForObject(sqlId, paramMap, rowMapper);
+	}
+
+	@Override
+	public Map<String, Object> queryForMap(String sqlId, Map<String, Object> paramMap) {
+		return route(paramMap).queryForMap(sqlId, paramMap);
+	}
+
+	@Override
+	public Map<String, Object> queryForMap(String sqlId, Object param) {
+		return route(param).queryForMap(sqlId, param);
+	}
+
+	@Override
+	public <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
+		return queryForList(sqlId, paramMap, requiredType, (Comparator<? super T>) null);
+	}
+
+	@Override
+	public <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Comparator<? super T> comparator) {
+		PaginationDalClient client = routeIfPresent(paramMap);
+		if (client != null) {
+			return client.queryForList(sqlId, paramMap, requiredType);
+		}
+		return mergeLists(gather(sqlId, paramMap, (shard, params) -> shard.queryForList(sqlId, params, requiredType), allowPartialResults),
+				comparator).getResult();
+	}
+
+	@Override
+	public List<Map<String, Object>> queryForList(String sqlId, Map<String, Object> paramMap) {
+		PaginationDalClient client = routeIfPresent(paramMap);
+		if (client != null) {
+			return client.queryForList(sqlId, paramMap);
+		}
+		return mergeLists(gather(sqlId, paramMap, (shard, params) -> shard.queryForList(sqlId, params), allowPartialResults), null)
+				.getResult();
+	}
+
+	@Override
+	public <T> List<T> queryForList(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
+		PaginationDalClient client = routeIfPresent(paramMap);
+		if (client != null) {
+			return client.queryForList(sqlId, paramMap, rowMapper);
+		}
+		return mergeLists(gather(sqlId, paramMap, (shard, params) -> shard.queryForList(sqlId, params, rowMapper), allowPartialResults),
+				null).getResult();
+	}
+
+	@Override
+	public <T> void queryForEach(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize,
+			Consumer<? super T> action) {
+		route(paramMap).queryForEach(sqlId, paramMap, requiredType, fetchSize, action);
+	}
+
+	@Override
+	public <T> void queryForEach(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize,
+			Consumer<? super T> action) {
+		route(paramMap).queryForEach(sqlId, paramMap, rowMapper, fetchSize, action);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize) {
+		return route(paramMap).queryForStream(sqlId, paramMap, requiredType, fetchSize);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper, int fetchSize) {
+		return route(paramMap).queryForStream(sqlId, paramMap, rowMapper, fetchSize);
+	}
+
+	@Override
+	public <T> PageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page) {
+		return queryForList(sqlId, paramMap, requiredType, page, null);
+	}
+
+	@Override
+	public <T> PageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page,
+			Comparator<? super T> comparator) {
+		PaginationDalClient client = routeIfPresent(paramMap);
+		if (client != null) {
+			return client.queryForList(sqlId, paramMap, requiredType, page);
+		}
+		return scatterPage(sqlId, paramMap, requiredType, page, comparator, allowPartialResults).getResult();
+	}
+
+	@Override
+	public <T> KeysetPageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, KeysetPage page) {
+		PaginationDalClient client = routeIfPresent(paramMap);
+		if (client != null) {
+			return client.queryForList(sqlId, paramMap, requiredType, page);
+		}
+		return scatterKeyset(sqlId, paramMap, requiredType, page, allowPartialResults).getResult();
+	}
+
+	/**在路由表中的所有分库上并行查询，按comparator归并各分库的结果，comparator为null时按分库顺序拼接
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数，每个分库使用一份副本
+	 * @param requiredType 结果实体类型
+	 * @param comparator 结果排序，须与SQL的排序一致
+	 * @return 合并结果与失败的分库，分库失败或超时不抛出异常
+	 */
+	public <T> ScatterResult<List<T>> scatterList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType,
+			Comparator<? super T> comparator) {
+		return mergeLists(gather(sqlId, paramMap, (shard, params) -> shard.queryForList(sqlId, params, requiredType), true), comparator);
+	}
+
+	/**在路由表中的所有分库上并行分页查询，每个分库取前offset+limit条后k路归并，总数为各分库总数之和<br>
+	 * 每个分库读取的记录数随页码增长，深分页请使用键集分页
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数，每个分库使用一份副本
+	 * @param requiredType 结果实体类型
+	 * @param page 分页参数
+	 * @param comparator 结果排序，须与SQL的排序一致，为null时按分库顺序拼接
+	 * @return 合并结果与失败的分库，分库失败或超时不抛出异常
+	 */
+	public <T> ScatterResult<PageResult<T>> scatterPage(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page,
+			Comparator<? super T> comparator) {
+		return scatterPage(sqlId, paramMap, requiredType, page, comparator, true);
+	}
+
+	/**在路由表中的所有分库上并行键集分页查询，各分库按同一续页标记定位，按排序列取值归并后取一页，
+	 * 续页标记为本页最后一条记录的排序列取值<br>
+	 * 排序列不能为NULL（合并不假定数据库的NULL排序位置）；未设置{@link KeysetPage#setKeyComparator}时排序列只能是数值或日期，
+	 * 字符串等按数据库字符集排序的列须提供与数据库一致的比较方式，否则抛出异常
+	 * @param <T>
+	 * @param sqlId SQLID
+	 * @param paramMap 查询参数，每个分库使用一份副本
+	 * @param requiredType 结果实体类型
+	 * @param page 键集分页参数
+	 * @return 合并结果与失败的分库，分库失败或超时不抛出异常
+	 */
+	public <T> ScatterResult<KeysetPageResult<T>> scatterKeyset(String sqlId, Map<String, Object> paramMap, Class<T> requiredType,
+			KeysetPage page) {
+		return scatterKeyset(sqlId, paramMap, requiredType, page, true);
+	}
+
+	private <T> ScatterResult<PageResult<T>> scatterPage(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page,
+			Comparator<? super T> comparator, boolean allowPartial) {
+		if (page.getPageSize() < 0) {
+			page.setPageSize(DEFAULT_PAGE_SIZE);
+			page.setCurrentPage(1);
+		}
+		CountStrategy countStrategy = page.getCountStrategy() == null ? CountStrategy.EXACT : page.getCountStrategy();
+		/** 调用方已提供总数时各分库不再统计 */
+		boolean countKnown = countStrategy == CountStrategy.EXACT && page.getRowCount() > 0;
+		int pageSize = page.getPageSize();
+		int offset = page.getFirstRowIndex();
+		int window = offset + pageSize;
+		Gathered<PageResult<T>> gathered = gather(sqlId, paramMap, (shard, params) -> {
+			Page shardPage = new Page();
+			shardPage.setPageSize(window);
+			shardPage.setCountStrategy(countKnown ? CountStrategy.HAS_NEXT : countStrategy);
+			return shard.queryForList(sqlId, params, requiredType, shardPage);
+		}, allowPartial);
+		List<List<T>> lists = new ArrayList<>(gathered.results.size());
+		int rowCount = 0;
+		int fetched = 0;
+		boolean exactCount = !gathered.isPartial();
+		boolean more = false;
+		for (PageResult<T> shardResult : gathered.results) {
+			lists.add(shardResult.getPageR());
+			fetched += shardResult.getPageR().size();
+			rowCount += Math.max(0, shardResult.getRowCount());
+			exactCount &= shardResult.isExactCount();
+			more |= shardResult.hasNext();
+		}
+		List<T> merged = ShardMerger.merge(lists, comparator, offset, pageSize);
+		PageResult<T> result;
+		if (countStrategy == CountStrategy.HAS_NEXT) {
+			result = new PageResult<T>(merged, null);
+			result.setHasNext(more || fetched > window);
+			result.setExactCount(false);
+		} else {
+			if (!countKnown) {
+				page.setRowCount(rowCount);
+			}
+			result = new PageResult<T>(merged, page);
+			result.setExactCount(countKnown || exactCount);
+		}
+		return gathered.toResult(result);
+	}
+
+	private <T> ScatterResult<KeysetPageResult<T>> scatterKeyset(String sqlId, Map<String, Object> paramMap, Class<T> requiredType,
+			KeysetPage page, boolean allowPartial) {
+		int pageSize = page.getPageSize() > 0 ? page.getPageSize() : DEFAULT_PAGE_SIZE;
+		Gathered<KeysetPageResult<T>> gathered = gather(sqlId, paramMap, (shard, params) -> {
+			KeysetPage shardPage = new KeysetPage(pageSize, page.getSortColumns());
+			shardPage.setDescending(page.isDescending());
+			shardPage.setToken(page.getToken());
+			shardPage.setCaptureRowKeys(true);
+			return shard.queryForList(sqlId, params, requiredType, shardPage);
+		}, allowPartial);
+		Comparator<Object[]> keyComparator = page.getKeyComparator();
+		List<List<KeyedRow<T>>> lists = new ArrayList<>(gathered.results.size());
+		int fetched = 0;
+		boolean more = false;
+		for (KeysetPageResult<T> shardResult : gathered.results) {
+			List<T> rows = shardResult.getPageR();
+			List<KeyedRow<T>> keyedRows = new ArrayList<>(rows.size());
+			for (int i = 0; i < rows.size(); i++) {
+				Object[] keys = shardResult.getRowKeys().get(i);
+				if (keyComparator == null) {
+					ShardMerger.checkKeys(keys);
+				}
+				keyedRows.add(new KeyedRow<>(rows.get(i), keys));
+			}
+			lists.add(keyedRows);
+			fetched += rows.size();
+			more |= shardResult.hasNext();
+		}
+		boolean descending = page.isDescending();
+		/** 合并顺序与数据库顺序不一致时续页标记取自错误的记录，各分库会跳过记录，因此只按能确定顺序的方式比较 */
+		Comparator<KeyedRow<T>> comparator = keyComparator == null
+				? (a, b) -> ShardMerger.compareKeys(a.keys, b.keys, descending)
+				: (a, b) -> descending ? keyComparator.compare(b.keys, a.keys) : keyComparator.compare(a.keys, b.keys);
+		List<KeyedRow<T>> merged = ShardMerger.merge(lists, comparator, 0, pageSize);
+		List<T> values = new ArrayList<>(merged.size());
+		List<Object[]> rowKeys = new ArrayList<>(merged.size());
+		for (KeyedRow<T> row : merged) {
+			values.add(row.value);
+			rowKeys.add(row.keys);
+		}
+		String nextToken = null;
+		if ((more || fetched > pageSize) && !merged.isEmpty()) {
+			nextToken = KeysetToken.encode(merged.get(merged.size() - 1).keys);
+		}
+		KeysetPageResult<T> result = new KeysetPageResult<T>(values, nextToken);
+		if (page.isCaptureRowKeys()) {
+			result.setRowKeys(rowKeys);
+		}
+		return gathered.toResult(result);
+	}
+
+	@Override
+	public int execute(String sqlId, Map<String, Object> paramMap) {
+		return route(paramMap).execute(sqlId, paramMap);
+	}
+
+	@Override
+	public int execute(String sqlId, Object param) {
+		return route(param).execute(sqlId, param);
+	}
+
+	@Override
+	public int[] batchUpdate(String sqlId, Map<String, Object>[] batchValues) {
+		return routeBatchUpdate(batchValues, (client, group) -> client.batchUpdate(sqlId, toMapArray(group)));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> int[] batchUpdate(String sqlId, T... batchValues) {
+		return routeBatchUpdate(batchValues, (client, group) -> client.batchUpdate(sqlId,
+				group.toArray((T[]) Array.newInstance(batchValues.getClass().getComponentType(), group.size()))));
+	}
+
+	@Override
+	public Map<String, Object> call(String sqlId, Map<String, Object> paramMap, List<SqlParameter> sqlParameters) {
+		return route(paramMap).call(sqlId, paramMap, sqlParameters);
+	}
+
+	/**参数中有分库路由时返回对应的分库客户端，否则返回null
+	 */
+	private PaginationDalClient routeIfPresent(Object param) {
+		Integer routeId = shardKeyFunction.routeId(param);
+		return routeId == null ? null : shardFor(routeId);
+	}
+
+	/**参数对应的分库客户端
+	 * @param param 实体、Map或其它参数对象
+	 * @return
+	 * @throws DalException 参数中没有分库路由
+	 */
+	public PaginationDalClient route(Object param) throws DalException {
+		return getShard(routingTable.route(requireRouteId(param)));
+	}
+
+	/**routeId对应的分库客户端
+	 * @param routeId 分库路由
+	 * @return
+	 */
+	public PaginationDalClient shardFor(int routeId) {
+		return getShard(routingTable.route(routeId));
+	}
+
+	/**分库名称对应的客户端
+	 * @param name 分库名称
+	 * @return
+	 * @throws DalException 分库不存在
+	 */
+	public PaginationDalClient getShard(String name) throws DalException {
+		PaginationDalClient client = shards.get(name);
+		if (client == null) {
+			throw new DalException("dal.010:Unknown shard: " + name);
+		}
+		return client;
+	}
+
+	/**所有分库客户端，key为分库名称
+	 * @return
+	 */
+	public Map<String, PaginationDalClient> getShards() {
+		return shards;
+	}
+
+	public RoutingTable getRoutingTable() {
+		return routingTable;
+	}
+
+	/**替换路由表，路由表中的分库必须都已配置
+	 * @param routingTable 路由表
+	 * @throws DalException 路由表引用了不存在的分库
+	 */
+	public void setRoutingTable(RoutingTable routingTable) throws DalException {
+		for (String shard : routingTable.getShards()) {
+			if (!shards.containsKey(shard)) {
+				throw new DalException("dal.010:Routing table refers to unknown shard: " + shard);
+			}
+		}
+		RoutingTable previous = this.routingTable;
+		this.routingTable = routingTable;
+		if (previous != null) {
+			log.info("Routing table reloaded: " + routingTable);
+		}
+	}
+
+	/**从配置重新加载路由表，配置格式见RoutingTable.fromProperties
+	 * @param properties 配置
+	 * @throws DalException 配置不合法或引用了不存在的分库，此时保留原路由表
+	 */
+	public void reloadRoutingTable(Properties properties) throws DalException {
+		setRoutingTable(RoutingTable.fromProperties(properties));
+	}
+
+	public ShardKeyFunction getShardKeyFunction() {
+		return shardKeyFunction;
+	}
+
+	/**设置取分库路由的方式，默认取BaseEntity.routeId或routeId参数
+	 * @param shardKeyFunction
+	 */
+	public void setShardKeyFunction(ShardKeyFunction shardKeyFunction) {
+		this.shardKeyFunction = shardKeyFunction;
+	}
+
+	public long getScatterTimeoutMillis() {
+		return scatterTimeoutMillis;
+	}
+
+	/**设置跨分库查询时每个分库的超时毫秒数，超时的分库取消正在执行的SQL并按失败处理；小于等于0时不限制
+	 * @param scatterTimeoutMillis 超时毫秒数
+	 */
+	public void setScatterTimeoutMillis(long scatterTimeoutMillis) {
+		this.scatterTimeoutMillis = scatterTimeoutMillis;
+	}
+
+	public boolean isAllowPartialResults() {
+		return allowPartialResults;
+	}
+
+	/**设置跨分库查询有分库失败或超时时是否返回其余分库的结果，默认为false，任一分库失败时抛出异常
+	 * @param allowPartialResults 是否返回部分结果
+	 */
+	public void setAllowPartialResults(boolean allowPartialResults) {
+		this.allowPartialResults = allowPartialResults;
+	}
+
+	/**设置跨分库查询的线程池，未设置时按需创建，JDK21+使用虚拟线程
+	 * @param scatterExecutor 线程池
+	 */
+	public void setScatterExecutor(ExecutorService scatterExecutor) {
+		this.scatterExecutor = scatterExecutor;
+	}
+
+	private ExecutorService getScatterExecutor() {
+		ExecutorService executor = scatterExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = scatterExecutor;
+				if (executor == null) {
+					executor = DalExecutors.newExecutor("dal-scatter", shards.size() * SCATTER_THREADS_PER_SHARD);
+					scatterExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 在路由表中的所有分库上并行执行查询，每个分库使用一份查询参数副本并绑定取消句柄；
+	 * 超时的分库取消正在执行的SQL，不允许部分结果时任一分库失败即取消其余分库并抛出异常
+	 */
+	private <R> Gathered<R> gather(String sqlId, Map<String, Object> paramMap, BiFunction<PaginationDalClient, Map<String, Object>, R> query,
+			boolean allowPartial) {
+		List<String> names = routingTable.getShards();
+		Gathered<R> gathered = new Gathered<>(names.size());
+		if (names.size() == 1) {
+			String name = names.get(0);
+			gathered.add(name, query.apply(getShard(name), copy(paramMap)));
+			return gathered;
+		}
+		ExecutorService executor = getScatterExecutor();
+		List<Future<R>> futures = new ArrayList<>(names.size());
+		List<StatementCanceller> cancellers = new ArrayList<>(names.size());
+		for (String name : names) {
+			PaginationDalClient client = getShard(name);
+			Map<String, Object> params = copy(paramMap);
+			StatementCanceller canceller = new StatementCanceller();
+			cancellers.add(canceller);
+			try {
+				futures.add(executor.submit(() -> StatementCanceller.call(canceller, () -> query.apply(client, params))));
+			} catch (RejectedExecutionException e) {
+				futures.add(null);
+			}
+		}
+		long timeoutMillis = scatterTimeoutMillis;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			Future<R> future = futures.get(i);
+			String failure;
+			try {
+				if (future == null) {
+					failure = "scatter executor rejected the task";
+				} else {
+					gathered.add(name, timeoutMillis > 0 ? future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+							: future.get());
+					continue;
+				}
+			} catch (TimeoutException e) {
+				cancellers.get(i).cancel();
+				failure = "timed out after " + timeoutMillis + "ms";
+			} catch (ExecutionException e) {
+				failure = String.valueOf(e.getCause());
+			} catch (InterruptedException e) {
+				cancelFrom(cancellers, futures, i);
+				Thread.currentThread().interrupt();
+				throw new DalException("dal.011:Interrupted while waiting for shards of " + sqlId);
+			}
+			gathered.failures.put(name, failure);
+			if (!allowPartial) {
+				cancelFrom(cancellers, futures, i + 1);
+				throw new DalException("dal.011:Scatter query " + sqlId + " failed on shard " + name + ": " + failure);
+			}
+		}
+		if (gathered.isPartial()) {
+			log.warn("Scatter query " + sqlId + " returned partial results, failed shards: " + gathered.failures);
+		}
+		return gathered;
+	}
+
+	private static <R> void cancelFrom(List<StatementCanceller> cancellers, List<Future<R>> futures, int from) {
+		for (int i = from; i < cancellers.size(); i++) {
+			cancellers.get(i).cancel();
+			if (futures.get(i) != null) {
+				futures.get(i).cancel(false);
+			}
+		}
+	}
+
+	private static Map<String, Object>[] toMapArray(List<Map<String, Object>> maps) {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Map<String, Object>[] array = maps.toArray(new Map[maps.size()]);
+		return array;
+	}
+
+	private static Map<String, Object> copy(Map<String, Object> paramMap) {
+		return paramMap == null ? new HashMap<>() : new HashMap<>(paramMap);
+	}
+
+	private static <T> ScatterResult<List<T>> mergeLists(Gathered<List<T>> gathered, Comparator<? super T> comparator) {
+		return gathered.toResult(ShardMerger.merge(gathered.results, comparator, 0, -1));
+	}
+
+	private int requireRouteId(Object param) throws DalException {
+		Integer routeId = shardKeyFunction.routeId(param);
+		if (routeId == null) {
+			throw new DalException("dal.010:No shard key found in " + (param == null ? "null parameters" : param.getClass().getName()));
+		}
+		return routeId;
+	}
+
+	/**
+	 * 按分库分组执行批量操作，多个分库时合并各分库的执行结果，生成的主键按实体原顺序排列
+	 */
+	private <T> BatchResult routeAll(Collection<T> entities, BiFunction<PaginationDalClient, List<T>, BatchResult> action) {
+		if (entities == null || entities.isEmpty()) {
+			return new BatchResult();
+		}
+		Map<String, Group<T>> groups = group(entities);
+		if (groups.size() == 1) {
+			Map.Entry<String, Group<T>> only = groups.entrySet().iterator().next();
+			return action.apply(getShard(only.getKey()), only.getValue().values);
+		}
+		BatchResult result = new BatchResult();
+		Object[] keys = new Object[entities.size()];
+		boolean keysComplete = true;
+		for (Map.Entry<String, Group<T>> entry : groups.entrySet()) {
+			Group<T> group = entry.getValue();
+			BatchResult shardResult = action.apply(getShard(entry.getKey()), group.values);
+			for (int[] counts : shardResult.getChunkResults()) {
+				result.addChunkResult(counts);
+			}
+			List<Object> shardKeys = shardResult.getGeneratedKeys();
+			if (shardKeys.size() == group.values.size()) {
+				for (int i = 0; i < shardKeys.size(); i++) {
+					keys[group.positions.get(i)] = shardKeys.get(i);
+				}
+			} else {
+				keysComplete = false;
+			}
+		}
+		if (keysComplete) {
+			for (Object key : keys) {
+				result.addGeneratedKey(key);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 按分库分组执行批量更新，返回值按参数原顺序排列
+	 */
+	private <P> int[] routeBatchUpdate(P[] batchValues, BiFunction<PaginationDalClient, List<P>, int[]> action) {
+		if (batchValues == null || batchValues.length == 0) {
+			return new int[0];
+		}
+		Map<String, Group<P>> groups = group(Arrays.asList(batchValues));
+		int[] counts = new int[batchValues.length];
+		for (Map.Entry<String, Group<P>> entry : groups.entrySet()) {
+			Group<P> group = entry.getValue();
+			int[] shardCounts = action.apply(getShard(entry.getKey()), group.values);
+			for (int i = 0; i < shardCounts.length && i < group.positions.size(); i++) {
+				counts[group.positions.get(i)] = shardCounts[i];
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * 按当前路由表将参数分组，key为分库名称
+	 */
+	private <P> Map<String, Group<P>> group(Collection<P> values) {
+		RoutingTable table = routingTable;
+		Map<String, Group<P>> groups = new LinkedHashMap<>();
+		int position = 0;
+		for (P value : values) {
+			String shard = table.route(requireRouteId(value));
+			Group<P> group = groups.get(shard);
+			if (group == null) {
+				group = new Group<>();
+				groups.put(shard, group);
+			}
+			group.values.add(value);
+			group.positions.add(position++);
+		}
+		return groups;
+	}
+
+	/**
+	 * 各分库的查询结果，按路由表中的分库顺序排列
+	 */
+	private static final class Gathered<R> {
+
+		private final List<String> shards;
+
+		private final List<R> results;
+
+		private final Map<String, String> failures = new LinkedHashMap<>();
+
+		private Gathered(int size) {
+			this.shards = new ArrayList<>(size);
+			this.results = new ArrayList<>(size);
+		}
+
+		private void add(String shard, R result) {
+			shards.add(shard);
+			results.add(result);
+		}
+
+		private boolean isPartial() {
+			return !failures.isEmpty();
+		}
+
+		private <V> ScatterResult<V> toResult(V result) {
+			return new ScatterResult<>(result, Collections.unmodifiableList(shards), Collections.unmodifiableMap(failures));
+		}
+	}
+
+	/**
+	 * 键集分页的一行及其排序列取值
+	 */
+	private static final class KeyedRow<T> {
+
+		private final T value;
+
+		private final Object[] keys;
+
+		private KeyedRow(T value, Object[] keys) {
+			this.value = value;
+			this.keys = keys;
+		}
+	}
+
+	/**
+	 * 同一分库的参数与其在原参数中的位置
+	 */
+	private static final class Group<P> {
+
+		private final List<P> values = new ArrayList<>();
+
+		private final List<Integer> positions = new ArrayList<>();
+	}
+
+}
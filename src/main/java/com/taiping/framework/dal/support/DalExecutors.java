@@ -0,0 +1,98 @@
+package com.taiping.framework.dal.support;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**DAL内部并发任务使用的线程池<br>
+ * 运行在支持虚拟线程的JDK（21+）上时每个任务使用一个虚拟线程，否则使用固定大小的守护线程池；
+ * 并发数量由调用方通过信号量限制
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class DalExecutors {
+
+	private DalExecutors() {}
+
+	/**创建线程池
+	 * @param namePrefix 线程名前缀
+	 * @param maxThreads 平台线程池的线程数
+	 * @return
+	 */
+	public static ExecutorService newExecutor(String namePrefix, int maxThreads) {
+		ExecutorService executor = newVirtualThreadExecutor();
+		if(executor != null) {
+			return executor;
+		}
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory(namePrefix));
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**创建单线程的定时任务线程池，用于超时控制，取消的任务立即从队列中移除
+	 * @param name 线程名
+	 * @return
+	 */
+	public static ScheduledExecutorService newScheduler(String name) {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory(name));
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	/**当前JDK是否支持虚拟线程
+	 * @return
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return findVirtualThreadFactoryMethod() != null;
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		Method method = findVirtualThreadFactoryMethod();
+		if(method == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			log.warn("Create virtual thread executor failed, fall back to platform threads: " + e);
+			return null;
+		}
+	}
+
+	private static Method findVirtualThreadFactoryMethod() {
+		try {
+			return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+
+		private final String namePrefix;
+
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		private DaemonThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
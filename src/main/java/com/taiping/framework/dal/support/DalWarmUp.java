@@ -0,0 +1,151 @@
+package com.taiping.framework.dal.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import com.taiping.framework.dal.entity.anno.Table;
+import com.taiping.framework.dal.mapper.RowMapperFactory;
+import com.taiping.framework.dal.parser.FreeMarkerParser;
+import com.taiping.framework.dal.parser.SqlParser;
+import com.taiping.framework.dal.parser.XmlParser;
+import com.taiping.framework.dal.parser.XmlParser.SqlDbType;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**启动预热，在应用对外提供服务前完成sqlMap加载、FreeMarker模板编译、实体SQL生成与RowMapper创建，
+ * 避免首批请求承担这些一次性开销<br>
+ * 一般在应用启动完成后调用一次，例如：DalWarmUp.warmUp("com.taiping.xxx.entity")
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class DalWarmUp {
+
+	private DalWarmUp() {}
+
+	/**扫描包下所有@Table标注的实体类并预热
+	 * @param basePackages 实体类所在的包
+	 * @return 各阶段耗时
+	 */
+	public static Report warmUp(String... basePackages) {
+		long begin = System.nanoTime();
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+		scanner.addIncludeFilter(new AnnotationTypeFilter(Table.class));
+		Set<Class<?>> entityClasses = new LinkedHashSet<>();
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		for(String basePackage : basePackages) {
+			for(BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+				try {
+					entityClasses.add(ClassUtils.forName(candidate.getBeanClassName(), classLoader));
+				} catch (ClassNotFoundException | LinkageError e) {
+					log.warn("Load entity class " + candidate.getBeanClassName() + " failed: " + e);
+				}
+			}
+		}
+		long scanMillis = (System.nanoTime() - begin) / 1000000;
+		Report report = warmUp(entityClasses);
+		report.scanMillis = scanMillis;
+		return report;
+	}
+
+	/**预热sqlMap与给定的实体类
+	 * @param entityClasses @Table标注的实体类，也可以是查询结果映射的类型
+	 * @return 各阶段耗时
+	 */
+	public static Report warmUp(Class<?>... entityClasses) {
+		List<Class<?>> classes = new ArrayList<>();
+		for(Class<?> entityClass : entityClasses) {
+			classes.add(entityClass);
+		}
+		return warmUp(classes);
+	}
+
+	private static Report warmUp(Collection<Class<?>> entityClasses) {
+		Report report = new Report();
+		// sqlMap在XmlParser类初始化时加载
+		Collection<SqlDbType> sqlDbTypes = XmlParser.getSqlDbTypes();
+		report.sqlMapMillis = XmlParser.getLoadMillis();
+		report.sqlCount = sqlDbTypes.size();
+		// 编译动态SQL模板，模板之间互不依赖，并行编译
+		long begin = System.nanoTime();
+		AtomicInteger templates = new AtomicInteger();
+		sqlDbTypes.parallelStream().filter(sqlDbType -> !sqlDbType.isStaticSql()).forEach(sqlDbType -> {
+			try {
+				FreeMarkerParser.getTemplate(sqlDbType.getSqlId(), sqlDbType.getOrgSql());
+				templates.incrementAndGet();
+			} catch (Exception e) {
+				log.warn("Compile template of sqlId:" + sqlDbType.getSqlId() + " failed: " + e.getMessage());
+			}
+		});
+		report.templateCount = templates.get();
+		report.templateMillis = (System.nanoTime() - begin) / 1000000;
+		// 生成实体类的增删改查SQL
+		begin = System.nanoTime();
+		for(Class<?> entityClass : entityClasses) {
+			if(entityClass.isAnnotationPresent(Table.class)) {
+				try {
+					SqlParser.getSqlHolder(entityClass);
+					report.entityCount++;
+				} catch (Exception e) {
+					log.warn("Generate sql of " + entityClass.getName() + " failed: " + e.getMessage());
+				}
+			}
+		}
+		report.entityMillis = (System.nanoTime() - begin) / 1000000;
+		// 创建RowMapper
+		begin = System.nanoTime();
+		RowMapperFactory.warmUp(entityClasses.toArray(new Class<?>[0]));
+		report.rowMapperCount = entityClasses.size();
+		report.rowMapperMillis = (System.nanoTime() - begin) / 1000000;
+		log.info("DAL warmed up: " + report);
+		return report;
+	}
+
+	/**预热结果，耗时单位为毫秒
+	 */
+	@Getter
+	public static final class Report {
+
+		/** 扫描实体类耗时*/
+		private long scanMillis;
+
+		/** 已加载的sqlId数量*/
+		private int sqlCount;
+
+		/** 加载sqlMap耗时*/
+		private long sqlMapMillis;
+
+		/** 已编译的动态SQL模板数量*/
+		private int templateCount;
+
+		private long templateMillis;
+
+		/** 已生成SQL的实体类数量*/
+		private int entityCount;
+
+		private long entityMillis;
+
+		private int rowMapperCount;
+
+		private long rowMapperMillis;
+
+		private Report() {}
+
+		@Override
+		public String toString() {
+			return "scan " + scanMillis + "ms, sqlMap " + sqlCount + " sqlIds " + sqlMapMillis + "ms, templates "
+					+ templateCount + " " + templateMillis + "ms, entities " + entityCount + " " + entityMillis
+					+ "ms, rowMappers " + rowMapperCount + " " + rowMapperMillis + "ms";
+		}
+	}
+}
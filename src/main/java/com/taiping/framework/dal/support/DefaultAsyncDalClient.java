@@ -0,0 +1,410 @@
+package com.taiping.framework.dal.support;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.taiping.framework.dal.batch.BatchResult;
+import com.taiping.framework.dal.client.AsyncDalClient;
+import com.taiping.framework.dal.client.PageDalClient;
+import com.taiping.framework.dal.dao.StatementCanceller;
+import com.taiping.framework.dal.exception.DalException;
+import com.taiping.framework.dal.page.KeysetPage;
+import com.taiping.framework.dal.page.KeysetPageResult;
+import com.taiping.framework.dal.page.Page;
+import com.taiping.framework.dal.page.PageResult;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**基于PaginationDalClient的异步客户端<br>
+ * 操作提交到线程池执行，JDK21+默认每个操作一个虚拟线程；同一DataSource上同时执行的操作数不超过连接池大小，
+ * 超出的操作等待许可而不是占用连接池的等待队列。返回的Future被取消或超时时，通过StatementCanceller取消正在执行的SQL，
+ * 尚未开始的操作不再执行<br>
+ * 所有操作（包括persist、merge、remove和*All批量写）都在其它线程上以自动提交方式执行，不参与调用线程的Spring事务，
+ * 因此在事务中调用时直接抛出DalException，不提交到线程池
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public class DefaultAsyncDalClient implements AsyncDalClient {
+
+	/** 无法识别连接池大小时的默认并发数*/
+	private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+	/** 读取连接池最大连接数的方法：HikariCP、DBCP2、Druid/Tomcat、C3P0、H2*/
+	private static final String[] POOL_SIZE_METHODS = { "getMaximumPoolSize", "getMaxTotal", "getMaxActive", "getMaxPoolSize",
+			"getMaxConnections" };
+
+	/** 各DataSource的并发许可，同一DataSource上的多个异步客户端共享*/
+	private static final Map<DataSource, Permits> permits = new ConcurrentHashMap<>();
+
+	/** 超时控制线程*/
+	private static volatile ScheduledExecutorService timeoutScheduler;
+
+	private final PaginationDalClient dalClient;
+
+	private final DataSource dataSource;
+
+	/** 执行操作的线程池*/
+	private volatile ExecutorService executor;
+
+	/** 默认超时毫秒数，小于等于0时不限制*/
+	private long timeoutMillis;
+
+	public DefaultAsyncDalClient(DataSource dataSource) {
+		this(new PaginationDalClient(dataSource));
+	}
+
+	public DefaultAsyncDalClient(PaginationDalClient dalClient) {
+		this.dalClient = dalClient;
+		this.dataSource = dalClient.getDataSource();
+	}
+
+	@Override
+	public <T> CompletableFuture<Number> persist(T entity) {
+		return submit(client -> client.persist(entity));
+	}
+
+	@Override
+	public <T> CompletableFuture<Integer> merge(T entity) {
+		return submit(client -> client.merge(entity));
+	}
+
+	@Override
+	public <T> CompletableFuture<Integer> remove(T entity) {
+		return submit(client -> client.remove(entity));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> persistAll(Collection<T> entities) {
+		return submit(client -> client.persistAll(entities));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> persistAll(Collection<T> entities, int batchSize) {
+		return submit(client -> client.persistAll(entities, batchSize));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> mergeAll(Collection<T> entities) {
+		return submit(client -> client.mergeAll(entities));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> mergeAll(Collection<T> entities, int batchSize) {
+		return submit(client -> client.mergeAll(entities, batchSize));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> removeAll(Collection<T> entities) {
+		return submit(client -> client.removeAll(entities));
+	}
+
+	@Override
+	public <T> CompletableFuture<BatchResult> removeAll(Collection<T> entities, int batchSize) {
+		return submit(client -> client.removeAll(entities, batchSize));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> find(T entity) {
+		return submit(client -> client.find(entity));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> queryForObject(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
+		return submit(client -> client.queryForObject(sqlId, paramMap, requiredType));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> queryForObject(String sqlId, Object param, Class<T> requiredType) {
+		return submit(client -> client.queryForObject(sqlId, param, requiredType));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> queryForObject(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
+		return submit(client -> client.queryForObject(sqlId, paramMap, rowMapper));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> queryForMap(String sqlId, Map<String, Object> paramMap) {
+		return submit(client -> client.queryForMap(sqlId, paramMap));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> queryForMap(String sqlId, Object param) {
+		return submit(client -> client.queryForMap(sqlId, param));
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType) {
+		return submit(client -> client.queryForList(sqlId, paramMap, requiredType));
+	}
+
+	@Override
+	public CompletableFuture<List<Map<String, Object>>> queryForList(String sqlId, Map<String, Object> paramMap) {
+		return submit(client -> client.queryForList(sqlId, paramMap));
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> queryForList(String sqlId, Map<String, Object> paramMap, RowMapper<T> rowMapper) {
+		return submit(client -> client.queryForList(sqlId, paramMap, rowMapper));
+	}
+
+	@Override
+	public <T> CompletableFuture<PageResult<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page) {
+		return submit(client -> client.queryForList(sqlId, paramMap, requiredType, page));
+	}
+
+	@Override
+	public <T> CompletableFuture<KeysetPageResult<T>> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType,
+			KeysetPage page) {
+		return submit(client -> client.queryForList(sqlId, paramMap, requiredType, page));
+	}
+
+	@Override
+	public <T> CompletableFuture<Void> queryForEach(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, int fetchSize,
+			Consumer<? super T> action) {
+		return submit(client -> {
+			client.queryForEach(sqlId, paramMap, requiredType, fetchSize, action);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Integer> execute(String sqlId, Map<String, Object> paramMap) {
+		return submit(client -> client.execute(sqlId, paramMap));
+	}
+
+	@Override
+	public CompletableFuture<Integer> execute(String sqlId, Object param) {
+		return submit(client -> client.execute(sqlId, param));
+	}
+
+	@Override
+	public CompletableFuture<int[]> batchUpdate(String sqlId, Map<String, Object>[] batchValues) {
+		return submit(client -> client.batchUpdate(sqlId, batchValues));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> call(String sqlId, Map<String, Object> paramMap, List<SqlParameter> sqlParameters) {
+		return submit(client -> client.call(sqlId, paramMap, sqlParameters));
+	}
+
+	@Override
+	public <V> CompletableFuture<V> submit(Function<? super PageDalClient, ? extends V> action) {
+		return submit(action, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public <V> CompletableFuture<V> submit(Function<? super PageDalClient, ? extends V> action, long timeout, TimeUnit unit) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new DalException("dal.009:Async operations run outside the current transaction, use DalClient inside a transaction");
+		}
+		AsyncResult<V> result = new AsyncResult<>();
+		Permits semaphore = getPermits();
+		try {
+			getExecutor().execute(() -> run(result, semaphore, action));
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(new DalException("dal.009:Async executor rejected the task: " + e.getMessage()));
+			return result;
+		}
+		if (timeout > 0) {
+			long millis = unit.toMillis(timeout);
+			ScheduledFuture<?> timer = getTimeoutScheduler().schedule(() -> result.timeout(millis), timeout, unit);
+			result.whenComplete((value, e) -> timer.cancel(false));
+		}
+		return result;
+	}
+
+	/**
+	 * 在线程池中获取许可后执行操作，Future已结束（取消或超时）时不再执行
+	 */
+	private <V> void run(AsyncResult<V> result, Semaphore semaphore, Function<? super PageDalClient, ? extends V> action) {
+		if (result.isDone()) {
+			return;
+		}
+		try {
+			semaphore.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.completeExceptionally(new DalException("dal.009:Interrupted while waiting for a connection permit"));
+			return;
+		}
+		try {
+			if (!result.isDone()) {
+				result.complete(StatementCanceller.call(result.canceller, () -> action.apply(dalClient)));
+			}
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		} finally {
+			semaphore.release();
+		}
+	}
+
+	private Permits getPermits() {
+		Permits semaphore = permits.get(dataSource);
+		if (semaphore == null) {
+			semaphore = permits.computeIfAbsent(dataSource, key -> new Permits(detectPoolSize(key)));
+		}
+		return semaphore;
+	}
+
+	private ExecutorService getExecutor() {
+		ExecutorService pool = executor;
+		if (pool == null) {
+			synchronized (this) {
+				pool = executor;
+				if (pool == null) {
+					pool = DalExecutors.newExecutor("dal-async", getMaxConcurrency());
+					executor = pool;
+				}
+			}
+		}
+		return pool;
+	}
+
+	private static ScheduledExecutorService getTimeoutScheduler() {
+		ScheduledExecutorService scheduler = timeoutScheduler;
+		if (scheduler == null) {
+			synchronized (DefaultAsyncDalClient.class) {
+				scheduler = timeoutScheduler;
+				if (scheduler == null) {
+					scheduler = DalExecutors.newScheduler("dal-async-timeout");
+					timeoutScheduler = scheduler;
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	/**
+	 * 通过连接池的最大连接数方法读取连接池大小，识别不到时使用默认值
+	 *
+	 * @param dataSource 数据源，Spring代理的数据源取目标数据源
+	 * @return 连接池大小
+	 */
+	static int detectPoolSize(DataSource dataSource) {
+		DataSource target = dataSource;
+		while (target instanceof DelegatingDataSource && ((DelegatingDataSource) target).getTargetDataSource() != null) {
+			target = ((DelegatingDataSource) target).getTargetDataSource();
+		}
+		for (String name : POOL_SIZE_METHODS) {
+			try {
+				Method method = target.getClass().getMethod(name);
+				Object size = method.invoke(target);
+				if (size instanceof Number && ((Number) size).intValue() > 0) {
+					return ((Number) size).intValue();
+				}
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				// 不是该连接池的方法
+			}
+		}
+		log.info("Connection pool size of " + target.getClass().getName() + " is unknown, async concurrency defaults to "
+				+ DEFAULT_MAX_CONCURRENCY);
+		return DEFAULT_MAX_CONCURRENCY;
+	}
+
+	public PaginationDalClient getDalClient() {
+		return dalClient;
+	}
+
+	/**
+	 * 同一DataSource上同时执行的操作上限
+	 *
+	 * @return 并发上限
+	 */
+	public int getMaxConcurrency() {
+		return getPermits().size;
+	}
+
+	/**
+	 * 设置同一DataSource上同时执行的操作上限，默认为连接池大小；对使用同一DataSource的所有异步客户端生效，需在使用前设置
+	 *
+	 * @param maxConcurrency 并发上限
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency <= 0) {
+			throw new DalException("dal.009:maxConcurrency must be positive: " + maxConcurrency);
+		}
+		permits.put(dataSource, new Permits(maxConcurrency));
+	}
+
+	/**
+	 * 设置执行操作的线程池，未设置时按需创建，JDK21+使用虚拟线程
+	 *
+	 * @param executor 线程池
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * 设置默认超时毫秒数，超时后取消正在执行的SQL，Future以DalException异常结束；小于等于0时不限制
+	 *
+	 * @param timeoutMillis 超时毫秒数
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * DataSource的并发许可
+	 */
+	private static final class Permits extends Semaphore {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int size;
+
+		private Permits(int size) {
+			super(size);
+			this.size = size;
+		}
+	}
+
+	/**
+	 * 异步操作结果，取消或超时时取消正在执行的SQL
+	 */
+	private static final class AsyncResult<V> extends CompletableFuture<V> {
+
+		private final StatementCanceller canceller = new StatementCanceller();
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				canceller.cancel();
+			}
+			return cancelled;
+		}
+
+		private void timeout(long millis) {
+			if (completeExceptionally(new DalException("dal.009:Async operation timed out after " + millis + "ms"))) {
+				canceller.cancel();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.taiping.framework.dal.support;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 键集分页使用的RowMapper，委托实际的RowMapper映射，并在页内最后一行读取排序列的取值；
+ * 需要合并多个分库的结果时读取每一行的排序列取值
+ * 
+ * @author xiangyj
+ */
+class KeyCapturingRowMapper<T> implements RowMapper<T> {
+
+	private final RowMapper<T> delegate;
+
+	private final String[] sortColumns;
+
+	/** 需要读取排序列取值的行号 */
+	private final int captureRow;
+
+	private Object[] capturedKeys;
+
+	/** 每一行的排序列取值，不需要时为null */
+	private final List<Object[]> rowKeys;
+
+	KeyCapturingRowMapper(RowMapper<T> delegate, String[] sortColumns, int captureRow, boolean captureAllRows) {
+		this.delegate = delegate;
+		this.sortColumns = sortColumns;
+		this.captureRow = captureRow;
+		this.rowKeys = captureAllRows ? new ArrayList<>() : null;
+	}
+
+	@Override
+	public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+		if (rowNum == captureRow || rowKeys != null) {
+			Object[] keys = new Object[sortColumns.length];
+			for (int i = 0; i < sortColumns.length; i++) {
+				Object key = rs.getObject(sortColumns[i]);
+				if (key != null && !(key instanceof Number) && !(key instanceof String) && !(key instanceof Date)) {
+					// 驱动专有的日期类型
+					key = rs.getTimestamp(sortColumns[i]);
+				}
+				keys[i] = key;
+			}
+			if (rowNum == captureRow) {
+				capturedKeys = keys;
+			}
+			if (rowKeys != null) {
+				rowKeys.add(keys);
+			}
+		}
+		return delegate.mapRow(rs, rowNum);
+	}
+
+	public Object[] getCapturedKeys() {
+		return capturedKeys;
+	}
+
+	public List<Object[]> getRowKeys() {
+		return rowKeys;
+	}
+
+}
@@ -1,24 +1,84 @@
 package com.taiping.framework.dal.support;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.taiping.framework.dal.cache.CacheStats;
+import com.taiping.framework.dal.cache.LruCache;
 import com.taiping.framework.dal.client.PageDalClient;
 import com.taiping.framework.dal.constant.DbType;
+import com.taiping.framework.dal.dao.StatementCanceller;
+import com.taiping.framework.dal.dialect.Dialect;
+import com.taiping.framework.dal.exception.DalException;
 import com.taiping.framework.dal.mapper.RowMapperFactory;
+import com.taiping.framework.dal.metrics.SqlTimer;
+import com.taiping.framework.dal.page.CountStrategy;
+import com.taiping.framework.dal.page.KeysetPage;
+import com.taiping.framework.dal.page.KeysetPageResult;
+import com.taiping.framework.dal.page.KeysetToken;
 import com.taiping.framework.dal.page.Page;
 import com.taiping.framework.dal.page.PageResult;
-import com.taiping.framework.dal.parser.FreeMarkerParser;
 import com.taiping.framework.dal.parser.XmlParser;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 public class PaginationDalClient extends DefaultDalClient implements PageDalClient {
 	
 	/** 结果集大小*/
 	private static final String LIMIT = "_limit";
 	/** 偏移量，起始位置*/
 	private static final String OFFSET = "_offset";
+	/** count缓存的默认存活秒数*/
+	private static final int DEFAULT_COUNT_CACHE_SECONDS = 60;
+	
+	/** 执行计划标识序号*/
+	private static final AtomicLong planSequence = new AtomicLong();
+	
+	/** count缓存，key为sqlId、count SQL与查询参数*/
+	private final LruCache<String, Integer> countCache = new LruCache<>(1024);
+	
+	/** count缓存的存活秒数*/
+	private int countCacheSeconds = DEFAULT_COUNT_CACHE_SECONDS;
+	
+	/** 同时执行count查询的默认上限*/
+	private static final int DEFAULT_MAX_CONCURRENT_COUNTS = 8;
+	
+	/** 是否与分页查询并发执行count查询*/
+	private boolean concurrentCount;
+	
+	/** 同时执行count查询的上限*/
+	private int maxConcurrentCounts = DEFAULT_MAX_CONCURRENT_COUNTS;
+	
+	/** count查询许可*/
+	private volatile Semaphore countPermits = new Semaphore(DEFAULT_MAX_CONCURRENT_COUNTS);
+	
+	/** 执行count查询的线程池*/
+	private volatile ExecutorService countExecutor;
+	
+	/** countExecutor是否为按需创建，只有按需创建的线程池随count查询上限调整*/
+	private boolean defaultCountExecutor;
 
 	public PaginationDalClient(DataSource dataSource) {
 		super(dataSource);
@@ -26,25 +86,400 @@ public class PaginationDalClient extends DefaultDalClient implements PageDalClie
 
 	@Override
 	public <T> PageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, Page page) {
-		String orgSql = XmlParser.getOrgSql(sqlId);
 		DbType dbType = XmlParser.getDbType(sqlId);
+		Dialect dialect = dbType.getDialect();
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForList(page)");
 		/** FreeMarker模板渲染 */
-		String sql = FreeMarkerParser.processTemplate(orgSql, paramMap);
+		String sql = renderSql(sqlId, paramMap);
+		timer.rendered();
 		List<T> list = null;
 		if (page.getPageSize() < 0) {
 			page.setPageSize(1000);
 			page.setCurrentPage(1);
         }
-		paramMap.put(LIMIT, page.getPageSize());
+		CountStrategy countStrategy = page.getCountStrategy() == null ? CountStrategy.EXACT : page.getCountStrategy();
+		int pageSize = page.getPageSize();
+		paramMap.put(LIMIT, countStrategy == CountStrategy.HAS_NEXT ? pageSize + 1 : pageSize);
         paramMap.put(OFFSET, page.getFirstRowIndex());
-        logMessage("queryForList", sql, paramMap);
-        long beginDate = System.currentTimeMillis();
+        logMessage(timer, sql, paramMap);
         /** 获取数据总数 */
-		this.configurePagination(dbType.getDialect().getRowCountSql(sql), paramMap, page);
+        Supplier<Boolean> countTask = null;
+        boolean exactCount = true;
+        switch (countStrategy) {
+		case HAS_NEXT:
+			break;
+		case CACHED:
+			String countSql = dialect.getRowCountSql(sqlId, sql);
+			String key = countCacheKey(sqlId, countSql, paramMap);
+			Integer cachedCount = countCache.get(key);
+			if (cachedCount != null) {
+				page.setRowCount(cachedCount);
+				exactCount = false;
+			} else {
+				countTask = () -> {
+					int rowCount = jdbcTemplate.queryForObject(countSql, paramMap, Integer.class);
+					countCache.put(key, rowCount, countCacheSeconds * 1000L);
+					page.setRowCount(rowCount);
+					return true;
+				};
+			}
+			break;
+		case ESTIMATED:
+			countTask = () -> configureEstimatedPagination(sqlId, dialect, sql, paramMap, page);
+			break;
+		default:
+			if (page.getRowCount() == 0 || page.getRowCount() == -1) {
+				countTask = () -> {
+					this.configurePagination(dialect.getRowCountSql(sqlId, sql), paramMap, page);
+					return true;
+				};
+			}
+			break;
+		}
         /** 执行分页查询 */
-        list = jdbcTemplate.query(dbType.getDialect().getLimitString(sql), paramMap, new RowMapperFactory<T>(requiredType).getRowMapper());
-        logMessage("queryForList", sql, paramMap, System.currentTimeMillis() - beginDate);
-        return new PageResult<T>(list, page);
+        String limitSql = dialect.getLimitString(sql);
+        RowMapper<T> rowMapper = timer.timed(RowMapperFactory.getRowMapper(requiredType));
+        Supplier<List<T>> pageTask = () -> jdbcTemplate.query(limitSql, paramMap, rowMapper);
+        /** 许可可能被setMaxConcurrentCounts替换，获取与归还使用同一个 */
+        Semaphore permits = countPermits;
+        try {
+        	if (countTask == null) {
+        		list = pageTask.get();
+        	} else if (concurrentCount && !isTransactionActive() && permits.tryAcquire()) {
+        		/** 总数与当前页在不同连接上同时查询 */
+        		ConcurrentResult<T> concurrentResult = queryConcurrently(permits, countTask, pageTask);
+        		list = concurrentResult.list;
+        		exactCount = concurrentResult.exactCount;
+        	} else {
+        		exactCount = countTask.get();
+        		list = pageTask.get();
+        	}
+        } catch (RuntimeException e) {
+        	throw timer.failed(e);
+        }
+        logExecuteTime(timer, sql, paramMap);
+        PageResult<T> result = new PageResult<T>(list, page);
+        if (countStrategy == CountStrategy.HAS_NEXT) {
+        	result.setHasNext(list.size() > pageSize);
+        	if (result.hasNext()) {
+        		result.setPageR(new ArrayList<>(list.subList(0, pageSize)));
+        	}
+        	result.setRowCount(-1);
+        	result.setExactCount(false);
+        } else {
+        	result.setExactCount(exactCount);
+        }
+        return result;
+	}
+
+	/**
+	 * 在线程池中执行count查询，同时在当前线程执行分页查询；任一查询失败时取消另一个正在执行的SQL<br>
+	 * 调用前需已获取permits许可，count任务结束或未开始即被取消时释放，且只释放一次
+	 */
+	private <T> ConcurrentResult<T> queryConcurrently(Semaphore permits, Supplier<Boolean> countTask, Supplier<List<T>> pageTask) {
+		StatementCanceller countCanceller = new StatementCanceller();
+		StatementCanceller pageCanceller = new StatementCanceller();
+		AtomicBoolean released = new AtomicBoolean();
+		Runnable releasePermit = () -> {
+			if (released.compareAndSet(false, true)) {
+				permits.release();
+			}
+		};
+		Future<Boolean> countFuture;
+		try {
+			countFuture = getCountExecutor().submit(() -> {
+				try {
+					return StatementCanceller.call(countCanceller, countTask::get);
+				} catch (Exception e) {
+					pageCanceller.cancel();
+					throw e;
+				} finally {
+					releasePermit.run();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			releasePermit.run();
+			log.warn("Count executor rejected the task, count in the calling thread");
+			boolean exactCount = countTask.get();
+			return new ConcurrentResult<T>(pageTask.get(), exactCount);
+		}
+		List<T> list;
+		try {
+			list = StatementCanceller.call(pageCanceller, pageTask::get);
+		} catch (Exception e) {
+			if (pageCanceller.isCancelled()) {
+				/** 分页查询因count失败被取消，抛出count查询的异常 */
+				awaitCount(countFuture, countCanceller);
+			}
+			countCanceller.cancel();
+			countFuture.cancel(true);
+			/** 尚未开始执行的count任务被取消后不会再运行finally */
+			releasePermit.run();
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			throw new DalException("dal.008:Page query failed: " + e);
+		}
+		try {
+			return new ConcurrentResult<T>(list, awaitCount(countFuture, countCanceller));
+		} finally {
+			if (countFuture.isCancelled()) {
+				releasePermit.run();
+			}
+		}
+	}
+
+	/**
+	 * 等待count查询完成
+	 * 
+	 * @return 总数是否为准确统计得到
+	 */
+	private static boolean awaitCount(Future<Boolean> countFuture, StatementCanceller countCanceller) {
+		try {
+			return countFuture.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new DalException("dal.008:Count query failed: " + cause);
+		} catch (InterruptedException e) {
+			countCanceller.cancel();
+			countFuture.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new DalException("dal.008:Interrupted while waiting for count query");
+		}
+	}
+
+	/**
+	 * 当前线程是否处于事务中，事务中的count需要与分页查询使用同一连接，不能并发执行
+	 */
+	private boolean isTransactionActive() {
+		return TransactionSynchronizationManager.isActualTransactionActive()
+				|| TransactionSynchronizationManager.hasResource(dataSource);
+	}
+
+	private ExecutorService getCountExecutor() {
+		ExecutorService executor = countExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = countExecutor;
+				if (executor == null) {
+					executor = DalExecutors.newExecutor("dal-count", maxConcurrentCounts);
+					countExecutor = executor;
+					defaultCountExecutor = true;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 取优化器估算的行数，方言不支持或估算失败时退回准确统计
+	 * 
+	 * @return 总数是否为准确统计得到
+	 */
+	private boolean configureEstimatedPagination(String sqlId, Dialect dialect, String sql, Map<String, Object> paramMap, Page page) {
+		Long estimated = estimateRowCount(dialect, sql);
+		if (estimated == null) {
+			page.setRowCount(jdbcTemplate.queryForObject(dialect.getRowCountSql(sqlId, sql), paramMap, Integer.class));
+			return true;
+		}
+		page.setRowCount((int) Math.min(estimated, Integer.MAX_VALUE));
+		return false;
+	}
+
+	/**
+	 * 通过执行计划估算SQL返回的行数，执行计划中的绑定变量不需要赋值
+	 * 
+	 * @param dialect 数据库方言
+	 * @param sql     渲染后的SQL
+	 * @return 估算行数，不支持或失败时返回null
+	 */
+	private Long estimateRowCount(Dialect dialect, String sql) {
+		String statementId = "dal_" + Long.toString(planSequence.incrementAndGet(), 36);
+		String explainSql = dialect.getExplainPlanString(sql, statementId);
+		if (explainSql == null) {
+			return null;
+		}
+		try {
+			return jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<Long>) con -> {
+				try (Statement statement = con.createStatement()) {
+					statement.execute(explainSql);
+					try (ResultSet rs = statement.executeQuery(dialect.getPlanRowCountString(statementId))) {
+						Long rows = null;
+						if (rs.next()) {
+							long cardinality = rs.getLong(1);
+							rows = rs.wasNull() ? null : cardinality;
+						}
+						statement.execute(dialect.getPlanCleanupString(statementId));
+						return rows;
+					}
+				}
+			});
+		} catch (DataAccessException e) {
+			log.warn("Estimate row count failed, fall back to exact count: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * count缓存key，由sqlId、count SQL与除分页参数外的查询参数组成
+	 */
+	private static String countCacheKey(String sqlId, String countSql, Map<String, Object> paramMap) {
+		StringBuilder key = new StringBuilder(countSql.length() + 64).append(sqlId).append('\n').append(countSql);
+		for (Map.Entry<String, Object> entry : new TreeMap<>(paramMap).entrySet()) {
+			if (LIMIT.equals(entry.getKey()) || OFFSET.equals(entry.getKey())) {
+				continue;
+			}
+			Object value = entry.getValue();
+			key.append('\n').append(entry.getKey()).append('=')
+					.append(value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 清空count缓存
+	 */
+	public void clearCountCache() {
+		countCache.clear();
+	}
+
+	/**
+	 * count缓存统计信息
+	 */
+	public CacheStats getCountCacheStats() {
+		return countCache.stats();
+	}
+
+	public boolean isConcurrentCount() {
+		return concurrentCount;
+	}
+
+	/**
+	 * 设置是否在独立连接上与分页查询同时执行count查询，事务中始终顺序执行
+	 * 
+	 * @param concurrentCount 是否并发执行
+	 */
+	public void setConcurrentCount(boolean concurrentCount) {
+		this.concurrentCount = concurrentCount;
+	}
+
+	public int getMaxConcurrentCounts() {
+		return maxConcurrentCounts;
+	}
+
+	/**
+	 * 设置同时执行的count查询上限，达到上限时在调用线程中顺序执行；按需创建的平台线程池同时调整线程数，
+	 * 已获取旧许可的count查询结束后归还到旧许可
+	 * 
+	 * @param maxConcurrentCounts count查询上限
+	 */
+	public synchronized void setMaxConcurrentCounts(int maxConcurrentCounts) {
+		if (maxConcurrentCounts <= 0) {
+			throw new DalException("dal.008:maxConcurrentCounts must be positive: " + maxConcurrentCounts);
+		}
+		this.maxConcurrentCounts = maxConcurrentCounts;
+		this.countPermits = new Semaphore(maxConcurrentCounts);
+		ExecutorService executor = countExecutor;
+		if (defaultCountExecutor && executor instanceof ThreadPoolExecutor) {
+			ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+			/** 先调大最大线程数再调核心线程数，缩小时相反，避免core大于max */
+			if (maxConcurrentCounts > pool.getMaximumPoolSize()) {
+				pool.setMaximumPoolSize(maxConcurrentCounts);
+				pool.setCorePoolSize(maxConcurrentCounts);
+			} else {
+				pool.setCorePoolSize(maxConcurrentCounts);
+				pool.setMaximumPoolSize(maxConcurrentCounts);
+			}
+		}
+	}
+
+	/**
+	 * 设置执行count查询的线程池，未设置时按需创建，JDK21+使用虚拟线程
+	 * 
+	 * @param countExecutor 线程池
+	 */
+	public synchronized void setCountExecutor(ExecutorService countExecutor) {
+		this.countExecutor = countExecutor;
+		this.defaultCountExecutor = false;
+	}
+
+	public int getCountCacheSeconds() {
+		return countCacheSeconds;
+	}
+
+	/**
+	 * 设置count缓存的存活秒数
+	 * 
+	 * @param countCacheSeconds 存活秒数
+	 */
+	public void setCountCacheSeconds(int countCacheSeconds) {
+		this.countCacheSeconds = countCacheSeconds;
+	}
+
+	@Override
+	public <T> KeysetPageResult<T> queryForList(String sqlId, Map<String, Object> paramMap, Class<T> requiredType, KeysetPage page) {
+		String[] sortColumns = page.getSortColumns();
+		if (sortColumns == null || sortColumns.length == 0) {
+			throw new DalException("dal.007:Keyset pagination requires sort columns");
+		}
+		DbType dbType = XmlParser.getDbType(sqlId);
+		SqlTimer timer = SqlTimer.start(sqlId, "queryForList(keyset)");
+		/** FreeMarker模板渲染 */
+		String sql = renderSql(sqlId, paramMap);
+		timer.rendered();
+		int pageSize = page.getPageSize() > 0 ? page.getPageSize() : 1000;
+		boolean seek = page.getToken() != null;
+		if (seek) {
+			Object[] lastKeys = KeysetToken.decode(page.getToken(), sortColumns.length);
+			for (int i = 0; i < lastKeys.length; i++) {
+				paramMap.put(Dialect.SEEK_PARAM_PREFIX + i, lastKeys[i]);
+			}
+		}
+		/** 多取一条判断是否还有下一页 */
+		paramMap.put(LIMIT, pageSize + 1);
+		String seekSql = dbType.getDialect().getSeekLimitString(sql, sortColumns, page.isDescending(), seek);
+		logMessage(timer, seekSql, paramMap);
+		KeyCapturingRowMapper<T> rowMapper = new KeyCapturingRowMapper<>(RowMapperFactory.getRowMapper(requiredType), sortColumns, pageSize - 1,
+				page.isCaptureRowKeys());
+		List<T> list;
+		try {
+			list = jdbcTemplate.query(seekSql, paramMap, timer.timed(rowMapper));
+		} catch (RuntimeException e) {
+			throw timer.failed(e);
+		}
+		logExecuteTime(timer, seekSql, paramMap);
+		String nextToken = null;
+		if (list.size() > pageSize) {
+			list = new ArrayList<>(list.subList(0, pageSize));
+			nextToken = KeysetToken.encode(rowMapper.getCapturedKeys());
+		}
+		KeysetPageResult<T> result = new KeysetPageResult<T>(list, nextToken);
+		if (page.isCaptureRowKeys()) {
+			List<Object[]> rowKeys = rowMapper.getRowKeys();
+			result.setRowKeys(rowKeys.size() > list.size() ? new ArrayList<>(rowKeys.subList(0, list.size())) : rowKeys);
+		}
+		return result;
+	}
+
+	/**
+	 * 并发查询结果
+	 */
+	private static final class ConcurrentResult<T> {
+
+		private final List<T> list;
+
+		private final boolean exactCount;
+
+		private ConcurrentResult(List<T> list, boolean exactCount) {
+			this.list = list;
+			this.exactCount = exactCount;
+		}
 	}
 
 }
@@ -0,0 +1,214 @@
+package com.taiping.framework.dal.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.taiping.framework.dal.exception.DalException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**实体类属性访问器，通过预编译的MethodHandle创建实例、读写属性<br>
+ * 每个类只构建一次，构建完成后不可变，可以被多线程共享
+ * @author xiangyj
+ *
+ */
+@Slf4j
+public final class BeanAccessor {
+
+	private static final Map<Class<?>, BeanAccessor> accessors = new ConcurrentHashMap<>();
+
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	private final Class<?> beanClass;
+
+	/** 无参构造方法，类型为()Object，没有无参构造方法时为null*/
+	private final MethodHandle constructor;
+
+	/** 属性名对应的属性访问器*/
+	private final Map<String, Property> properties;
+
+	/** 可读属性名*/
+	private final String[] readableNames;
+
+	private BeanAccessor(Class<?> beanClass) {
+		this.beanClass = beanClass;
+		this.constructor = findConstructor(beanClass);
+		Map<String, Property> props = new LinkedHashMap<>();
+		for(PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(beanClass)) {
+			if(pd.getPropertyType() == null || "class".equals(pd.getName())) {
+				continue;
+			}
+			props.put(pd.getName(), new Property(pd.getName(), pd.getPropertyType(),
+					unreflectGetter(pd.getReadMethod()), unreflectSetter(pd.getWriteMethod())));
+		}
+		this.properties = Collections.unmodifiableMap(props);
+		this.readableNames = props.values().stream().filter(Property::isReadable).map(Property::getName).toArray(String[]::new);
+	}
+
+	/**获取类对应的属性访问器，未缓存命中时构建并缓存
+	 * @param beanClass 实体类
+	 * @return
+	 */
+	public static BeanAccessor forClass(Class<?> beanClass) {
+		BeanAccessor accessor = accessors.get(beanClass);
+		if(accessor == null) {
+			accessor = new BeanAccessor(beanClass);
+			BeanAccessor exists = accessors.putIfAbsent(beanClass, accessor);
+			if(exists != null) {
+				accessor = exists;
+			}
+		}
+		return accessor;
+	}
+
+	/**通过无参构造方法创建实例
+	 * @return
+	 * @throws DalException
+	 */
+	public Object newInstance() throws DalException {
+		if(constructor == null) {
+			throw new DalException("dal.003:No default constructor found for " + beanClass.getName());
+		}
+		try {
+			return (Object) constructor.invokeExact();
+		} catch (Throwable e) {
+			log.error("Initialize the given " + beanClass + " failed!", e);
+			throw new DalException("dal.003:Initialize the given " + beanClass.getName() + " failed: " + e.getMessage());
+		}
+	}
+
+	/**获取属性访问器，属性不存在时返回null
+	 * @param name 属性名
+	 * @return
+	 */
+	public Property getProperty(String name) {
+		return properties.get(name);
+	}
+
+	public Map<String, Property> getProperties() {
+		return properties;
+	}
+
+	/**可读属性名，返回内部数组，调用方不能修改
+	 * @return
+	 */
+	public String[] getReadableNames() {
+		return readableNames;
+	}
+
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+
+	private static MethodHandle findConstructor(Class<?> beanClass) {
+		try {
+			Constructor<?> ctor = beanClass.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(ctor);
+			return lookup.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static MethodHandle unreflectGetter(Method method) {
+		if(method == null) {
+			return null;
+		}
+		try {
+			ReflectionUtils.makeAccessible(method);
+			return lookup.unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			log.warn("Getter " + method + " is not accessible", e);
+			return null;
+		}
+	}
+
+	private static MethodHandle unreflectSetter(Method method) {
+		if(method == null) {
+			return null;
+		}
+		try {
+			ReflectionUtils.makeAccessible(method);
+			return lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			log.warn("Setter " + method + " is not accessible", e);
+			return null;
+		}
+	}
+
+	/**单个属性的访问器
+	 */
+	public static final class Property {
+
+		private final String name;
+
+		private final Class<?> type;
+
+		/** 读方法，类型为(Object)Object，只写属性为null*/
+		private final MethodHandle getter;
+
+		/** 写方法，类型为(Object, Object)void，只读属性为null*/
+		private final MethodHandle setter;
+
+		private Property(String name, Class<?> type, MethodHandle getter, MethodHandle setter) {
+			this.name = name;
+			this.type = type;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public boolean isReadable() {
+			return getter != null;
+		}
+
+		public boolean isWritable() {
+			return setter != null;
+		}
+
+		/**读取属性值
+		 * @param bean 实体对象
+		 * @return
+		 * @throws DalException
+		 */
+		public Object get(Object bean) throws DalException {
+			try {
+				return (Object) getter.invokeExact(bean);
+			} catch (Throwable e) {
+				throw new DalException("dal.004:Get property '" + name + "' of " + bean.getClass().getName() + " failed: " + e);
+			}
+		}
+
+		/**写入属性值
+		 * @param bean 实体对象
+		 * @param value 属性值
+		 * @throws DalException
+		 */
+		public void set(Object bean, Object value) throws DalException {
+			try {
+				setter.invokeExact(bean, value);
+			} catch (Throwable e) {
+				throw new DalException("dal.004:Set property '" + name + "' of " + bean.getClass().getName() + " failed: " + e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.taiping.framework.dal.util;
+
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+
+import com.taiping.framework.dal.util.BeanAccessor.Property;
+
+/**直接从实体对象读取参数值的SqlParameterSource<br>
+ * 通过类级别预编译的属性读方法取值，不复制到Map，也不持有共享的可变状态
+ * @author xiangyj
+ *
+ */
+public class EntitySqlParameterSource extends AbstractSqlParameterSource {
+
+	private final Object entity;
+	
+	private final BeanAccessor accessor;
+
+	public EntitySqlParameterSource(Object entity) {
+		this.entity = entity;
+		this.accessor = BeanAccessor.forClass(entity.getClass());
+	}
+
+	@Override
+	public boolean hasValue(String paramName) {
+		Property property = accessor.getProperty(paramName);
+		return property != null && property.isReadable();
+	}
+
+	@Override
+	public Object getValue(String paramName) throws IllegalArgumentException {
+		Property property = accessor.getProperty(paramName);
+		if(property == null || !property.isReadable()) {
+			throw new IllegalArgumentException("No value registered for key '" + paramName + "'");
+		}
+		return property.get(entity);
+	}
+
+	@Override
+	public String[] getParameterNames() {
+		return accessor.getReadableNames().clone();
+	}
+	
+	public Object getEntity() {
+		return entity;
+	}
+
+	@Override
+	public String toString() {
+		return "EntitySqlParameterSource [entity=" + entity + "]";
+	}
+	
+}
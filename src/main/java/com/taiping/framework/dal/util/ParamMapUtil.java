@@ -2,40 +2,42 @@ package com.taiping.framework.dal.util;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
-import net.sf.cglib.beans.BeanMap;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.taiping.framework.dal.util.BeanAccessor.Property;
 
 public class ParamMapUtil {
 
-	private static final Map<Class<?>, BeanMap> beanMaps = new ConcurrentHashMap<>();
-	
 	@SuppressWarnings("unchecked")
 	public static <T> Map<String, Object> paramMap(T entity) {
 		if (entity instanceof Map) {
             return (Map<String, Object>) entity;
         }
-		BeanMap beanMap = null;
-		Class<? extends Object> tClass = entity.getClass();
-		if(beanMaps.containsKey(tClass)) {
-			beanMap = beanMaps.get(tClass);
-		} else {
-			beanMap = BeanMap.create(entity);
-			beanMaps.putIfAbsent(tClass, beanMap);
-		}
-		beanMap.setBean(entity);
+		BeanAccessor accessor = BeanAccessor.forClass(entity.getClass());
 		Map<String, Object> result = new HashMap<>();
-		Set<String> keySet = beanMap.keySet();
-		for(String key : keySet) {
-			result.put(key, beanMap.get(key));
+		for(Property property : accessor.getProperties().values()) {
+			if(property.isReadable()) {
+				result.put(property.getName(), property.get(entity));
+			}
 		}
 		return result;
 	}
 	
-	public static <T> BeanMap getBeanMap(T entity) {
-		paramMap(entity);
-		return beanMaps.get(entity.getClass());
+	/**获取参数对象对应的SqlParameterSource，实体对象直接读取属性值，不复制到Map
+	 * @param param 参数对象，Map或者实体
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static SqlParameterSource paramSource(Object param) {
+		if (param instanceof SqlParameterSource) {
+			return (SqlParameterSource) param;
+		}
+		if (param instanceof Map) {
+			return new MapSqlParameterSource((Map<String, ?>) param);
+		}
+		return new EntitySqlParameterSource(param);
 	}
 	
 	/**删除paramMap中value为空的元素
@@ -0,0 +1,60 @@
+package com.taiping.framework.dal.dialect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.taiping.framework.dal.cache.CacheStats;
+
+/**
+ * count分析结果缓存：动态SQL交替渲染出不同分支时，每个分支只分析一次
+ *
+ * @author xiangyj
+ */
+public class CountSqlAnalyzerCacheTest {
+
+	private static final String BY_CODE = "SELECT ID FROM T WHERE CODE = :code ORDER BY ID";
+
+	private static final String BY_NAME = "SELECT ID FROM T WHERE NAME LIKE :name ORDER BY ID";
+
+	private static final String GROUPED = "SELECT CODE, COUNT(*) FROM T GROUP BY CODE";
+
+	@Test
+	public void alternatingBranchesAreAnalyzedOnce() {
+		String sqlId = "cache.alternating";
+		String byCode = CountSqlAnalyzer.getCountSql(sqlId, BY_CODE);
+		String byName = CountSqlAnalyzer.getCountSql(sqlId, BY_NAME);
+		assertNull(CountSqlAnalyzer.getCountSql(sqlId, GROUPED));
+		assertEquals("select count(1) FROM T WHERE CODE = :code", byCode);
+		assertEquals("select count(1) FROM T WHERE NAME LIKE :name", byName);
+		CacheStats before = CountSqlAnalyzer.getCacheStats();
+		for (int i = 0; i < 10; i++) {
+			/** 未重新分析时返回缓存的同一实例 */
+			assertSame(byCode, CountSqlAnalyzer.getCountSql(sqlId, new String(BY_CODE)));
+			assertSame(byName, CountSqlAnalyzer.getCountSql(sqlId, new String(BY_NAME)));
+			assertNull(CountSqlAnalyzer.getCountSql(sqlId, GROUPED));
+		}
+		CacheStats after = CountSqlAnalyzer.getCacheStats();
+		assertEquals(0, after.getMissCount() - before.getMissCount());
+		assertEquals(30, after.getHitCount() - before.getHitCount());
+	}
+
+	@Test
+	public void evictRemovesAllBranchesOfSqlId() {
+		String sqlId = "cache.evict";
+		CountSqlAnalyzer.getCountSql(sqlId, BY_CODE);
+		CountSqlAnalyzer.getCountSql(sqlId, BY_NAME);
+		CountSqlAnalyzer.getCountSql("cache.other", BY_CODE);
+		CountSqlAnalyzer.evict(sqlId);
+		CacheStats before = CountSqlAnalyzer.getCacheStats();
+		CountSqlAnalyzer.getCountSql(sqlId, BY_CODE);
+		CountSqlAnalyzer.getCountSql(sqlId, BY_NAME);
+		CountSqlAnalyzer.getCountSql("cache.other", BY_CODE);
+		CacheStats after = CountSqlAnalyzer.getCacheStats();
+		assertEquals(2, after.getMissCount() - before.getMissCount());
+		assertEquals(1, after.getHitCount() - before.getHitCount());
+	}
+
+}
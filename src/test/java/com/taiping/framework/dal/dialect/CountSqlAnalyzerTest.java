@@ -0,0 +1,87 @@
+package com.taiping.framework.dal.dialect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * count改写规则：源SQL与期望的count语句，期望为null表示不能改写，由方言包装源SQL
+ *
+ * @author xiangyj
+ */
+@RunWith(Parameterized.class)
+public class CountSqlAnalyzerTest {
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> cases() {
+		return Arrays.asList(new Object[][] {
+				/** 去掉最外层的ORDER BY */
+				{ "SELECT ID, NAME FROM T WHERE A = :a ORDER BY ID", "select count(1) FROM T WHERE A = :a" },
+				{ "select id from t order by id desc, name", "select count(1) from t" },
+				{ "SELECT ID FROM T WHERE ID IN (SELECT ID FROM U ORDER BY ID) ORDER BY NAME",
+						"select count(1) FROM T WHERE ID IN (SELECT ID FROM U ORDER BY ID)" },
+				{ "SELECT ID FROM T", "select count(1) FROM T" },
+				/** 字符串常量、注释与绑定变量中的关键字 */
+				{ "SELECT ID FROM T WHERE NAME = 'GROUP BY' ORDER BY ID", "select count(1) FROM T WHERE NAME = 'GROUP BY'" },
+				{ "SELECT ID /* DISTINCT */ FROM T WHERE A = 1 -- UNION", "select count(1) FROM T WHERE A = 1 -- UNION" },
+				{ "SELECT ID FROM T WHERE A = :group ORDER BY ID", "select count(1) FROM T WHERE A = :group" },
+				/** DISTINCT、GROUP BY、集合运算与窗口函数改变行数 */
+				{ "SELECT DISTINCT ID FROM T", null },
+				{ "SELECT UNIQUE ID FROM T", null },
+				{ "SELECT DEPT, MAX(ID) FROM T GROUP BY DEPT", null },
+				{ "SELECT ID FROM T GROUP BY ID HAVING ID > 1", null },
+				{ "SELECT ID FROM T UNION SELECT ID FROM U", null },
+				{ "SELECT ID FROM T UNION ALL SELECT ID FROM U ORDER BY 1", null },
+				{ "SELECT ID FROM T MINUS SELECT ID FROM U", null },
+				{ "SELECT ID, ROW_NUMBER() OVER (ORDER BY ID) RN FROM T", null },
+				{ "SELECT ID FROM (SELECT ID, RANK() OVER (PARTITION BY A ORDER BY B) R FROM T) WHERE R = 1", null },
+				/** 查询列中的聚合函数把结果收敛为一行，标量子查询中的聚合函数不影响行数 */
+				{ "SELECT COUNT(*) FROM T", null },
+				{ "SELECT MAX(ID) FROM T WHERE A = 1", null },
+				{ "SELECT ID, (SELECT MAX(X) FROM U WHERE U.ID = T.ID) MX FROM T", "select count(1) FROM T" },
+				{ "SELECT ID, NVL((SELECT SUM(X) FROM U), 0) S FROM T ORDER BY ID", "select count(1) FROM T" },
+				{ "SELECT (SELECT MAX(X) FROM U) MX, SUM(ID) FROM T", null },
+				{ "SELECT ID, COUNT FROM T", "select count(1) FROM T" },
+				{ "SELECT ID FROM T WHERE ID IN (SELECT MAX(ID) FROM U GROUP BY A)",
+						"select count(1) FROM T WHERE ID IN (SELECT MAX(ID) FROM U GROUP BY A)" },
+				/** 行数限制、锁定子句 */
+				{ "SELECT ID FROM T ORDER BY ID FETCH FIRST 10 ROWS ONLY", null },
+				{ "SELECT ID FROM T ORDER BY ID OFFSET 10 ROWS", null },
+				{ "SELECT ID FROM T ORDER BY ID LIMIT 10", null },
+				{ "SELECT ID FROM T WHERE ID = 1 FOR UPDATE", null },
+				{ "SELECT ID FROM T FOR UPDATE NOWAIT", null },
+				/** 非查询语句 */
+				{ "WITH X AS (SELECT ID FROM T) SELECT ID FROM X", null },
+				{ "UPDATE T SET A = 1", null },
+				{ "SELECT 1", null },
+		});
+	}
+
+	private final String sql;
+
+	private final String expected;
+
+	public CountSqlAnalyzerTest(String sql, String expected) {
+		this.sql = sql;
+		this.expected = expected;
+	}
+
+	@Test
+	public void rewrite() {
+		assertEquals(expected, CountSqlAnalyzer.rewrite(sql));
+	}
+
+	@Test
+	public void cachedRewrite() {
+		String sqlId = "test." + sql.hashCode();
+		assertEquals(expected, CountSqlAnalyzer.getCountSql(sqlId, sql));
+		assertEquals(expected, CountSqlAnalyzer.getCountSql(sqlId, sql));
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.taiping.framework.dal.dialect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * 单行查询的行数限制改写：源SQL与DB2、Oracle 12c、Oracle、MySQL方言的期望结果，null表示不能改写，使用原SQL
+ *
+ * @author xiangyj
+ */
+@RunWith(Parameterized.class)
+public class RowLimitAnalyzerTest {
+
+	private static final Dialect DB2 = new Db2Dialect();
+
+	private static final Dialect ORACLE12C = new Oracle12cDialect();
+
+	private static final Dialect ORACLE = new OracleDialect();
+
+	private static final Dialect MYSQL = new MySqlDialect();
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> cases() {
+		return Arrays.asList(new Object[][] {
+				{ "SELECT ID FROM T WHERE A = 1",
+						"SELECT ID FROM T WHERE A = 1 fetch first 1 rows only",
+						"SELECT ID FROM T WHERE A = 1 fetch first 1 rows only",
+						"select * from (SELECT ID FROM T WHERE A = 1) where ROWNUM <= 1",
+						"SELECT ID FROM T WHERE A = 1 limit 1" },
+				/** 末尾的空白 */
+				{ "SELECT ID FROM T ORDER BY ID\n",
+						"SELECT ID FROM T ORDER BY ID fetch first 1 rows only\n",
+						"SELECT ID FROM T ORDER BY ID fetch first 1 rows only\n",
+						"select * from (SELECT ID FROM T ORDER BY ID\n) where ROWNUM <= 1",
+						"SELECT ID FROM T ORDER BY ID limit 1\n" },
+				/** DB2隔离级别子句保留在行数限制之后 */
+				{ "SELECT ID FROM T WHERE A = 1 WITH UR",
+						"SELECT ID FROM T WHERE A = 1 fetch first 1 rows only WITH UR",
+						"SELECT ID FROM T WHERE A = 1 fetch first 1 rows only WITH UR",
+						"select * from (SELECT ID FROM T WHERE A = 1 WITH UR) where ROWNUM <= 1",
+						"SELECT ID FROM T WHERE A = 1 limit 1 WITH UR" },
+				{ "SELECT ID FROM T ORDER BY ID with rs",
+						"SELECT ID FROM T ORDER BY ID fetch first 1 rows only with rs",
+						"SELECT ID FROM T ORDER BY ID fetch first 1 rows only with rs",
+						"select * from (SELECT ID FROM T ORDER BY ID with rs) where ROWNUM <= 1",
+						"SELECT ID FROM T ORDER BY ID limit 1 with rs" },
+				/** 公共表表达式 */
+				{ "WITH X AS (SELECT ID FROM T) SELECT ID FROM X",
+						"WITH X AS (SELECT ID FROM T) SELECT ID FROM X fetch first 1 rows only",
+						"WITH X AS (SELECT ID FROM T) SELECT ID FROM X fetch first 1 rows only",
+						"select * from (WITH X AS (SELECT ID FROM T) SELECT ID FROM X) where ROWNUM <= 1",
+						"WITH X AS (SELECT ID FROM T) SELECT ID FROM X limit 1" },
+				/** 子查询中的行数限制不影响外层 */
+				{ "SELECT ID FROM T WHERE ID IN (SELECT ID FROM U FETCH FIRST 5 ROWS ONLY)",
+						"SELECT ID FROM T WHERE ID IN (SELECT ID FROM U FETCH FIRST 5 ROWS ONLY) fetch first 1 rows only",
+						"SELECT ID FROM T WHERE ID IN (SELECT ID FROM U FETCH FIRST 5 ROWS ONLY) fetch first 1 rows only",
+						"select * from (SELECT ID FROM T WHERE ID IN (SELECT ID FROM U FETCH FIRST 5 ROWS ONLY)) where ROWNUM <= 1",
+						"SELECT ID FROM T WHERE ID IN (SELECT ID FROM U FETCH FIRST 5 ROWS ONLY) limit 1" },
+				/** 已有行数限制或锁定子句 */
+				{ "SELECT ID FROM T FETCH FIRST 5 ROWS ONLY", null, null, null, null },
+				{ "SELECT ID FROM T ORDER BY ID OFFSET 5 ROWS", null, null, null, null },
+				{ "SELECT ID FROM T LIMIT 5", null, null, null, null },
+				{ "SELECT ID FROM T WHERE ROWNUM <= 5", null, null, null, null },
+				{ "SELECT ID FROM T WHERE ID = :id FOR UPDATE", null, null, null, null },
+				{ "SELECT ID FROM T FOR UPDATE OF A WITH RS", null, null, null, null },
+				{ "SELECT ID FROM T LOCK IN SHARE MODE", null, null, null, null },
+				{ "UPDATE T SET A = 1", null, null, null, null },
+				/** 查询列名重复时Oracle不能包装（ORA-00918），其它方言直接追加 */
+				{ "SELECT A.ID, B.ID FROM A, B",
+						"SELECT A.ID, B.ID FROM A, B fetch first 1 rows only",
+						"SELECT A.ID, B.ID FROM A, B fetch first 1 rows only",
+						null,
+						"SELECT A.ID, B.ID FROM A, B limit 1" },
+				{ "SELECT A.*, B.NAME FROM A, B",
+						"SELECT A.*, B.NAME FROM A, B fetch first 1 rows only",
+						"SELECT A.*, B.NAME FROM A, B fetch first 1 rows only",
+						null,
+						"SELECT A.*, B.NAME FROM A, B limit 1" },
+				{ "SELECT A.ID, B.ID B_ID, MAX(C) FROM A, B",
+						"SELECT A.ID, B.ID B_ID, MAX(C) FROM A, B fetch first 1 rows only",
+						"SELECT A.ID, B.ID B_ID, MAX(C) FROM A, B fetch first 1 rows only",
+						"select * from (SELECT A.ID, B.ID B_ID, MAX(C) FROM A, B) where ROWNUM <= 1",
+						"SELECT A.ID, B.ID B_ID, MAX(C) FROM A, B limit 1" },
+				{ "SELECT * FROM T",
+						"SELECT * FROM T fetch first 1 rows only",
+						"SELECT * FROM T fetch first 1 rows only",
+						"select * from (SELECT * FROM T) where ROWNUM <= 1",
+						"SELECT * FROM T limit 1" },
+		});
+	}
+
+	private final String sql;
+
+	private final String db2;
+
+	private final String oracle12c;
+
+	private final String oracle;
+
+	private final String mysql;
+
+	public RowLimitAnalyzerTest(String sql, String db2, String oracle12c, String oracle, String mysql) {
+		this.sql = sql;
+		this.db2 = db2;
+		this.oracle12c = oracle12c;
+		this.oracle = oracle;
+		this.mysql = mysql;
+	}
+
+	@Test
+	public void db2() {
+		assertEquals(db2, DB2.getFirstRowsString(sql, 1));
+	}
+
+	@Test
+	public void oracle12c() {
+		assertEquals(oracle12c, ORACLE12C.getFirstRowsString(sql, 1));
+	}
+
+	@Test
+	public void oracle() {
+		assertEquals(oracle, ORACLE.getFirstRowsString(sql, 1));
+	}
+
+	@Test
+	public void mysql() {
+		assertEquals(mysql, MYSQL.getFirstRowsString(sql, 1));
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.taiping.framework.dal.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * SQL指纹规则：源SQL与期望的指纹
+ *
+ * @author xiangyj
+ */
+@RunWith(Parameterized.class)
+public class SqlFingerprintTest {
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> cases() {
+		return Arrays.asList(new Object[][] {
+				/** 字面量与命名参数替换为? */
+				{ "SELECT * FROM T WHERE ID = 10", "select*from t where id=?" },
+				{ "SELECT * FROM T WHERE NAME = 'it''s' AND CODE = :code", "select*from t where name=? and code=?" },
+				{ "SELECT * FROM T WHERE AMOUNT > 12.50", "select*from t where amount>?" },
+				/** 标识符中的数字不是字面量 */
+				{ "SELECT T1.COL_2 FROM TAB1 T1", "select t1.col_2 from tab1 t1" },
+				/** 空白与注释 */
+				{ "SELECT  ID\n\tFROM T -- comment\nWHERE /* hint */ ID = 1", "select id from t where id=?" },
+				/** 双引号标识符保留大小写 */
+				{ "SELECT \"MixedCase\" FROM T", "select \"MixedCase\" from t" },
+				/** IN列表合并 */
+				{ "SELECT * FROM T WHERE ID IN (1, 2, 3)", "select*from t where id in(?+)" },
+				{ "SELECT * FROM T WHERE ID IN (:a, :b)", "select*from t where id in(?+)" },
+				{ "SELECT * FROM T WHERE ID IN (SELECT ID FROM U)", "select*from t where id in(select id from u)" },
+				/** ::类型转换不是命名参数 */
+				{ "SELECT ID::text FROM T", "select id::text from t" },
+		});
+	}
+
+	private final String sql;
+
+	private final String expected;
+
+	public SqlFingerprintTest(String sql, String expected) {
+		this.sql = sql;
+		this.expected = expected;
+	}
+
+	@Test
+	public void fingerprint() {
+		assertEquals(expected, SqlFingerprint.of(sql));
+	}
+
+	@Test
+	public void sameIdForDifferentParameters() {
+		assertEquals(SqlFingerprint.id(expected), SqlFingerprint.id(SqlFingerprint.of(sql)));
+	}
+
+}